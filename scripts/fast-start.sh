@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# Builds the fast-start (Spring AOT) jar, trains an AppCDS archive and starts the service with both.
+#
+#   scripts/fast-start.sh              build, train, run
+#   scripts/fast-start.sh --run-only   run with the archive from a previous build
+#
+# Arguments after the options are passed to the application, e.g. --server.port=4001.
+# The training run refreshes the application context once and exits, so the database from
+# application.properties (or SPRING_DATASOURCE_URL etc.) must be reachable while it runs.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+ROOT=$(pwd)
+APP_DIR=${APP_DIR:-$ROOT/target/fast-start}
+MAIN_CLASS=com.factory.events.FactoryEventApplication
+JAVA_OPTS=${JAVA_OPTS:-}
+
+RUN_ONLY=false
+if [[ "${1:-}" == "--run-only" ]]; then
+    RUN_ONLY=true
+    shift
+fi
+
+if [[ "$RUN_ONLY" == false ]]; then
+    mvn -B -q -Pfast-start -DskipTests package
+
+    # CDS only archives classes loaded from plain jars on the class path, so unpack the Boot jar
+    rm -rf "$APP_DIR"
+    mkdir -p "$APP_DIR"
+    (cd "$APP_DIR" && jar xf "$ROOT"/target/factory-event-system-*.jar)
+
+    # The archive is only used with the exact class path it was created with: keep it sorted
+    (cd "$APP_DIR" && printf -- '-cp BOOT-INF/classes%s\n' "$(ls BOOT-INF/lib/*.jar | sort | sed 's/^/:/' | tr -d '\n')" \
+        > classpath.args)
+
+    echo "Training AppCDS archive..."
+    (cd "$APP_DIR" && java @classpath.args $JAVA_OPTS -Dspring.aot.enabled=true \
+        -XX:ArchiveClassesAtExit=app.jsa -Dspring.context.exit=onRefresh "$MAIN_CLASS" "$@")
+fi
+
+cd "$APP_DIR"
+# shellcheck disable=SC2086
+exec java @classpath.args $JAVA_OPTS -Dspring.aot.enabled=true -XX:SharedArchiveFile=app.jsa "$MAIN_CLASS" "$@"
@@ -0,0 +1,66 @@
+#!/usr/bin/env bash
+# Measures time from process launch to the first accepted batch, for the regular jar and for the
+# fast-start build (AOT + AppCDS). Build both first:
+#
+#   mvn -DskipTests package && cp target/factory-event-system-1.0.0.jar target/regular.jar
+#   scripts/fast-start.sh                 # Ctrl-C once it is up; the archive stays in target/fast-start
+#   scripts/startup-benchmark.sh [runs]
+#
+# Each run starts the service, posts a one-event batch every 50 ms until one is accepted, then
+# stops it. "wall" is measured from outside; readyMs and firstAcceptedBatchMs come from
+# /api/metrics/startup and count from JVM start.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+ROOT=$(pwd)
+RUNS=${1:-5}
+PORT=${PORT:-4100}
+REGULAR_JAR=${REGULAR_JAR:-$ROOT/target/regular.jar}
+FAST_DIR=${FAST_DIR:-$ROOT/target/fast-start}
+URL=http://localhost:$PORT
+
+now_ms() { date +%s%3N; }
+
+post_one_event() {
+    local id=$1 time
+    time=$(date -u +%Y-%m-%dT%H:%M:%S.%3NZ)
+    curl -s -o /dev/null -w '%{http_code}' -X POST "$URL/api/events/batch" \
+        -H 'Content-Type: application/json' \
+        -d "[{\"eventId\":\"startup-$id\",\"eventTime\":\"$time\",\"machineId\":\"M-STARTUP\",\"durationMs\":1000,\"defectCount\":0,\"lineId\":\"L-STARTUP\",\"factoryId\":\"F-STARTUP\"}]" \
+        || true
+}
+
+run_once() {
+    local mode=$1 run=$2 pid started status wall metrics
+    started=$(now_ms)
+    if [[ "$mode" == regular ]]; then
+        java -jar "$REGULAR_JAR" --server.port="$PORT" > "target/startup-$mode-$run.log" 2>&1 &
+    else
+        (cd "$FAST_DIR" && exec java @classpath.args -Dspring.aot.enabled=true -XX:SharedArchiveFile=app.jsa \
+            com.factory.events.FactoryEventApplication --server.port="$PORT") > "target/startup-$mode-$run.log" 2>&1 &
+    fi
+    pid=$!
+
+    status=000
+    until [[ "$status" == 200 ]]; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "$mode run $run: process exited, see target/startup-$mode-$run.log" >&2
+            exit 1
+        fi
+        sleep 0.05
+        status=$(post_one_event "$mode-$run-$started")
+    done
+    wall=$(( $(now_ms) - started ))
+    metrics=$(curl -s "$URL/api/metrics/startup")
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    printf '%-8s %3d %8d ms   %s\n' "$mode" "$run" "$wall" "$metrics"
+}
+
+mkdir -p target
+printf '%-8s %3s %11s   %s\n' mode run wall "jvm-side metrics"
+for run in $(seq 1 "$RUNS"); do
+    run_once regular "$run"
+    run_once fast "$run"
+done
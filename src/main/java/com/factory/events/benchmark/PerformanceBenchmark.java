@@ -1,19 +1,42 @@
 package com.factory.events.benchmark;
 
 import com.factory.events.dto.BatchIngestResponse;
+import com.factory.events.dto.DurationStatsResponse;
 import com.factory.events.dto.EventDTO;
+import com.factory.events.dto.RejectionMode;
+import com.factory.events.dto.RejectionReason;
+import com.factory.events.dto.StatsResponse;
+import com.factory.events.dto.TopDefectLineResponse;
+import com.factory.events.generator.DatasetGenerator;
+import com.factory.events.generator.DatasetSeeder;
+import com.factory.events.generator.GeneratorProperties;
+import com.factory.events.generator.SeedReport;
+import com.factory.events.service.DurationStatsService;
 import com.factory.events.service.EventService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import javax.sql.DataSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
 
 
 @SpringBootApplication
@@ -24,6 +47,18 @@ public class PerformanceBenchmark implements CommandLineRunner {
     @Autowired
     private EventService eventService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DurationStatsService durationStatsService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private DatasetSeeder datasetSeeder;
+
     public static void main(String[] args) {
         System.setProperty("spring.profiles.active", "benchmark");
         SpringApplication.run(PerformanceBenchmark.class, args);
@@ -45,12 +80,26 @@ public class PerformanceBenchmark implements CommandLineRunner {
             runBenchmark(1000, true);
         }
 
+        System.out.println("\n=== Malformed Batch: 10000 Events, 90% Invalid ===");
+        for (RejectionMode mode : RejectionMode.values()) {
+            runMalformedBenchmark(10_000, mode);
+        }
+
+        System.out.println("\n=== Response Compression: 10000 Rejections ===");
+        runCompressionBenchmark(10_000);
+
+        System.out.println("\n=== Duration Percentiles: 100000 Events, Sketch vs PERCENTILE_CONT ===");
+        runDurationPercentileBenchmark(100_000);
+
+        System.out.println("\n=== Generated Dataset: 200000 Events, JDBC Seeding vs Ingest Replay ===");
+        runGeneratedDatasetBenchmark(200_000, 20_000);
+
         System.out.println("\n=== Benchmark Complete ===");
         System.exit(0);
     }
 
     private void runBenchmark(int eventCount, boolean printResults) {
-        List<EventDTO> events = generateEvents(eventCount);
+        List<EventDTO> events = generateEvents(eventCount, "E-BENCH-", 0.0);
 
         long startTime = System.nanoTime();
         BatchIngestResponse response = eventService.ingestBatch(events);
@@ -69,22 +118,211 @@ public class PerformanceBenchmark implements CommandLineRunner {
         }
     }
 
-    private List<EventDTO> generateEvents(int count) {
-        List<EventDTO> events = new ArrayList<>();
-        Instant baseTime = Instant.now().minus(1, ChronoUnit.HOURS);
+    private void runMalformedBenchmark(int eventCount, RejectionMode mode) {
+        List<EventDTO> events = generateEvents(eventCount, "E-MALFORMED-" + mode + "-", 0.9);
+
+        long startTime = System.nanoTime();
+        BatchIngestResponse response = eventService.ingestBatch(events, mode);
+        long durationMs = (System.nanoTime() - startTime) / 1_000_000;
+
+        System.out.println("  " + mode + ": " + durationMs + " ms, "
+                + (eventCount * 1000.0 / Math.max(durationMs, 1)) + " events/sec, "
+                + serializeCompressed(response, -1) + " response bytes"
+                + " (accepted " + response.getAccepted() + ", rejected " + response.getRejected() + ")");
+    }
+
+    private void runCompressionBenchmark(int rejectionCount) {
+        BatchIngestResponse response = new BatchIngestResponse();
+        for (int i = 0; i < rejectionCount; i++) {
+            response.addRejection("E-BENCH-" + i,
+                    i % 2 == 0 ? RejectionReason.INVALID_DURATION : RejectionReason.FUTURE_EVENT_TIME);
+        }
+        response.setRejected(rejectionCount);
 
-        for (int i = 0; i < count; i++) {
+        // Level -1 means uncompressed; 1/6/9 are the gzip levels a servlet container would pick from
+        int[] levels = {-1, 1, 6, 9};
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean cpuTimeSupported = threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+        for (int level : levels) {
+            // Warm-up pass so the JIT has compiled the serializer and deflater
+            serializeCompressed(response, level);
+
+            long startCpu = cpuTimeSupported ? threads.getCurrentThreadCpuTime() : -1;
+            long startTime = System.nanoTime();
+            long bytes = serializeCompressed(response, level);
+            long wallMicros = (System.nanoTime() - startTime) / 1_000;
+            long cpuMicros = cpuTimeSupported ? (threads.getCurrentThreadCpuTime() - startCpu) / 1_000 : -1;
+
+            System.out.println("  " + (level < 0 ? "identity" : "gzip-" + level) + ": "
+                    + bytes + " bytes, " + wallMicros + " us wall"
+                    + (cpuMicros >= 0 ? ", " + cpuMicros + " us CPU" : ""));
+        }
+    }
+
+    private void runDurationPercentileBenchmark(int eventCount) {
+        String lineId = "L-DURATIONS";
+        Instant end = Instant.now();
+        Instant start = end.minus(6, ChronoUnit.HOURS);
+        // Log-normal durations around 2 s with a long tail, the shape real cycle times tend to have
+        SplittableRandom random = new SplittableRandom(42);
+        List<EventDTO> batch = new ArrayList<>();
+        for (int i = 0; i < eventCount; i++) {
             EventDTO event = new EventDTO();
-            event.setEventId("E-BENCH-" + i);
-            event.setEventTime(baseTime.plus(i, ChronoUnit.SECONDS));
-            event.setMachineId("M-" + (i % 10));
-            event.setDurationMs(1000L + (i % 5000));
-            event.setDefectCount(i % 20);
-            event.setLineId("L-" + (i % 5));
+            event.setEventId("E-DURATION-" + i);
+            event.setEventTime(start.plusMillis(random.nextLong(end.toEpochMilli() - start.toEpochMilli())));
+            event.setMachineId("M-DURATION-" + (i % 20));
+            event.setDurationMs(Math.round(Math.exp(7.6 + 0.8 * random.nextGaussian())));
+            event.setDefectCount(0);
+            event.setLineId(lineId);
             event.setFactoryId("F-01");
-            events.add(event);
+            batch.add(event);
+            if (batch.size() == 1000) {
+                eventService.ingestBatch(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            eventService.ingestBatch(batch);
         }
 
-        return events;
+        String[] percentiles = {"p50", "p95", "p99"};
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String sql = "SELECT PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY duration_ms), "
+                + "PERCENTILE_CONT(0.95) WITHIN GROUP (ORDER BY duration_ms), "
+                + "PERCENTILE_CONT(0.99) WITHIN GROUP (ORDER BY duration_ms) "
+                + "FROM machine_events WHERE line_id = ? AND event_time >= ? AND event_time < ?";
+        // Same window the sketches cover once aligned to whole buckets
+        DurationStatsResponse first = durationStatsService.getDurationStats(null, lineId, start, end, "0.5", 0);
+        Object[] params = {lineId, Timestamp.from(first.getStart()), Timestamp.from(first.getEnd())};
+
+        double[] exact = new double[percentiles.length];
+        long sqlNanos = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            long startTime = System.nanoTime();
+            Map<String, Object> row = jdbcTemplate.queryForMap(sql, params);
+            sqlNanos = Math.min(sqlNanos, System.nanoTime() - startTime);
+            int column = 0;
+            for (Object value : row.values()) {
+                exact[column++] = ((Number) value).doubleValue();
+            }
+        }
+
+        DurationStatsResponse sketch = null;
+        long sketchNanos = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            long startTime = System.nanoTime();
+            sketch = durationStatsService.getDurationStats(null, lineId, start, end, "0.5,0.95,0.99", 20);
+            sketchNanos = Math.min(sketchNanos, System.nanoTime() - startTime);
+        }
+
+        System.out.println("  Rows: " + sketch.getCount());
+        System.out.println("  PERCENTILE_CONT: " + sqlNanos / 1_000 + " us");
+        System.out.println("  Sketch (merged buckets + 20-bin histogram): " + sketchNanos / 1_000 + " us");
+        for (int i = 0; i < percentiles.length; i++) {
+            double estimate = sketch.getPercentiles().get(percentiles[i]);
+            double error = Math.abs(estimate - exact[i]) / exact[i];
+            System.out.printf("  %s: exact %.1f ms, sketch %.1f ms, relative error %.3f%% (bound %.1f%%)%n",
+                    percentiles[i], exact[i], estimate, error * 100, sketch.getRelativeAccuracy() * 100);
+        }
+    }
+
+    private long serializeCompressed(Object value, int level) {
+        CountingOutputStream counter = new CountingOutputStream();
+        try {
+            OutputStream target = level < 0 ? counter : new GZIPOutputStream(counter, 8192) {
+                {
+                    def.setLevel(level);
+                }
+            };
+            objectMapper.writeValue(target, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return counter.count;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    private void runGeneratedDatasetBenchmark(int eventCount, int replayCount) {
+        // Fresh ids per run: the seeder only inserts
+        String prefix = "E-DATASET-" + System.currentTimeMillis() + "-";
+        GeneratorProperties settings = new GeneratorProperties();
+        settings.setEvents(eventCount);
+        settings.setMachines(2000);
+        settings.setLines(100);
+        settings.setFactories(10);
+        settings.setDays(7);
+        settings.setIdPrefix(prefix);
+        DatasetGenerator generator = new DatasetGenerator(settings);
+
+        SeedReport seeded = datasetSeeder.seed(generator, 0);
+        System.out.println("  JDBC seeding: " + seeded.getRows() + " rows in " + seeded.getElapsedMs() + " ms, "
+                + Math.round(seeded.getRowsPerSecond()) + " rows/sec"
+                + (seeded.getError() != null ? " (stopped: " + seeded.getError() + ")" : ""));
+
+        // Same stream, batch by batch through the ingest pipeline, under another prefix
+        settings.setEvents(replayCount);
+        settings.setIdPrefix(prefix + "REPLAY-");
+        DatasetGenerator replay = new DatasetGenerator(settings);
+        long accepted = 0;
+        long rejected = 0;
+        long startTime = System.nanoTime();
+        for (long chunk = 0; chunk < replay.getChunkCount(); chunk++) {
+            BatchIngestResponse response = eventService.ingestBatch(replay.chunk(chunk));
+            accepted += response.getAccepted();
+            rejected += response.getRejected();
+        }
+        long replayMs = Math.max(1, (System.nanoTime() - startTime) / 1_000_000);
+        System.out.println("  Ingest replay: " + replayCount + " records in " + replayMs + " ms, "
+                + Math.round(replayCount * 1000.0 / replayMs) + " records/sec"
+                + " (accepted " + accepted + ", rejected " + rejected + ")");
+
+        Instant from = generator.getStart();
+        Instant to = generator.getEnd();
+        long topNanos = Long.MAX_VALUE;
+        List<TopDefectLineResponse> top = List.of();
+        for (int run = 0; run < 5; run++) {
+            long queryStart = System.nanoTime();
+            top = eventService.getTopDefectLines(generator.factoryId(0), from, to, 10);
+            topNanos = Math.min(topNanos, System.nanoTime() - queryStart);
+        }
+        long statsNanos = Long.MAX_VALUE;
+        StatsResponse stats = null;
+        for (int run = 0; run < 5; run++) {
+            long queryStart = System.nanoTime();
+            stats = eventService.getStats("M-0", null, from, to);
+            statsNanos = Math.min(statsNanos, System.nanoTime() - queryStart);
+        }
+        System.out.println("  Top defect lines (" + generator.factoryId(0) + ", 7 days): " + topNanos / 1_000 + " us"
+                + (top.isEmpty() ? "" : ", worst " + top.get(0).getLineId() + " with " + top.get(0).getTotalDefects() + " defects"));
+        System.out.println("  Stats (M-0, 7 days): " + statsNanos / 1_000 + " us, " + stats.getEventsCount() + " events");
+    }
+
+    private List<EventDTO> generateEvents(int count, String idPrefix, double invalidRatio) {
+        GeneratorProperties settings = new GeneratorProperties();
+        settings.setEvents(count);
+        settings.setChunkSize(Math.max(1, count));
+        settings.setMachines(10);
+        settings.setLines(5);
+        settings.setFactories(1);
+        settings.setDays(1);
+        settings.setEnd(Instant.now());
+        settings.setDuplicateRatio(0.0);
+        settings.setUpdateRatio(0.0);
+        settings.setInvalidRatio(invalidRatio);
+        settings.setIdPrefix(idPrefix);
+        return new DatasetGenerator(settings).chunk(0);
     }
-}
\ No newline at end of file
+}
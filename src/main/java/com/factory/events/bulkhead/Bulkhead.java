@@ -0,0 +1,151 @@
+package com.factory.events.bulkhead;
+
+import com.factory.events.jfr.BulkheadTaskEvent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Fixed-size executor with a bounded queue for one class of traffic. Work is refused up front when
+ * the queue is full, and shed when it waited in the queue longer than the configured maximum,
+ * so a saturated workload fails fast instead of borrowing capacity from the others.
+ * A bulkhead built with {@link #fair} orders its queue by tenant with {@link WeightedFairQueue}.
+ */
+public class Bulkhead implements AutoCloseable {
+
+    private final String name;
+    private final long maxQueueWaitMs;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+    private final WeightedFairQueue fairQueue;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public Bulkhead(String name, int threads, int queueCapacity, long maxQueueWaitMs, long retryAfterSeconds) {
+        this(name, threads, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), maxQueueWaitMs, retryAfterSeconds);
+    }
+
+    private Bulkhead(String name, int threads, BlockingQueue<Runnable> queue, long maxQueueWaitMs,
+                     long retryAfterSeconds) {
+        this.name = name;
+        this.maxQueueWaitMs = maxQueueWaitMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.fairQueue = queue instanceof WeightedFairQueue ? (WeightedFairQueue) queue : null;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                queue, threadFactory(name), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @param tenantQueueCapacity most tasks one tenant may have queued
+     * @param quantum             cost credited to a tenant per round, multiplied by its weight
+     */
+    public static Bulkhead fair(String name, int threads, int queueCapacity, int tenantQueueCapacity, long quantum,
+                                long maxQueueWaitMs, long retryAfterSeconds) {
+        return new Bulkhead(name, threads, new WeightedFairQueue(queueCapacity, tenantQueueCapacity, quantum),
+                maxQueueWaitMs, retryAfterSeconds);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        return submit(WeightedFairQueue.DEFAULT_TENANT, 1, 1, work);
+    }
+
+    /**
+     * Submits work on behalf of a tenant. Weight and cost only matter for a {@link #fair} bulkhead.
+     */
+    public <T> CompletableFuture<T> submit(String tenant, int weight, long cost, Supplier<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long enqueuedAt = System.nanoTime();
+        try {
+            executor.execute(new TenantTask(tenant, weight, cost, () -> run(tenant, work, result, enqueuedAt)));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new BulkheadFullException(name, fairQueue != null
+                    ? "The " + name + " workload is saturated for " + tenant + "; retry later"
+                    : "The " + name + " workload is saturated; retry later", retryAfterSeconds);
+        }
+        submitted.incrementAndGet();
+        return result;
+    }
+
+    private <T> void run(String tenant, Supplier<T> work, CompletableFuture<T> result, long enqueuedAt) {
+        BulkheadTaskEvent event = new BulkheadTaskEvent();
+        event.begin();
+        long waitedNanos = System.nanoTime() - enqueuedAt;
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(waitedNanos);
+        String outcome;
+        if (maxQueueWaitMs > 0 && waitedMs > maxQueueWaitMs) {
+            shed.incrementAndGet();
+            outcome = "SHED";
+            result.completeExceptionally(new BulkheadFullException(name,
+                    "The " + name + " workload shed a request that waited " + waitedMs + " ms", retryAfterSeconds));
+        } else {
+            try {
+                result.complete(work.get());
+                completed.incrementAndGet();
+                outcome = "COMPLETED";
+            } catch (Throwable t) {
+                failed.incrementAndGet();
+                outcome = "FAILED";
+                result.completeExceptionally(t);
+            }
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.setWorkload(name);
+            event.setTenant(tenant);
+            event.setQueueWait(waitedNanos);
+            event.setOutcome(outcome);
+            event.commit();
+        }
+    }
+
+    public String getName() { return name; }
+
+    /**
+     * @return queued tasks per tenant; empty unless this is a {@link #fair} bulkhead
+     */
+    public Map<String, Integer> queuedByTenant() {
+        return fairQueue != null ? fairQueue.queuedByTenant() : Map.of();
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        snapshot.put("threads", (long) executor.getMaximumPoolSize());
+        snapshot.put("active", (long) executor.getActiveCount());
+        snapshot.put("queued", (long) executor.getQueue().size());
+        snapshot.put("submitted", submitted.get());
+        snapshot.put("completed", completed.get());
+        snapshot.put("failed", failed.get());
+        snapshot.put("rejected", rejected.get());
+        snapshot.put("shed", shed.get());
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-bulkhead-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
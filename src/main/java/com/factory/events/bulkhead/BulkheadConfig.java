@@ -0,0 +1,34 @@
+package com.factory.events.bulkhead;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class BulkheadConfig {
+
+    @Bean
+    public Bulkhead ingestBulkhead(
+            @Value("${events.bulkhead.ingest.threads:8}") int threads,
+            @Value("${events.bulkhead.ingest.queue-capacity:64}") int queueCapacity,
+            @Value("${events.bulkhead.ingest.max-queue-wait-ms:5000}") long maxQueueWaitMs,
+            @Value("${events.bulkhead.ingest.retry-after-seconds:1}") long retryAfterSeconds,
+            @Value("${events.bulkhead.ingest.fair-queue.enabled:true}") boolean fairQueue,
+            @Value("${events.bulkhead.ingest.fair-queue.tenant-capacity:16}") int tenantCapacity,
+            @Value("${events.bulkhead.ingest.fair-queue.quantum-events:1000}") long quantumEvents) {
+        if (fairQueue) {
+            return Bulkhead.fair("ingest", threads, queueCapacity, tenantCapacity, quantumEvents,
+                    maxQueueWaitMs, retryAfterSeconds);
+        }
+        return new Bulkhead("ingest", threads, queueCapacity, maxQueueWaitMs, retryAfterSeconds);
+    }
+
+    @Bean
+    public Bulkhead queryBulkhead(
+            @Value("${events.bulkhead.query.threads:8}") int threads,
+            @Value("${events.bulkhead.query.queue-capacity:128}") int queueCapacity,
+            @Value("${events.bulkhead.query.max-queue-wait-ms:2000}") long maxQueueWaitMs,
+            @Value("${events.bulkhead.query.retry-after-seconds:2}") long retryAfterSeconds) {
+        return new Bulkhead("query", threads, queueCapacity, maxQueueWaitMs, retryAfterSeconds);
+    }
+}
@@ -0,0 +1,17 @@
+package com.factory.events.bulkhead;
+
+public class BulkheadFullException extends RuntimeException {
+
+    private final String workload;
+    private final long retryAfterSeconds;
+
+    public BulkheadFullException(String workload, String message, long retryAfterSeconds) {
+        super(message);
+        this.workload = workload;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getWorkload() { return workload; }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
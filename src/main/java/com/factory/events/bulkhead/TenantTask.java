@@ -0,0 +1,28 @@
+package com.factory.events.bulkhead;
+
+/**
+ * A unit of bulkhead work tagged with the tenant it is scheduled for.
+ */
+class TenantTask implements Runnable {
+
+    private final String tenant;
+    private final int weight;
+    private final long cost;
+    private final Runnable work;
+
+    TenantTask(String tenant, int weight, long cost, Runnable work) {
+        this.tenant = tenant;
+        this.weight = Math.max(1, weight);
+        this.cost = Math.max(1, cost);
+        this.work = work;
+    }
+
+    String getTenant() { return tenant; }
+    int getWeight() { return weight; }
+    long getCost() { return cost; }
+
+    @Override
+    public void run() {
+        work.run();
+    }
+}
@@ -0,0 +1,261 @@
+package com.factory.events.bulkhead;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Executor queue that hands out work by deficit round robin across tenants instead of FIFO.
+ *
+ * Each tenant with queued work gets {@code quantum * weight} credit per round and may dequeue tasks
+ * while its credit covers their cost (the number of events in the batch). A tenant with a deep
+ * backlog therefore gets its weighted share of the workers, not all of them, and a tenant that
+ * sends one small batch is served within a round. Each tenant may hold at most
+ * {@code tenantCapacity} queued tasks, so one backlog cannot fill the shared queue either.
+ */
+class WeightedFairQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    static final String DEFAULT_TENANT = "default";
+
+    private final int capacity;
+    private final int tenantCapacity;
+    private final long quantum;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Map<String, TenantQueue> tenants = new HashMap<>();
+    // Tenants with queued work, in round-robin order
+    private final ArrayDeque<TenantQueue> active = new ArrayDeque<>();
+    private int count;
+
+    private static class TenantQueue {
+        private final String tenant;
+        private final ArrayDeque<TenantTask> tasks = new ArrayDeque<>();
+        private long deficit;
+
+        TenantQueue(String tenant) {
+            this.tenant = tenant;
+        }
+    }
+
+    WeightedFairQueue(int capacity, int tenantCapacity, long quantum) {
+        this.capacity = Math.max(1, capacity);
+        this.tenantCapacity = Math.max(1, tenantCapacity);
+        this.quantum = Math.max(1, quantum);
+    }
+
+    /**
+     * @return the number of queued tasks per tenant that currently has any
+     */
+    Map<String, Integer> queuedByTenant() {
+        lock.lock();
+        try {
+            Map<String, Integer> queued = new LinkedHashMap<>();
+            for (TenantQueue queue : active) {
+                queued.put(queue.tenant, queue.tasks.size());
+            }
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable runnable) {
+        TenantTask task = runnable instanceof TenantTask
+                ? (TenantTask) runnable : new TenantTask(DEFAULT_TENANT, 1, 1, runnable);
+        lock.lock();
+        try {
+            if (count >= capacity) {
+                return false;
+            }
+            TenantQueue queue = tenants.computeIfAbsent(task.getTenant(), TenantQueue::new);
+            if (queue.tasks.size() >= tenantCapacity) {
+                return false;
+            }
+            if (queue.tasks.isEmpty()) {
+                active.addLast(queue);
+            }
+            queue.tasks.addLast(task);
+            count++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Runnable runnable) throws InterruptedException {
+        // Only offer() is used by ThreadPoolExecutor; a full queue means the task is rejected
+        if (!offer(runnable)) {
+            throw new IllegalStateException("Queue full");
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable runnable, long timeout, TimeUnit unit) {
+        return offer(runnable);
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll() {
+        lock.lock();
+        try {
+            return count == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            TenantQueue queue = active.peekFirst();
+            return queue != null ? queue.tasks.peekFirst() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        lock.lock();
+        try {
+            for (TenantQueue queue : active) {
+                if (queue.tasks.remove(o)) {
+                    count--;
+                    if (queue.tasks.isEmpty()) {
+                        active.remove(queue);
+                        queue.deficit = 0;
+                    }
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> target) {
+        return drainTo(target, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> target, int maxElements) {
+        lock.lock();
+        try {
+            int drained = 0;
+            while (drained < maxElements && count > 0) {
+                target.add(dequeue());
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Iterator<Runnable> iterator() {
+        lock.lock();
+        try {
+            List<Runnable> snapshot = new ArrayList<>(count);
+            for (TenantQueue queue : active) {
+                snapshot.addAll(queue.tasks);
+            }
+            return snapshot.iterator();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private TenantTask dequeue() {
+        while (true) {
+            TenantQueue queue = active.peekFirst();
+            TenantTask head = queue.tasks.peekFirst();
+            if (queue.deficit >= head.getCost()) {
+                queue.deficit -= head.getCost();
+                queue.tasks.pollFirst();
+                count--;
+                if (queue.tasks.isEmpty()) {
+                    // Credit does not carry over idle periods, or a quiet tenant could burst later
+                    queue.deficit = 0;
+                    active.pollFirst();
+                }
+                return head;
+            }
+            if (active.size() == 1) {
+                // Nobody to share with: no need to spin through rounds to build up credit
+                queue.deficit = head.getCost();
+                continue;
+            }
+            active.pollFirst();
+            queue.deficit += quantum * head.getWeight();
+            active.addLast(queue);
+        }
+    }
+}
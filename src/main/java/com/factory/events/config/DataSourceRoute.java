@@ -0,0 +1,9 @@
+package com.factory.events.config;
+
+public enum DataSourceRoute {
+    /** Write traffic (ingest), pool from spring.datasource.hikari. */
+    PRIMARY,
+    /** Read-only traffic on the primary database, with its own pool so queries cannot starve ingest. */
+    QUERY,
+    REPLICA
+}
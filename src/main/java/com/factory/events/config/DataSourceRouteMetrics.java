@@ -0,0 +1,40 @@
+package com.factory.events.config;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class DataSourceRouteMetrics {
+
+    private final Map<DataSourceRoute, AtomicLong> connections = new EnumMap<>(DataSourceRoute.class);
+    private final AtomicLong replicaFallbacks = new AtomicLong();
+    private final AtomicLong replicaFailures = new AtomicLong();
+
+    public DataSourceRouteMetrics() {
+        for (DataSourceRoute route : DataSourceRoute.values()) {
+            connections.put(route, new AtomicLong());
+        }
+    }
+
+    public void recordConnection(DataSourceRoute route) {
+        connections.get(route).incrementAndGet();
+    }
+
+    /** A read-only transaction was sent to the primary because the replica was down or lagging. */
+    public void recordReplicaFallback() {
+        replicaFallbacks.incrementAndGet();
+    }
+
+    public void recordReplicaFailure() {
+        replicaFailures.incrementAndGet();
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        connections.forEach((route, count) -> snapshot.put("connections." + route.name().toLowerCase(), count.get()));
+        snapshot.put("replica.fallbacks", replicaFallbacks.get());
+        snapshot.put("replica.failures", replicaFailures.get());
+        return snapshot;
+    }
+}
@@ -0,0 +1,138 @@
+package com.factory.events.config;
+
+import com.factory.events.shard.ShardDataSources;
+import com.factory.events.shard.ShardingProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the primary (ingest) and query pools from spring.datasource.* and, when
+ * events.datasource.replica.enabled is set, a third pool for the read replica.
+ * Each additional shard from events.sharding.shards gets its own ingest and query pools.
+ * JPA and repositories only see the routing data source.
+ */
+@Configuration
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("events.datasource.query.hikari")
+    public HikariDataSource queryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("query-pool");
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "events.datasource.replica.enabled", havingValue = "true")
+    @ConfigurationProperties("events.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${events.datasource.replica.url}") String url,
+            @Value("${events.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${events.datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${events.datasource.replica.driver-class-name:${spring.datasource.driver-class-name:}}") String driverClassName) {
+        DataSourceBuilder<HikariDataSource> builder = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password);
+        if (!driverClassName.isEmpty()) {
+            builder.driverClassName(driverClassName);
+        }
+        HikariDataSource dataSource = builder.build();
+        dataSource.setPoolName("replica-pool");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ShardDataSources shardDataSources(
+            @Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+            @Qualifier("queryDataSource") DataSource queryDataSource,
+            ShardingProperties shardingProperties) {
+        ShardDataSources shards = new ShardDataSources(primaryDataSource, queryDataSource);
+        shardingProperties.getShards().forEach((index, shard) -> {
+            String username = shard.getUsername() != null ? shard.getUsername() : primaryDataSource.getUsername();
+            String password = shard.getPassword() != null ? shard.getPassword() : primaryDataSource.getPassword();
+            String driver = shard.getDriverClassName() != null
+                    ? shard.getDriverClassName() : primaryDataSource.getDriverClassName();
+            shards.addShard(
+                    shardPool(shard.getUrl(), username, password, driver, "shard-" + index + "-ingest",
+                            shard.getMaximumPoolSize()),
+                    shardPool(shard.getUrl(), username, password, driver, "shard-" + index + "-query",
+                            shard.getQueryMaximumPoolSize()));
+        });
+        return shards;
+    }
+
+    private static HikariDataSource shardPool(String url, String username, String password, String driverClassName,
+                                              String poolName, int maximumPoolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        if (driverClassName != null && !driverClassName.isEmpty()) {
+            dataSource.setDriverClassName(driverClassName);
+        }
+        dataSource.setPoolName(poolName);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        return dataSource;
+    }
+
+    @Bean
+    public DataSourceRouteMetrics dataSourceRouteMetrics() {
+        return new DataSourceRouteMetrics();
+    }
+
+    @Bean
+    public ReplicaHealthMonitor replicaHealthMonitor(
+            @Qualifier("replicaDataSource") ObjectProvider<DataSource> replicaDataSource,
+            DataSourceRouteMetrics metrics,
+            @Value("${events.datasource.replica.lag-query:}") String lagQuery,
+            @Value("${events.datasource.replica.max-lag-ms:5000}") long maxLagMs,
+            @Value("${events.datasource.replica.check-interval-ms:2000}") long checkIntervalMs) {
+        return new ReplicaHealthMonitor(replicaDataSource.getIfAvailable(), lagQuery, maxLagMs,
+                checkIntervalMs, metrics);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("queryDataSource") DataSource queryDataSource,
+            @Qualifier("replicaDataSource") ObjectProvider<DataSource> replicaDataSource,
+            ReplicaHealthMonitor replicaHealthMonitor,
+            DataSourceRouteMetrics metrics,
+            ShardDataSources shardDataSources) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(DataSourceRoute.PRIMARY, primaryDataSource);
+        targets.put(DataSourceRoute.QUERY, queryDataSource);
+        replicaDataSource.ifAvailable(replica -> targets.put(DataSourceRoute.REPLICA, replica));
+
+        RoutingDataSource routing = new RoutingDataSource(replicaHealthMonitor, metrics, shardDataSources);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,104 @@
+package com.factory.events.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks whether the read replica can serve queries. The replica is considered usable when it
+ * answers the lag query and reports a replication lag within the configured staleness tolerance.
+ * Without a lag query the replica is only checked for availability.
+ */
+public class ReplicaHealthMonitor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaHealthMonitor.class);
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long maxLagMs;
+    private final DataSourceRouteMetrics metrics;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean usable;
+    private volatile long lagMs = -1;
+
+    public ReplicaHealthMonitor(DataSource replica, String lagQuery, long maxLagMs,
+                                long checkIntervalMs, DataSourceRouteMetrics metrics) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagMs = maxLagMs;
+        this.metrics = metrics;
+
+        if (replica == null) {
+            this.scheduler = null;
+            return;
+        }
+        checkNow();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkNow, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isConfigured() {
+        return replica != null;
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    public long getLagMs() {
+        return lagMs;
+    }
+
+    public void checkNow() {
+        if (replica == null) {
+            return;
+        }
+        try (Connection connection = replica.getConnection()) {
+            long lag = 0;
+            if (lagQuery != null && !lagQuery.isBlank()) {
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery(lagQuery)) {
+                    lag = rs.next() ? rs.getLong(1) : 0;
+                }
+            }
+            lagMs = lag;
+            boolean nowUsable = lag <= maxLagMs;
+            if (usable && !nowUsable) {
+                log.warn("Replica lag {} ms exceeds {} ms, routing reads to primary", lag, maxLagMs);
+            } else if (!usable && nowUsable) {
+                log.info("Replica available (lag {} ms), routing read-only transactions to replica", lag);
+            }
+            usable = nowUsable;
+        } catch (SQLException e) {
+            markDown(e);
+        }
+    }
+
+    public void markDown(SQLException cause) {
+        if (usable) {
+            log.warn("Replica unavailable, routing reads to primary: {}", cause.getMessage());
+        }
+        usable = false;
+        metrics.recordReplicaFailure();
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.factory.events.config;
+
+import com.factory.events.shard.ShardContext;
+import com.factory.events.shard.ShardDataSources;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to the replica while it is healthy, otherwise to the query pool on the
+ * primary database. Everything else uses the primary (ingest) pool. On shards other than 0 (see
+ * {@link ShardContext}) the same split applies between that shard's ingest and query pools; the
+ * replica only mirrors shard 0.
+ * Must sit behind a LazyConnectionDataSourceProxy so the transaction's read-only flag is known
+ * by the time a physical connection is requested.
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    private final ReplicaHealthMonitor replicaHealth;
+    private final DataSourceRouteMetrics metrics;
+    private final ShardDataSources shards;
+
+    public RoutingDataSource(ReplicaHealthMonitor replicaHealth, DataSourceRouteMetrics metrics,
+                             ShardDataSources shards) {
+        this.replicaHealth = replicaHealth;
+        this.metrics = metrics;
+        this.shards = shards;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return DataSourceRoute.PRIMARY;
+        }
+        if (Boolean.TRUE.equals(PRIMARY_READS.get()) || ShardContext.current() != 0) {
+            return DataSourceRoute.QUERY;
+        }
+        if (replicaHealth.isReplicaUsable()) {
+            return DataSourceRoute.REPLICA;
+        }
+        if (replicaHealth.isConfigured()) {
+            metrics.recordReplicaFallback();
+        }
+        return DataSourceRoute.QUERY;
+    }
+
+    /**
+     * Runs read-only work on the query pool even when the replica is healthy, for readers that
+     * cannot tolerate replication lag.
+     */
+    public static <T> T readFromPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY_READS.get();
+        PRIMARY_READS.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_READS.remove();
+            } else {
+                PRIMARY_READS.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSourceRoute route = (DataSourceRoute) determineCurrentLookupKey();
+        int shard = ShardContext.current();
+        if (shard != 0) {
+            Connection connection = shards.get(shard, route).getConnection();
+            metrics.recordConnection(route);
+            return connection;
+        }
+        try {
+            Connection connection = target(route).getConnection();
+            metrics.recordConnection(route);
+            return connection;
+        } catch (SQLException e) {
+            if (route != DataSourceRoute.REPLICA) {
+                throw e;
+            }
+            replicaHealth.markDown(e);
+            metrics.recordReplicaFallback();
+            Connection connection = target(DataSourceRoute.QUERY).getConnection();
+            metrics.recordConnection(DataSourceRoute.QUERY);
+            return connection;
+        }
+    }
+
+    private DataSource target(DataSourceRoute route) {
+        return getResolvedDataSources().get(route);
+    }
+}
@@ -0,0 +1,61 @@
+package com.factory.events.config;
+
+import com.factory.events.service.BatchCommittedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how long after JVM start the application was ready and when it first committed an
+ * ingest batch. The second number is what autoscaling waits for.
+ */
+@Component
+public class StartupTimer {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimer.class);
+
+    private final AtomicLong readyMs = new AtomicLong(-1);
+    private final AtomicLong firstAcceptedBatchMs = new AtomicLong(-1);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        readyMs.set(uptimeMs());
+        log.info("Ready {} ms after JVM start (AOT {}, CDS archive {})", readyMs.get(),
+                AotDetector.useGeneratedArtifacts() ? "on" : "off", usesCdsArchive() ? "on" : "off");
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBatchCommitted(BatchCommittedEvent event) {
+        if (firstAcceptedBatchMs.get() < 0 && firstAcceptedBatchMs.compareAndSet(-1, uptimeMs())) {
+            log.info("First batch accepted {} ms after JVM start", firstAcceptedBatchMs.get());
+        }
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        snapshot.put("readyMs", readyMs.get());
+        snapshot.put("firstAcceptedBatchMs", firstAcceptedBatchMs.get());
+        snapshot.put("aot", AotDetector.useGeneratedArtifacts() ? 1L : 0L);
+        snapshot.put("cdsArchive", usesCdsArchive() ? 1L : 0L);
+        return snapshot;
+    }
+
+    private static long uptimeMs() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    private static boolean usesCdsArchive() {
+        return ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .anyMatch(argument -> argument.startsWith("-XX:SharedArchiveFile"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.factory.events.controller;
+
+import com.factory.events.dto.ErrorResponse;
+import com.factory.events.jfr.FlightRecorderService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Only mapped with {@code events.jfr.download-enabled=true}: a recording shows thread stacks, SQL
+ * timing and request data, so expose it only where the port is not reachable by clients.
+ */
+@RestController
+@RequestMapping("/api/diagnostics")
+@ConditionalOnProperty(name = "events.jfr.download-enabled", havingValue = "true")
+public class DiagnosticsController {
+
+    private static final long DUMP_RETRY_AFTER_SECONDS = 5;
+
+    private final FlightRecorderService flightRecorder;
+    // Dumps copy the whole recording to disk; one at a time is plenty
+    private final Semaphore dumpPermit = new Semaphore(1);
+
+    public DiagnosticsController(FlightRecorderService flightRecorder) {
+        this.flightRecorder = flightRecorder;
+    }
+
+    /**
+     * Downloads the continuous flight recording as a .jfr file, for JDK Mission Control or {@code jfr print}.
+     */
+    @GetMapping("/recording")
+    public ResponseEntity<?> downloadRecording() {
+        if (!flightRecorder.isRecording()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse("RECORDING_DISABLED", "Continuous recording is not running"));
+        }
+        if (!dumpPermit.tryAcquire()) {
+            // Not a workload shed: the endpoint itself is busy, so it answers directly
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(DUMP_RETRY_AFTER_SECONDS))
+                    .body(new ErrorResponse("DUMP_IN_PROGRESS", "A recording dump is already in progress"));
+        }
+        Path file;
+        try {
+            file = flightRecorder.dump();
+        } finally {
+            dumpPermit.release();
+        }
+
+        String filename = "factory-events-" + Instant.now().truncatedTo(ChronoUnit.SECONDS).toString()
+                .replace(":", "") + ".jfr";
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
@@ -1,51 +1,134 @@
 package com.factory.events.controller;
 
+import com.factory.events.bulkhead.Bulkhead;
+import com.factory.events.bulkhead.BulkheadFullException;
 import com.factory.events.dto.*;
+import com.factory.events.ratelimit.IngestRateLimiter;
+import com.factory.events.service.BatchIdempotencyStore;
+import com.factory.events.service.ChangeFeedService;
+import com.factory.events.service.DurationStatsService;
 import com.factory.events.service.EventService;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
 public class EventController {
 
     private final EventService eventService;
+    private final Bulkhead ingestBulkhead;
+    private final Bulkhead queryBulkhead;
+    private final BatchIdempotencyStore idempotencyStore;
+    private final ChangeFeedService changeFeedService;
+    private final DurationStatsService durationStatsService;
+    private final IngestRateLimiter rateLimiter;
 
-    public EventController(EventService eventService) {
+    public EventController(EventService eventService,
+                           @Qualifier("ingestBulkhead") Bulkhead ingestBulkhead,
+                           @Qualifier("queryBulkhead") Bulkhead queryBulkhead,
+                           BatchIdempotencyStore idempotencyStore,
+                           ChangeFeedService changeFeedService,
+                           DurationStatsService durationStatsService,
+                           IngestRateLimiter rateLimiter) {
         this.eventService = eventService;
+        this.ingestBulkhead = ingestBulkhead;
+        this.queryBulkhead = queryBulkhead;
+        this.idempotencyStore = idempotencyStore;
+        this.changeFeedService = changeFeedService;
+        this.durationStatsService = durationStatsService;
+        this.rateLimiter = rateLimiter;
     }
 
     
     @PostMapping("/events/batch")
-    public ResponseEntity<BatchIngestResponse> ingestBatch(@RequestBody List<EventDTO> events) {
-        BatchIngestResponse response = eventService.ingestBatch(events);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<BatchIngestResponse>> ingestBatch(
+            @RequestBody List<EventDTO> events,
+            @RequestParam(name = "rejections", defaultValue = "SUMMARY") RejectionMode rejectionMode,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader HttpHeaders headers) {
+        String tenant = rateLimiter.resolveTenant(headers.getFirst(rateLimiter.getTenantHeader()), events);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return submitIngest(tenant, events, rejectionMode).thenApply(ResponseEntity::ok);
+        }
+        // Quota is charged inside the store so replays of a completed key are free
+        return idempotencyStore
+                .execute(tenant, idempotencyKey, BatchIdempotencyStore.fingerprint(events, rejectionMode),
+                        () -> submitIngest(tenant, events, rejectionMode))
+                .thenApply(ResponseEntity::ok);
     }
 
+    private CompletableFuture<BatchIngestResponse> submitIngest(String tenant, List<EventDTO> events,
+                                                                RejectionMode rejectionMode) {
+        rateLimiter.acquire(tenant, events.size());
+        CompletableFuture<BatchIngestResponse> result;
+        try {
+            result = ingestBulkhead.submit(tenant, rateLimiter.weightOf(tenant), Math.max(1, events.size()),
+                    () -> eventService.ingestBatch(events, rejectionMode));
+        } catch (BulkheadFullException e) {
+            rateLimiter.release(tenant, events.size());
+            throw e;
+        }
+        // A batch shed after waiting in the queue never ran either, so it gives its tokens back too
+        result.whenComplete((response, error) -> {
+            if (error instanceof BulkheadFullException) {
+                rateLimiter.release(tenant, events.size());
+            }
+        });
+        return result;
+    }
 
     @GetMapping("/stats")
-    public ResponseEntity<StatsResponse> getStats(
+    public CompletableFuture<ResponseEntity<StatsResponse>> getStats(
             @RequestParam String machineId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant start,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end,
+            @RequestParam(required = false) String factoryId) {
 
-        StatsResponse response = eventService.getStats(machineId, start, end);
-        return ResponseEntity.ok(response);
+        return queryBulkhead.submit(() -> ResponseEntity.ok(eventService.getStats(machineId, factoryId, start, end)));
     }
 
  
     @GetMapping("/stats/top-defect-lines")
-    public ResponseEntity<List<TopDefectLineResponse>> getTopDefectLines(
+    public CompletableFuture<ResponseEntity<List<TopDefectLineResponse>>> getTopDefectLines(
             @RequestParam String factoryId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
             @RequestParam(defaultValue = "10") int limit) {
 
-        List<TopDefectLineResponse> response = eventService.getTopDefectLines(factoryId, from, to, limit);
-        return ResponseEntity.ok(response);
+        return queryBulkhead.submit(() ->
+                ResponseEntity.ok(eventService.getTopDefectLines(factoryId, from, to, limit)));
+    }
+
+
+    @GetMapping("/stats/durations")
+    public CompletableFuture<ResponseEntity<DurationStatsResponse>> getDurationStats(
+            @RequestParam(required = false) String machineId,
+            @RequestParam(required = false) String lineId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end,
+            @RequestParam(defaultValue = "0.5,0.95,0.99") String percentiles,
+            @RequestParam(defaultValue = "20") int bins) {
+
+        return queryBulkhead.submit(() -> ResponseEntity.ok(
+                durationStatsService.getDurationStats(machineId, lineId, start, end, percentiles, bins)));
+    }
+
+
+    @GetMapping("/events/changes")
+    public CompletableFuture<ResponseEntity<ChangeFeedResponse>> getChanges(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(required = false) String machineId,
+            @RequestParam(required = false) String factoryId) {
+
+        return queryBulkhead.submit(() ->
+                ResponseEntity.ok(changeFeedService.readChanges(after, limit, machineId, factoryId)));
     }
-}
\ No newline at end of file
+}
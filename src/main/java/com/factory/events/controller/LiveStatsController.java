@@ -0,0 +1,47 @@
+package com.factory.events.controller;
+
+import com.factory.events.health.HealthEvaluationEngine;
+import com.factory.events.health.HealthPolicy;
+import com.factory.events.live.LiveStatsService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/stats")
+public class LiveStatsController {
+
+    private final LiveStatsService liveStatsService;
+    private final HealthEvaluationEngine healthEngine;
+
+    public LiveStatsController(LiveStatsService liveStatsService, HealthEvaluationEngine healthEngine) {
+        this.liveStatsService = liveStatsService;
+        this.healthEngine = healthEngine;
+    }
+
+
+    @GetMapping(path = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(
+            @RequestParam(name = "machineId", required = false) List<String> machineIds,
+            @RequestParam(name = "factoryId", required = false) List<String> factoryIds) {
+
+        return liveStatsService.subscribe(toSet(machineIds), toSet(factoryIds));
+    }
+
+    @GetMapping("/warnings")
+    public ResponseEntity<List<String>> getWarningMachines() {
+        return ResponseEntity.ok(healthEngine.machinesWithStatus(HealthPolicy.WARNING));
+    }
+
+    private static Set<String> toSet(List<String> values) {
+        return values == null ? Set.of() : new LinkedHashSet<>(values);
+    }
+}
@@ -0,0 +1,131 @@
+package com.factory.events.controller;
+
+import com.factory.events.bulkhead.Bulkhead;
+import com.factory.events.config.DataSourceRouteMetrics;
+import com.factory.events.config.ReplicaHealthMonitor;
+import com.factory.events.config.StartupTimer;
+import com.factory.events.health.HealthEvaluationEngine;
+import com.factory.events.jfr.FlightRecorderService;
+import com.factory.events.live.LiveStatsService;
+import com.factory.events.ratelimit.IngestRateLimiter;
+import com.factory.events.schema.SchemaMigrator;
+import com.factory.events.service.BatchIdempotencyStore;
+import com.factory.events.shard.ShardRouter;
+import com.factory.events.sketch.DurationSketchStore;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    private final DataSourceRouteMetrics routeMetrics;
+    private final ReplicaHealthMonitor replicaHealthMonitor;
+    private final List<Bulkhead> bulkheads;
+    private final BatchIdempotencyStore idempotencyStore;
+    private final LiveStatsService liveStatsService;
+    private final HealthEvaluationEngine healthEngine;
+    private final DurationSketchStore durationSketchStore;
+    private final ShardRouter shardRouter;
+    private final IngestRateLimiter rateLimiter;
+    private final FlightRecorderService flightRecorder;
+    private final StartupTimer startupTimer;
+    private final SchemaMigrator schemaMigrator;
+
+    public MetricsController(DataSourceRouteMetrics routeMetrics, ReplicaHealthMonitor replicaHealthMonitor,
+                             List<Bulkhead> bulkheads, BatchIdempotencyStore idempotencyStore,
+                             LiveStatsService liveStatsService, HealthEvaluationEngine healthEngine,
+                             DurationSketchStore durationSketchStore, ShardRouter shardRouter,
+                             IngestRateLimiter rateLimiter, FlightRecorderService flightRecorder,
+                             StartupTimer startupTimer, SchemaMigrator schemaMigrator) {
+        this.routeMetrics = routeMetrics;
+        this.replicaHealthMonitor = replicaHealthMonitor;
+        this.bulkheads = bulkheads;
+        this.idempotencyStore = idempotencyStore;
+        this.liveStatsService = liveStatsService;
+        this.healthEngine = healthEngine;
+        this.durationSketchStore = durationSketchStore;
+        this.shardRouter = shardRouter;
+        this.rateLimiter = rateLimiter;
+        this.flightRecorder = flightRecorder;
+        this.startupTimer = startupTimer;
+        this.schemaMigrator = schemaMigrator;
+    }
+
+
+    @GetMapping("/datasource")
+    public ResponseEntity<Map<String, Object>> getDataSourceMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(routeMetrics.snapshot());
+        metrics.put("replica.configured", replicaHealthMonitor.isConfigured());
+        metrics.put("replica.usable", replicaHealthMonitor.isReplicaUsable());
+        metrics.put("replica.lagMs", replicaHealthMonitor.getLagMs());
+        return ResponseEntity.ok(metrics);
+    }
+
+    @GetMapping("/bulkheads")
+    public ResponseEntity<Map<String, Map<String, Long>>> getBulkheadMetrics() {
+        Map<String, Map<String, Long>> metrics = new LinkedHashMap<>();
+        for (Bulkhead bulkhead : bulkheads) {
+            metrics.put(bulkhead.getName(), bulkhead.snapshot());
+        }
+        return ResponseEntity.ok(metrics);
+    }
+
+    @GetMapping("/idempotency")
+    public ResponseEntity<Map<String, Long>> getIdempotencyMetrics() {
+        return ResponseEntity.ok(idempotencyStore.snapshot());
+    }
+
+    @GetMapping("/live")
+    public ResponseEntity<Map<String, Long>> getLiveStatsMetrics() {
+        return ResponseEntity.ok(liveStatsService.snapshot());
+    }
+
+    @GetMapping("/health")
+    public ResponseEntity<Map<String, Long>> getHealthEngineMetrics() {
+        return ResponseEntity.ok(healthEngine.snapshot());
+    }
+
+    @GetMapping("/durations")
+    public ResponseEntity<Map<String, Long>> getDurationSketchMetrics() {
+        return ResponseEntity.ok(durationSketchStore.snapshot());
+    }
+
+    @GetMapping("/shards")
+    public ResponseEntity<Map<String, Long>> getShardMetrics() {
+        return ResponseEntity.ok(shardRouter.snapshot());
+    }
+
+    /**
+     * Per-tenant ingest admission counters, plus how many batches each tenant has waiting for an ingest worker.
+     */
+    @GetMapping("/tenants")
+    public ResponseEntity<Map<String, Map<String, Long>>> getTenantMetrics() {
+        Map<String, Map<String, Long>> metrics = new TreeMap<>(rateLimiter.snapshot());
+        for (Bulkhead bulkhead : bulkheads) {
+            bulkhead.queuedByTenant().forEach((tenant, queued) -> metrics
+                    .computeIfAbsent(tenant, key -> new LinkedHashMap<>())
+                    .put(bulkhead.getName() + "Queued", (long) queued));
+        }
+        return ResponseEntity.ok(metrics);
+    }
+
+    @GetMapping("/recording")
+    public ResponseEntity<Map<String, Long>> getRecordingMetrics() {
+        return ResponseEntity.ok(flightRecorder.snapshot());
+    }
+
+    @GetMapping("/startup")
+    public ResponseEntity<Map<String, Long>> getStartupMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>(startupTimer.snapshot());
+        schemaMigrator.snapshot().forEach((key, value) -> metrics.put("schema." + key, value));
+        return ResponseEntity.ok(metrics);
+    }
+}
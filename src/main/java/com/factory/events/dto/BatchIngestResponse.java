@@ -1,18 +1,38 @@
 package com.factory.events.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 public class BatchIngestResponse {
 
+    public static final int DEFAULT_SAMPLE_SIZE = 10;
+
     private int accepted;
     private int deduped;
     private int updated;
     private int rejected;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<Rejection> rejections;
 
+    private List<RejectionSummary> rejectionSummary;
+
+    private final Map<RejectionReason, RejectionSummary> summaryByReason =
+            new EnumMap<>(RejectionReason.class);
+    private final int sampleSize;
+
     public BatchIngestResponse() {
-        this.rejections = new ArrayList<>();
+        this(RejectionMode.FULL, DEFAULT_SAMPLE_SIZE);
+    }
+
+    public BatchIngestResponse(RejectionMode mode, int sampleSize) {
+        this.rejections = mode == RejectionMode.FULL ? new ArrayList<>() : null;
+        this.rejectionSummary = new ArrayList<>();
+        this.sampleSize = sampleSize;
     }
 
     public static class Rejection {
@@ -31,7 +51,31 @@ public class BatchIngestResponse {
         public void setReason(String reason) { this.reason = reason; }
     }
 
-    
+    public static class RejectionSummary {
+        private String reason;
+        private int count;
+        private List<String> sampleEventIds;
+
+        public RejectionSummary() {
+            this.sampleEventIds = new ArrayList<>();
+        }
+
+        public RejectionSummary(String reason) {
+            this();
+            this.reason = reason;
+        }
+
+        public String getReason() { return reason; }
+        public void setReason(String reason) { this.reason = reason; }
+
+        public int getCount() { return count; }
+        public void setCount(int count) { this.count = count; }
+
+        public List<String> getSampleEventIds() { return sampleEventIds; }
+        public void setSampleEventIds(List<String> sampleEventIds) { this.sampleEventIds = sampleEventIds; }
+    }
+
+
     public int getAccepted() { return accepted; }
     public void setAccepted(int accepted) { this.accepted = accepted; }
 
@@ -47,7 +91,23 @@ public class BatchIngestResponse {
     public List<Rejection> getRejections() { return rejections; }
     public void setRejections(List<Rejection> rejections) { this.rejections = rejections; }
 
-    public void addRejection(String eventId, String reason) {
-        this.rejections.add(new Rejection(eventId, reason));
+    public List<RejectionSummary> getRejectionSummary() { return rejectionSummary; }
+    public void setRejectionSummary(List<RejectionSummary> rejectionSummary) { this.rejectionSummary = rejectionSummary; }
+
+    public void addRejection(String eventId, RejectionReason reason) {
+        RejectionSummary summary = summaryByReason.get(reason);
+        if (summary == null) {
+            summary = new RejectionSummary(reason.name());
+            summaryByReason.put(reason, summary);
+            rejectionSummary.add(summary);
+        }
+        summary.count++;
+        if (summary.sampleEventIds.size() < sampleSize) {
+            summary.sampleEventIds.add(eventId);
+        }
+
+        if (this.rejections != null) {
+            this.rejections.add(new Rejection(eventId, reason.name()));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package com.factory.events.dto;
+
+import java.time.Instant;
+
+public class ChangeFeedEvent {
+
+    private long changeSeq;
+    private String eventId;
+    private Instant eventTime;
+    private Instant receivedTime;
+    private String machineId;
+    private long durationMs;
+    private int defectCount;
+    private String lineId;
+    private String factoryId;
+
+    public ChangeFeedEvent() {}
+
+    public ChangeFeedEvent(Long changeSeq, String eventId, Instant eventTime, Instant receivedTime,
+                           String machineId, Long durationMs, Integer defectCount,
+                           String lineId, String factoryId) {
+        this.changeSeq = changeSeq;
+        this.eventId = eventId;
+        this.eventTime = eventTime;
+        this.receivedTime = receivedTime;
+        this.machineId = machineId;
+        this.durationMs = durationMs;
+        this.defectCount = defectCount;
+        this.lineId = lineId;
+        this.factoryId = factoryId;
+    }
+
+    public long getChangeSeq() { return changeSeq; }
+    public void setChangeSeq(long changeSeq) { this.changeSeq = changeSeq; }
+
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+
+    public Instant getEventTime() { return eventTime; }
+    public void setEventTime(Instant eventTime) { this.eventTime = eventTime; }
+
+    public Instant getReceivedTime() { return receivedTime; }
+    public void setReceivedTime(Instant receivedTime) { this.receivedTime = receivedTime; }
+
+    public String getMachineId() { return machineId; }
+    public void setMachineId(String machineId) { this.machineId = machineId; }
+
+    public long getDurationMs() { return durationMs; }
+    public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+
+    public int getDefectCount() { return defectCount; }
+    public void setDefectCount(int defectCount) { this.defectCount = defectCount; }
+
+    public String getLineId() { return lineId; }
+    public void setLineId(String lineId) { this.lineId = lineId; }
+
+    public String getFactoryId() { return factoryId; }
+    public void setFactoryId(String factoryId) { this.factoryId = factoryId; }
+}
@@ -0,0 +1,27 @@
+package com.factory.events.dto;
+
+import java.util.List;
+
+public class ChangeFeedResponse {
+
+    private List<ChangeFeedEvent> events;
+    private long nextCursor;
+    private boolean hasMore;
+
+    public ChangeFeedResponse() {}
+
+    public ChangeFeedResponse(List<ChangeFeedEvent> events, long nextCursor, boolean hasMore) {
+        this.events = events;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<ChangeFeedEvent> getEvents() { return events; }
+    public void setEvents(List<ChangeFeedEvent> events) { this.events = events; }
+
+    public long getNextCursor() { return nextCursor; }
+    public void setNextCursor(long nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
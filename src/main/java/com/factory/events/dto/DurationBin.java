@@ -0,0 +1,25 @@
+package com.factory.events.dto;
+
+public class DurationBin {
+
+    private double lowerMs;
+    private double upperMs;
+    private long count;
+
+    public DurationBin() {}
+
+    public DurationBin(double lowerMs, double upperMs, long count) {
+        this.lowerMs = lowerMs;
+        this.upperMs = upperMs;
+        this.count = count;
+    }
+
+    public double getLowerMs() { return lowerMs; }
+    public void setLowerMs(double lowerMs) { this.lowerMs = lowerMs; }
+
+    public double getUpperMs() { return upperMs; }
+    public void setUpperMs(double upperMs) { this.upperMs = upperMs; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+}
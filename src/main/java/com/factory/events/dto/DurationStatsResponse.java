@@ -0,0 +1,62 @@
+package com.factory.events.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+public class DurationStatsResponse {
+
+    private String machineId;
+    private String lineId;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'", timezone = "UTC")
+    private Instant start;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'", timezone = "UTC")
+    private Instant end;
+
+    private long count;
+    private double relativeAccuracy;
+    private Map<String, Double> percentiles;
+    private List<DurationBin> histogram;
+
+    public DurationStatsResponse() {}
+
+    public DurationStatsResponse(String machineId, String lineId, Instant start, Instant end, long count,
+                                 double relativeAccuracy, Map<String, Double> percentiles,
+                                 List<DurationBin> histogram) {
+        this.machineId = machineId;
+        this.lineId = lineId;
+        this.start = start;
+        this.end = end;
+        this.count = count;
+        this.relativeAccuracy = relativeAccuracy;
+        this.percentiles = percentiles;
+        this.histogram = histogram;
+    }
+
+    public String getMachineId() { return machineId; }
+    public void setMachineId(String machineId) { this.machineId = machineId; }
+
+    public String getLineId() { return lineId; }
+    public void setLineId(String lineId) { this.lineId = lineId; }
+
+    public Instant getStart() { return start; }
+    public void setStart(Instant start) { this.start = start; }
+
+    public Instant getEnd() { return end; }
+    public void setEnd(Instant end) { this.end = end; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public double getRelativeAccuracy() { return relativeAccuracy; }
+    public void setRelativeAccuracy(double relativeAccuracy) { this.relativeAccuracy = relativeAccuracy; }
+
+    public Map<String, Double> getPercentiles() { return percentiles; }
+    public void setPercentiles(Map<String, Double> percentiles) { this.percentiles = percentiles; }
+
+    public List<DurationBin> getHistogram() { return histogram; }
+    public void setHistogram(List<DurationBin> histogram) { this.histogram = histogram; }
+}
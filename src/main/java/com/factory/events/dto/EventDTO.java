@@ -4,10 +4,22 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.Instant;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
 
 public class EventDTO {
-    
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private static final HexFormat HEX = HexFormat.of();
+
     @JsonProperty("eventId")
     private String eventId;
     
@@ -63,23 +75,18 @@ public class EventDTO {
     
  
     public String generatePayloadHash() {
-        try {
-            String payload = String.format("%s|%s|%s|%d|%d|%s|%s",
-                eventId, eventTime, machineId, durationMs, defectCount,
-                lineId != null ? lineId : "", factoryId != null ? factoryId : "");
-            
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(payload.getBytes(StandardCharsets.UTF_8));
-            
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to generate payload hash", e);
-        }
+        // Same text as the former String.format("%s|%s|%s|%d|%d|%s|%s", ...) so stored hashes stay comparable
+        String payload = new StringBuilder(128)
+                .append(eventId).append('|')
+                .append(eventTime).append('|')
+                .append(machineId).append('|')
+                .append(durationMs).append('|')
+                .append(defectCount).append('|')
+                .append(lineId != null ? lineId : "").append('|')
+                .append(factoryId != null ? factoryId : "")
+                .toString();
+
+        MessageDigest digest = SHA_256.get();
+        return HEX.formatHex(digest.digest(payload.getBytes(StandardCharsets.UTF_8)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.factory.events.dto;
+
+/**
+ * How rejected events are reported in a {@link BatchIngestResponse}.
+ * SUMMARY only aggregates by reason; FULL additionally lists every rejected event.
+ */
+public enum RejectionMode {
+    SUMMARY,
+    FULL
+}
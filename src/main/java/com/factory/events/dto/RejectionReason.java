@@ -0,0 +1,13 @@
+package com.factory.events.dto;
+
+public enum RejectionReason {
+    MISSING_EVENT_ID,
+    MISSING_MACHINE_ID,
+    MISSING_EVENT_TIME,
+    MISSING_DURATION,
+    MISSING_DEFECT_COUNT,
+    INVALID_DURATION,
+    FUTURE_EVENT_TIME,
+    /** Bulk import only: the record could not be parsed into an event. */
+    MALFORMED_RECORD
+}
@@ -0,0 +1,41 @@
+package com.factory.events.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.Instant;
+
+public class StatusChangeEvent {
+
+    private String machineId;
+    private String previousStatus;
+    private String status;
+    private double avgDefectRate;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'", timezone = "UTC")
+    private Instant at;
+
+    public StatusChangeEvent() {}
+
+    public StatusChangeEvent(String machineId, String previousStatus, String status,
+                             double avgDefectRate, Instant at) {
+        this.machineId = machineId;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.avgDefectRate = avgDefectRate;
+        this.at = at;
+    }
+
+    public String getMachineId() { return machineId; }
+    public void setMachineId(String machineId) { this.machineId = machineId; }
+
+    public String getPreviousStatus() { return previousStatus; }
+    public void setPreviousStatus(String previousStatus) { this.previousStatus = previousStatus; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public double getAvgDefectRate() { return avgDefectRate; }
+    public void setAvgDefectRate(double avgDefectRate) { this.avgDefectRate = avgDefectRate; }
+
+    public Instant getAt() { return at; }
+    public void setAt(Instant at) { this.at = at; }
+}
@@ -0,0 +1,345 @@
+package com.factory.events.generator;
+
+import com.factory.events.dto.EventDTO;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible stream of ingest batches that looks like production traffic: thousands of machines
+ * grouped into lines and factories, per-line defect rates that follow a power law, log-normal cycle
+ * times per machine, events arriving late or out of order, and a chosen share of duplicates, updates
+ * and invalid records.
+ *
+ * The stream is split into chunks of {@code chunkSize} records, one ingest batch each. Every chunk and
+ * every record is a pure function of the seed and its position, so chunks can be produced in any order
+ * and on any number of threads with identical results. Duplicates repeat an event of the same chunk.
+ * Updates correct an event of the previous chunk, so that replayed batch by batch they arrive later
+ * and win. {@link #finalRows(long)} returns what machine_events holds for a chunk's event ids once the
+ * whole stream has been ingested, which is what the JDBC seeder writes.
+ */
+public class DatasetGenerator {
+
+    static final byte FRESH = 0;
+    static final byte DUPLICATE = 1;
+    static final byte UPDATE = 2;
+    static final byte INVALID = 3;
+
+    private static final long ROLLS = 1;
+    private static final long PICKS = 2;
+    private static final long CONTENT = 3;
+    private static final long MACHINE = 4;
+    private static final long MAX_DURATION_MS = Duration.ofHours(6).toMillis() - 1;
+
+    private final long seed;
+    private final long events;
+    private final int chunkSize;
+    private final int machines;
+    private final int lines;
+    private final int factories;
+    private final long startMillis;
+    private final long spanMillis;
+    private final Instant end;
+    private final double duplicateRatio;
+    private final double updateRatio;
+    private final double invalidRatio;
+    private final double lateRatio;
+    private final long maxLateMillis;
+    private final long outOfOrderMillis;
+    private final double unknownDefectRatio;
+    private final String idPrefix;
+
+    private final double[] lineDefectMean;
+    private final double[] machineDurationMu;
+
+    public DatasetGenerator(GeneratorProperties properties) {
+        if (properties.getEvents() < 0 || properties.getChunkSize() < 1 || properties.getMachines() < 1
+                || properties.getLines() < 1 || properties.getFactories() < 1 || properties.getDays() < 1) {
+            throw new IllegalArgumentException("events must be >= 0; chunk size, machines, lines, factories and days >= 1");
+        }
+        if (properties.getDuplicateRatio() < 0 || properties.getUpdateRatio() < 0 || properties.getInvalidRatio() < 0
+                || properties.getDuplicateRatio() + properties.getUpdateRatio() + properties.getInvalidRatio() > 1) {
+            throw new IllegalArgumentException("Duplicate, update and invalid ratios must be >= 0 and add up to at most 1");
+        }
+        this.seed = properties.getSeed();
+        this.events = properties.getEvents();
+        this.chunkSize = properties.getChunkSize();
+        this.machines = properties.getMachines();
+        this.lines = Math.min(properties.getLines(), properties.getMachines());
+        this.factories = Math.min(properties.getFactories(), this.lines);
+        this.end = properties.getEnd() != null ? properties.getEnd() : Instant.now().truncatedTo(ChronoUnit.HOURS);
+        this.spanMillis = Duration.ofDays(properties.getDays()).toMillis();
+        this.startMillis = end.toEpochMilli() - spanMillis;
+        this.duplicateRatio = properties.getDuplicateRatio();
+        this.updateRatio = properties.getUpdateRatio();
+        this.invalidRatio = properties.getInvalidRatio();
+        this.lateRatio = properties.getLateRatio();
+        this.maxLateMillis = Math.max(1, Duration.ofMinutes(properties.getMaxLateMinutes()).toMillis());
+        this.outOfOrderMillis = Duration.ofSeconds(properties.getOutOfOrderSeconds()).toMillis();
+        this.unknownDefectRatio = properties.getUnknownDefectRatio();
+        this.idPrefix = properties.getIdPrefix();
+
+        // A few lines account for most defects: line of rank r averages maxDefectMean / (r + 1)^skew
+        int[] rank = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            rank[i] = i;
+        }
+        SplittableRandom shuffle = new SplittableRandom(seed);
+        for (int i = lines - 1; i > 0; i--) {
+            int j = shuffle.nextInt(i + 1);
+            int swap = rank[i];
+            rank[i] = rank[j];
+            rank[j] = swap;
+        }
+        this.lineDefectMean = new double[lines];
+        for (int line = 0; line < lines; line++) {
+            lineDefectMean[line] = properties.getMaxDefectMean() / Math.pow(rank[line] + 1, properties.getDefectSkew());
+        }
+        // Median cycle time per machine between about 1.1 s and 3.6 s
+        this.machineDurationMu = new double[machines];
+        for (int machine = 0; machine < machines; machine++) {
+            machineDurationMu[machine] = 7.0 + 1.2 * new SplittableRandom(mix(seed, MACHINE, machine, 0)).nextDouble();
+        }
+    }
+
+    public long getChunkCount() {
+        return (events + chunkSize - 1) / chunkSize;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    public Instant getStart() {
+        return Instant.ofEpochMilli(startMillis);
+    }
+
+    public Instant getEnd() {
+        return end;
+    }
+
+    public String lineId(int line) {
+        return "L-" + line;
+    }
+
+    public String factoryId(int factory) {
+        return "F-" + factory;
+    }
+
+    /**
+     * @return the records of one ingest batch, in the order they would be sent
+     */
+    public List<EventDTO> chunk(long chunk) {
+        byte[] kinds = new byte[chunkSize(chunk)];
+        int[] refs = new int[kinds.length];
+        plan(chunk, kinds, refs);
+
+        List<EventDTO> batch = new ArrayList<>(kinds.length);
+        for (int slot = 0; slot < kinds.length; slot++) {
+            switch (kinds[slot]) {
+                case DUPLICATE:
+                    batch.add(copy(batch.get(refs[slot])));
+                    break;
+                case UPDATE:
+                    batch.add(update(fresh(chunk - 1, refs[slot]), chunk, slot));
+                    break;
+                case INVALID:
+                    batch.add(corrupt(fresh(chunk, slot), chunk, slot));
+                    break;
+                default:
+                    batch.add(fresh(chunk, slot));
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * @return the rows machine_events ends up with for the events first sent in this chunk, after the
+     *         whole stream has been ingested batch by batch; receivedTime is the arrival time of the winning record
+     */
+    public List<EventDTO> finalRows(long chunk) {
+        byte[] kinds = new byte[chunkSize(chunk)];
+        plan(chunk, kinds, new int[kinds.length]);
+
+        // The first update of an event in the next batch wins; later ones in that batch are not newer
+        int[] updatedBy = new int[kinds.length];
+        Arrays.fill(updatedBy, -1);
+        if (chunk + 1 < getChunkCount()) {
+            byte[] nextKinds = new byte[chunkSize(chunk + 1)];
+            int[] nextRefs = new int[nextKinds.length];
+            plan(chunk + 1, nextKinds, nextRefs);
+            for (int slot = 0; slot < nextKinds.length; slot++) {
+                if (nextKinds[slot] == UPDATE && updatedBy[nextRefs[slot]] < 0) {
+                    updatedBy[nextRefs[slot]] = slot;
+                }
+            }
+        }
+
+        List<EventDTO> rows = new ArrayList<>(kinds.length);
+        for (int slot = 0; slot < kinds.length; slot++) {
+            if (kinds[slot] != FRESH) {
+                continue;
+            }
+            EventDTO event = fresh(chunk, slot);
+            rows.add(updatedBy[slot] < 0 ? event : update(event, chunk + 1, updatedBy[slot]));
+        }
+        return rows;
+    }
+
+    int chunkSize(long chunk) {
+        return (int) Math.min(chunkSize, events - chunk * chunkSize);
+    }
+
+    /**
+     * Decides what each slot of a chunk holds. Kinds are rolled independently per chunk; a duplicate
+     * or update whose target is not a fresh event falls back to a fresh event, so the realized ratios
+     * are slightly below the configured ones.
+     */
+    void plan(long chunk, byte[] kinds, int[] refs) {
+        rollKinds(chunk, kinds);
+        byte[] previous = null;
+        if (chunk > 0) {
+            previous = new byte[chunkSize(chunk - 1)];
+            rollKinds(chunk - 1, previous);
+        }
+        SplittableRandom picks = new SplittableRandom(mix(seed, PICKS, chunk, 0));
+        for (int slot = 0; slot < kinds.length; slot++) {
+            if (kinds[slot] == DUPLICATE) {
+                int target = picks.nextInt(Math.max(1, slot));
+                if (slot > 0 && kinds[target] == FRESH) {
+                    refs[slot] = target;
+                } else {
+                    kinds[slot] = FRESH;
+                }
+            } else if (kinds[slot] == UPDATE) {
+                // Rolled kinds of the previous chunk: a rolled FRESH is always fresh in its final plan too
+                int target = previous != null ? picks.nextInt(previous.length) : 0;
+                if (previous != null && previous[target] == FRESH) {
+                    refs[slot] = target;
+                } else {
+                    kinds[slot] = FRESH;
+                }
+            }
+        }
+    }
+
+    private void rollKinds(long chunk, byte[] kinds) {
+        SplittableRandom rolls = new SplittableRandom(mix(seed, ROLLS, chunk, 0));
+        for (int slot = 0; slot < kinds.length; slot++) {
+            double roll = rolls.nextDouble();
+            if (roll < duplicateRatio) {
+                kinds[slot] = DUPLICATE;
+            } else if (roll < duplicateRatio + updateRatio) {
+                kinds[slot] = UPDATE;
+            } else if (roll < duplicateRatio + updateRatio + invalidRatio) {
+                kinds[slot] = INVALID;
+            } else {
+                kinds[slot] = FRESH;
+            }
+        }
+    }
+
+    private EventDTO fresh(long chunk, int slot) {
+        SplittableRandom random = new SplittableRandom(mix(seed, CONTENT, chunk, slot));
+        long arrival = arrivalMillis(chunk, slot);
+        // Most events arrive within seconds, so they are already out of order; some arrive hours late
+        long lag = random.nextDouble() < lateRatio
+                ? 60_000 + random.nextLong(maxLateMillis)
+                : random.nextLong(outOfOrderMillis + 1);
+
+        int machine = random.nextInt(machines);
+        int line = (int) ((long) machine * lines / machines);
+        double defectMean = lineDefectMean[line];
+
+        EventDTO event = new EventDTO();
+        event.setEventId(idPrefix + (chunk * chunkSize + slot));
+        event.setEventTime(Instant.ofEpochMilli(arrival - lag));
+        event.setReceivedTime(Instant.ofEpochMilli(arrival));
+        event.setMachineId("M-" + machine);
+        event.setDurationMs(Math.min(MAX_DURATION_MS,
+                Math.round(Math.exp(machineDurationMu[machine] + 0.6 * random.nextGaussian()))));
+        event.setDefectCount(random.nextDouble() < unknownDefectRatio ? -1 : poisson(random, defectMean));
+        event.setLineId(lineId(line));
+        event.setFactoryId(factoryId(line % factories));
+        return event;
+    }
+
+    private EventDTO update(EventDTO original, long chunk, int slot) {
+        SplittableRandom random = new SplittableRandom(mix(seed, CONTENT, chunk, slot));
+        EventDTO event = copy(original);
+        // Always a different payload, e.g. a recount of defects after inspection
+        int defects = original.getDefectCount() < 0 ? 0 : original.getDefectCount();
+        event.setDefectCount(defects + 1 + random.nextInt(3));
+        if (random.nextBoolean()) {
+            event.setDurationMs(Math.max(0, original.getDurationMs() + random.nextLong(-500, 501)));
+        }
+        event.setReceivedTime(Instant.ofEpochMilli(arrivalMillis(chunk, slot)));
+        return event;
+    }
+
+    private EventDTO corrupt(EventDTO event, long chunk, int slot) {
+        SplittableRandom random = new SplittableRandom(mix(seed, CONTENT, chunk, slot) ^ INVALID);
+        switch (random.nextInt(5)) {
+            case 0:
+                event.setDurationMs(-1L - random.nextInt(1000));
+                break;
+            case 1:
+                event.setDurationMs(MAX_DURATION_MS + 1 + random.nextInt(1_000_000));
+                break;
+            case 2:
+                event.setEventTime(end.plus(365, ChronoUnit.DAYS));
+                break;
+            case 3:
+                event.setMachineId(null);
+                break;
+            default:
+                event.setEventTime(null);
+        }
+        return event;
+    }
+
+    private static EventDTO copy(EventDTO source) {
+        EventDTO event = new EventDTO();
+        event.setEventId(source.getEventId());
+        event.setEventTime(source.getEventTime());
+        event.setReceivedTime(source.getReceivedTime());
+        event.setMachineId(source.getMachineId());
+        event.setDurationMs(source.getDurationMs());
+        event.setDefectCount(source.getDefectCount());
+        event.setLineId(source.getLineId());
+        event.setFactoryId(source.getFactoryId());
+        return event;
+    }
+
+    private long arrivalMillis(long chunk, int slot) {
+        return startMillis + (long) (spanMillis * ((double) (chunk * chunkSize + slot) / Math.max(1, events)));
+    }
+
+    private static int poisson(SplittableRandom random, double mean) {
+        double limit = Math.exp(-mean);
+        int count = 0;
+        double product = random.nextDouble();
+        while (product > limit) {
+            count++;
+            product *= random.nextDouble();
+        }
+        return count;
+    }
+
+    // SplitMix64 finalizer over the inputs, so neighbouring positions get unrelated streams
+    private static long mix(long seed, long stream, long a, long b) {
+        long z = seed;
+        for (long value : new long[]{stream, a, b}) {
+            z += 0x9E3779B97F4A7C15L + value;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            z = z ^ (z >>> 31);
+        }
+        return z;
+    }
+}
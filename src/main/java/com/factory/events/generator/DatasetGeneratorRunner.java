@@ -0,0 +1,47 @@
+package com.factory.events.generator;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Seeds machine_events with a generated dataset and prints a throughput report, e.g.
+ * mvn spring-boot:run -Dspring-boot.run.arguments="--spring.profiles.active=generate --events.generator.events=10000000 --events.generator.seed=7"
+ */
+@Component
+@Profile("generate")
+public class DatasetGeneratorRunner implements CommandLineRunner {
+
+    private final GeneratorProperties properties;
+    private final DatasetSeeder seeder;
+
+    public DatasetGeneratorRunner(GeneratorProperties properties, DatasetSeeder seeder) {
+        this.properties = properties;
+        this.seeder = seeder;
+    }
+
+    @Override
+    public void run(String... args) {
+        DatasetGenerator generator = new DatasetGenerator(properties);
+        System.out.println("=== Dataset Generation: " + generator.getEvents() + " records, seed "
+                + properties.getSeed() + " ===");
+        System.out.println("  Window: " + generator.getStart() + " .. " + generator.getEnd());
+        System.out.println("  Machines: " + properties.getMachines() + ", lines: " + properties.getLines()
+                + ", factories: " + properties.getFactories());
+        System.out.println("  Duplicates: " + properties.getDuplicateRatio() + ", updates: "
+                + properties.getUpdateRatio() + ", invalid: " + properties.getInvalidRatio()
+                + ", late: " + properties.getLateRatio());
+
+        SeedReport report = seeder.seed(generator, properties.getThreads());
+
+        System.out.println("\n=== Generation Complete ===");
+        System.out.println("  Chunks: " + report.getChunks() + "/" + generator.getChunkCount());
+        System.out.println("  Rows: " + report.getRows());
+        System.out.println("  Duration: " + report.getElapsedMs() + " ms");
+        System.out.println("  Throughput: " + report.getRowsPerSecond() + " rows/sec");
+        if (report.getError() != null) {
+            System.out.println("  Stopped: " + report.getError());
+        }
+        System.exit(report.getError() != null ? 1 : 0);
+    }
+}
@@ -0,0 +1,163 @@
+package com.factory.events.generator;
+
+import com.factory.events.dto.EventDTO;
+import com.factory.events.service.ChangeSequenceAllocator;
+import com.factory.events.shard.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes the end state of a generated dataset straight into machine_events with batched JDBC inserts,
+ * several chunks at a time, instead of replaying it through the ingest API. Each chunk is split by
+ * shard and inserted in one transaction per shard, with change sequences allocated like ingest does.
+ *
+ * Rows are plain inserts: the generator's event ids must not exist yet, so use a fresh idPrefix per run.
+ * On PostgreSQL add reWriteBatchedInserts=true to the JDBC url for multi-row inserts.
+ */
+@Component
+public class DatasetSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(DatasetSeeder.class);
+
+    private static final String INSERT_SQL = "INSERT INTO machine_events (event_id, event_time, received_time, "
+            + "machine_id, duration_ms, defect_count, line_id, factory_id, payload_hash, change_seq, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeSequenceAllocator changeSequence;
+    private final ShardRouter shardRouter;
+
+    public DatasetSeeder(DataSource dataSource, PlatformTransactionManager transactionManager,
+                         ChangeSequenceAllocator changeSequence, ShardRouter shardRouter) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.changeSequence = changeSequence;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Seeds every chunk of {@code generator} on {@code threads} workers (0 = one per processor) and
+     * stops at the first failure; chunks already written stay committed.
+     */
+    public SeedReport seed(DatasetGenerator generator, int threads) {
+        int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        long chunkCount = generator.getChunkCount();
+        AtomicLong nextChunk = new AtomicLong();
+        AtomicLong chunksDone = new AtomicLong();
+        AtomicLong rows = new AtomicLong();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        long logEvery = Math.max(1, chunkCount / 20);
+
+        long startTime = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool((int) Math.max(1, Math.min(workers, chunkCount)), r -> {
+            Thread thread = new Thread(r, "dataset-seeder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers && i < chunkCount; i++) {
+                futures.add(pool.submit(() -> {
+                    long chunk;
+                    while (failure.get() == null && (chunk = nextChunk.getAndIncrement()) < chunkCount) {
+                        try {
+                            rows.addAndGet(write(generator.finalRows(chunk)));
+                        } catch (RuntimeException e) {
+                            failure.compareAndSet(null, e);
+                            log.error("Seeding chunk {} failed", chunk, e);
+                            return;
+                        }
+                        long done = chunksDone.incrementAndGet();
+                        if (done % logEvery == 0) {
+                            log.info("Seeded {}/{} chunks, {} rows", done, chunkCount, rows.get());
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, new IllegalStateException("Seeding interrupted", e));
+        } catch (ExecutionException e) {
+            failure.compareAndSet(null, new IllegalStateException(e.getCause()));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+        RuntimeException error = failure.get();
+        return new SeedReport(chunksDone.get(), rows.get(), elapsedMs, error != null ? String.valueOf(error.getMessage()) : null);
+    }
+
+    private int write(List<EventDTO> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        Map<Integer, List<EventDTO>> byShard = new TreeMap<>();
+        for (EventDTO event : events) {
+            byShard.computeIfAbsent(shardRouter.shardFor(event.getFactoryId(), event.getMachineId()),
+                    shard -> new ArrayList<>()).add(event);
+        }
+        List<Integer> written = shardRouter.onShards(new ArrayList<>(byShard.keySet()), shard -> {
+            List<EventDTO> shardEvents = byShard.get(shard);
+            transactionTemplate.executeWithoutResult(status -> insert(shardEvents));
+            return shardEvents.size();
+        });
+        return written.stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private void insert(List<EventDTO> events) {
+        // Allocated inside the transaction so the change feed holds back until the rows commit
+        long[] changeSeqs = changeSequence.allocate(events.size());
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                EventDTO dto = events.get(i);
+                ps.setString(1, dto.getEventId());
+                ps.setObject(2, toOffset(dto.getEventTime()));
+                ps.setObject(3, toOffset(dto.getReceivedTime()));
+                ps.setString(4, dto.getMachineId());
+                ps.setLong(5, dto.getDurationMs());
+                ps.setInt(6, dto.getDefectCount());
+                ps.setString(7, dto.getLineId());
+                ps.setString(8, dto.getFactoryId());
+                ps.setString(9, dto.generatePayloadHash());
+                ps.setLong(10, changeSeqs[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+    }
+
+    private static OffsetDateTime toOffset(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+}
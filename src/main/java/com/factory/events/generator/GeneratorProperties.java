@@ -0,0 +1,93 @@
+package com.factory.events.generator;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Shape of a synthetic dataset. Output depends only on these values, so the same settings (including
+ * {@code end}) always produce the same events.
+ */
+@Component
+@ConfigurationProperties("events.generator")
+public class GeneratorProperties {
+
+    private long seed = 42;
+    private long events = 1_000_000;
+    private int chunkSize = 5000;
+    private int machines = 5000;
+    private int lines = 250;
+    private int factories = 20;
+    private int days = 30;
+    // Null = start of the current hour
+    private Instant end;
+    private double duplicateRatio = 0.03;
+    private double updateRatio = 0.02;
+    private double invalidRatio = 0.01;
+    private double lateRatio = 0.05;
+    private int maxLateMinutes = 240;
+    private int outOfOrderSeconds = 30;
+    private double defectSkew = 1.2;
+    private double maxDefectMean = 4.0;
+    private double unknownDefectRatio = 0.005;
+    private String idPrefix = "E-GEN-";
+    private int threads = 0;
+
+    public long getSeed() { return seed; }
+    public void setSeed(long seed) { this.seed = seed; }
+
+    public long getEvents() { return events; }
+    public void setEvents(long events) { this.events = events; }
+
+    public int getChunkSize() { return chunkSize; }
+    public void setChunkSize(int chunkSize) { this.chunkSize = chunkSize; }
+
+    public int getMachines() { return machines; }
+    public void setMachines(int machines) { this.machines = machines; }
+
+    public int getLines() { return lines; }
+    public void setLines(int lines) { this.lines = lines; }
+
+    public int getFactories() { return factories; }
+    public void setFactories(int factories) { this.factories = factories; }
+
+    public int getDays() { return days; }
+    public void setDays(int days) { this.days = days; }
+
+    public Instant getEnd() { return end; }
+    public void setEnd(Instant end) { this.end = end; }
+
+    public double getDuplicateRatio() { return duplicateRatio; }
+    public void setDuplicateRatio(double duplicateRatio) { this.duplicateRatio = duplicateRatio; }
+
+    public double getUpdateRatio() { return updateRatio; }
+    public void setUpdateRatio(double updateRatio) { this.updateRatio = updateRatio; }
+
+    public double getInvalidRatio() { return invalidRatio; }
+    public void setInvalidRatio(double invalidRatio) { this.invalidRatio = invalidRatio; }
+
+    public double getLateRatio() { return lateRatio; }
+    public void setLateRatio(double lateRatio) { this.lateRatio = lateRatio; }
+
+    public int getMaxLateMinutes() { return maxLateMinutes; }
+    public void setMaxLateMinutes(int maxLateMinutes) { this.maxLateMinutes = maxLateMinutes; }
+
+    public int getOutOfOrderSeconds() { return outOfOrderSeconds; }
+    public void setOutOfOrderSeconds(int outOfOrderSeconds) { this.outOfOrderSeconds = outOfOrderSeconds; }
+
+    public double getDefectSkew() { return defectSkew; }
+    public void setDefectSkew(double defectSkew) { this.defectSkew = defectSkew; }
+
+    public double getMaxDefectMean() { return maxDefectMean; }
+    public void setMaxDefectMean(double maxDefectMean) { this.maxDefectMean = maxDefectMean; }
+
+    public double getUnknownDefectRatio() { return unknownDefectRatio; }
+    public void setUnknownDefectRatio(double unknownDefectRatio) { this.unknownDefectRatio = unknownDefectRatio; }
+
+    public String getIdPrefix() { return idPrefix; }
+    public void setIdPrefix(String idPrefix) { this.idPrefix = idPrefix; }
+
+    public int getThreads() { return threads; }
+    public void setThreads(int threads) { this.threads = threads; }
+}
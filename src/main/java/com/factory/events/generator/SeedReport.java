@@ -0,0 +1,25 @@
+package com.factory.events.generator;
+
+public class SeedReport {
+
+    private final long chunks;
+    private final long rows;
+    private final long elapsedMs;
+    private final String error;
+
+    public SeedReport(long chunks, long rows, long elapsedMs, String error) {
+        this.chunks = chunks;
+        this.rows = rows;
+        this.elapsedMs = elapsedMs;
+        this.error = error;
+    }
+
+    public long getChunks() { return chunks; }
+    public long getRows() { return rows; }
+    public long getElapsedMs() { return elapsedMs; }
+    public String getError() { return error; }
+
+    public double getRowsPerSecond() {
+        return elapsedMs > 0 ? rows * 1000.0 / elapsedMs : 0.0;
+    }
+}
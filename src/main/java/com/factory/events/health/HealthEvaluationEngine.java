@@ -0,0 +1,310 @@
+package com.factory.events.health;
+
+import com.factory.events.config.RoutingDataSource;
+import com.factory.events.repository.MachineEventRepository;
+import com.factory.events.service.BatchCommittedEvent;
+import com.factory.events.service.EventService;
+import com.factory.events.shard.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps a rolling defect-rate window for every machine that has sent events, updated from committed
+ * ingest batches, and reports Healthy/Warning transitions to {@link HealthListener}s.
+ *
+ * The database is read once per machine, to seed its window the first time it is seen after startup.
+ * A background sweep re-evaluates windows in memory so machines also recover as old defects age
+ * out, and drops machines that have been quiet for two windows.
+ */
+@Component
+public class HealthEvaluationEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthEvaluationEngine.class);
+
+    private final MachineEventRepository repository;
+    private final HealthPolicy policy;
+    private final ShardRouter shardRouter;
+    private final ObjectProvider<HealthListener> listenerProvider;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Map<String, MachineWindow> machines = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evaluator;
+    private final Executor seedExecutor;
+    private volatile List<HealthListener> listeners;
+
+    private final AtomicLong transitions = new AtomicLong();
+    private final AtomicLong seeded = new AtomicLong();
+    private final AtomicLong seedFailures = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    @Autowired
+    public HealthEvaluationEngine(MachineEventRepository repository,
+                                  HealthPolicy policy,
+                                  HealthProperties properties,
+                                  PlatformTransactionManager transactionManager,
+                                  ShardRouter shardRouter,
+                                  ObjectProvider<HealthListener> listenerProvider) {
+        this(repository, policy, properties, transactionManager, shardRouter, listenerProvider,
+                seedPool(properties.getSeedThreads()));
+    }
+
+    HealthEvaluationEngine(MachineEventRepository repository,
+                           HealthPolicy policy,
+                           HealthProperties properties,
+                           PlatformTransactionManager transactionManager,
+                           ShardRouter shardRouter,
+                           ObjectProvider<HealthListener> listenerProvider,
+                           Executor seedExecutor) {
+        this.repository = repository;
+        this.policy = policy;
+        this.shardRouter = shardRouter;
+        this.listenerProvider = listenerProvider;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        this.evaluator = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "health-evaluator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.seedExecutor = seedExecutor;
+        long interval = properties.getEvaluationIntervalMs();
+        evaluator.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private static ExecutorService seedPool(int threads) {
+        AtomicLong seedThreadIds = new AtomicLong();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "health-seed-" + seedThreadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBatchCommitted(BatchCommittedEvent event) {
+        Instant now = Instant.now();
+        Set<MachineWindow> touched = new LinkedHashSet<>();
+        for (BatchCommittedEvent.Change change : event.getChanges()) {
+            BatchCommittedEvent.Values previous = change.getPrevious();
+            BatchCommittedEvent.Values current = change.getCurrent();
+            // An update that moves an event to another machine changes both machines' windows
+            if (previous != null && !previous.getMachineId().equals(current.getMachineId())) {
+                touched.add(applyChange(previous, change, now));
+            }
+            touched.add(applyChange(current, change, now));
+        }
+        for (MachineWindow window : touched) {
+            if (window.isSeeded()) {
+                evaluate(window, now);
+                notifyUpdated(window);
+            }
+        }
+    }
+
+    /**
+     * Starts tracking a machine (seeding it from the database) if it isn't tracked yet.
+     */
+    public void track(String machineId) {
+        track(machineId, null, null, null, null);
+    }
+
+    /**
+     * @return the machine's current window, or null while it is untracked or still seeding
+     */
+    public MachineHealth getHealth(String machineId) {
+        MachineWindow window = machines.get(machineId);
+        if (window == null || !window.isSeeded()) {
+            return null;
+        }
+        Instant now = Instant.now();
+        Instant start = now.minus(Duration.ofMinutes(window.getWindowMinutes()));
+        long[] totals = window.totals(now);
+        double avgDefectRate = EventService.defectRatePerHour(totals[1], start, now);
+        String status = policy.status(machineId, window.getLineId(), avgDefectRate);
+        return new MachineHealth(machineId, window.getLineId(), window.getFactoryId(), start, now,
+                totals[0], totals[1], avgDefectRate, status);
+    }
+
+    public List<String> machinesWithStatus(String status) {
+        return machines.values().stream()
+                .filter(window -> status.equals(window.getStatus()))
+                .map(MachineWindow::getMachineId)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Calls {@code action} with (machineId, factoryId) for every tracked machine.
+     */
+    public void forEachTracked(BiConsumer<String, String> action) {
+        machines.values().forEach(window -> action.accept(window.getMachineId(), window.getFactoryId()));
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        snapshot.put("trackedMachines", (long) machines.size());
+        snapshot.put("warning", machines.values().stream()
+                .filter(window -> HealthPolicy.WARNING.equals(window.getStatus())).count());
+        snapshot.put("transitions", transitions.get());
+        snapshot.put("seeded", seeded.get());
+        snapshot.put("seedFailures", seedFailures.get());
+        snapshot.put("evicted", evicted.get());
+        return snapshot;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evaluator.shutdownNow();
+        if (seedExecutor instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    private MachineWindow applyChange(BatchCommittedEvent.Values values, BatchCommittedEvent.Change change,
+                                      Instant now) {
+        return track(values.getMachineId(), values.getLineId(), values.getFactoryId(), change, now);
+    }
+
+    /**
+     * Applies {@code change} (if any) to the machine's window, creating and seeding the window first
+     * if the machine isn't tracked yet.
+     */
+    private MachineWindow track(String machineId, String lineId, String factoryId,
+                                BatchCommittedEvent.Change change, Instant now) {
+        MachineWindow existing = machines.get(machineId);
+        if (existing == null) {
+            MachineWindow fresh = new MachineWindow(machineId, lineId, factoryId,
+                    policy.windowMinutes(machineId, lineId));
+            // Buffered before the seed is submitted: a seed that finishes first must reconcile this
+            // change against its rows, not have it applied on top of them afterwards
+            if (change != null) {
+                fresh.apply(change, now);
+            }
+            existing = machines.putIfAbsent(machineId, fresh);
+            if (existing == null) {
+                seedExecutor.execute(() -> seed(fresh));
+                return fresh;
+            }
+        }
+        if (change != null) {
+            existing.apply(change, now);
+        }
+        return existing;
+    }
+
+    private void seed(MachineWindow window) {
+        Instant now = Instant.now();
+        Instant from = now.minus(Duration.ofMinutes(window.getWindowMinutes()));
+        try {
+            // The primary, not the replica: rows committed before tracking started are never replayed
+            List<Object[]> rows = new ArrayList<>();
+            shardRouter.onShards(shardRouter.shardsFor(window.getFactoryId(), window.getMachineId()),
+                    shard -> RoutingDataSource.readFromPrimary(() -> readOnlyTransaction.execute(
+                            status -> repository.findRecentDefectRows(window.getMachineId(), from))))
+                    .forEach(rows::addAll);
+            window.seed(rows, now);
+            seeded.incrementAndGet();
+            evaluate(window, now);
+            notifyUpdated(window);
+        } catch (RuntimeException e) {
+            machines.remove(window.getMachineId(), window);
+            seedFailures.incrementAndGet();
+            log.warn("Could not seed health window for machine {}: {}", window.getMachineId(), e.getMessage());
+        }
+    }
+
+    private void evaluate(MachineWindow window, Instant now) {
+        HealthTransition transition = null;
+        synchronized (window) {
+            Instant start = now.minus(Duration.ofMinutes(window.getWindowMinutes()));
+            long[] totals = window.totals(now);
+            double avgDefectRate = EventService.defectRatePerHour(totals[1], start, now);
+            String status = policy.status(window.getMachineId(), window.getLineId(), avgDefectRate);
+            String previous = window.swapStatus(status);
+            if (previous != null && !previous.equals(status)) {
+                transition = new HealthTransition(window.getMachineId(), window.getLineId(), window.getFactoryId(),
+                        previous, status, avgDefectRate,
+                        policy.threshold(window.getMachineId(), window.getLineId()),
+                        window.getWindowMinutes(), now);
+            }
+        }
+        if (transition != null) {
+            transitions.incrementAndGet();
+            for (HealthListener listener : listeners()) {
+                try {
+                    listener.onTransition(transition);
+                } catch (RuntimeException e) {
+                    log.warn("Health listener {} failed", listener.getClass().getSimpleName(), e);
+                }
+            }
+        }
+    }
+
+    private void notifyUpdated(MachineWindow window) {
+        for (HealthListener listener : listeners()) {
+            try {
+                listener.onUpdated(window.getMachineId(), window.getFactoryId());
+            } catch (RuntimeException e) {
+                log.warn("Health listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    private void sweep() {
+        try {
+            Instant now = Instant.now();
+            long nowMillis = System.currentTimeMillis();
+            for (MachineWindow window : machines.values()) {
+                if (!window.isSeeded()) {
+                    continue;
+                }
+                evaluate(window, now);
+                long idleMillis = nowMillis - window.getLastUpdatedMillis();
+                if (idleMillis > 2 * TimeUnit.MINUTES.toMillis(window.getWindowMinutes())
+                        && window.totals(now)[0] == 0
+                        && machines.remove(window.getMachineId(), window)) {
+                    evicted.incrementAndGet();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Health sweep failed", e);
+        }
+    }
+
+    private List<HealthListener> listeners() {
+        // Resolved lazily: listeners such as the live stats stream depend on this engine
+        List<HealthListener> resolved = listeners;
+        if (resolved == null) {
+            resolved = listenerProvider.orderedStream().collect(Collectors.toList());
+            listeners = resolved;
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,15 @@
+package com.factory.events.health;
+
+/**
+ * Receives callbacks from {@link HealthEvaluationEngine}. Beans implementing this are picked up
+ * automatically. Callbacks run on ingest or engine threads and must not block.
+ */
+public interface HealthListener {
+
+    default void onTransition(HealthTransition transition) {}
+
+    /**
+     * The machine's rolling counts changed (new events, seed finished, or the window slid).
+     */
+    default void onUpdated(String machineId, String factoryId) {}
+}
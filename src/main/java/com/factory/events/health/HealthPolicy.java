@@ -0,0 +1,60 @@
+package com.factory.events.health;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the defect-rate threshold and rolling window for a machine. Used by the evaluation
+ * engine, /api/stats and the live stats stream so they all agree on Healthy/Warning.
+ */
+@Component
+public class HealthPolicy {
+
+    public static final String HEALTHY = "Healthy";
+    public static final String WARNING = "Warning";
+
+    private final HealthProperties properties;
+
+    public HealthPolicy(HealthProperties properties) {
+        this.properties = properties;
+    }
+
+    public double threshold(String machineId, String lineId) {
+        HealthProperties.Rule machineRule = properties.getMachines().get(machineId);
+        if (machineRule != null && machineRule.getThreshold() != null) {
+            return machineRule.getThreshold();
+        }
+        HealthProperties.Rule lineRule = lineId != null ? properties.getLines().get(lineId) : null;
+        if (lineRule != null && lineRule.getThreshold() != null) {
+            return lineRule.getThreshold();
+        }
+        return properties.getDefaults().getThreshold();
+    }
+
+    public int windowMinutes(String machineId, String lineId) {
+        HealthProperties.Rule machineRule = properties.getMachines().get(machineId);
+        if (machineRule != null && machineRule.getWindowMinutes() != null) {
+            return machineRule.getWindowMinutes();
+        }
+        HealthProperties.Rule lineRule = lineId != null ? properties.getLines().get(lineId) : null;
+        if (lineRule != null && lineRule.getWindowMinutes() != null) {
+            return lineRule.getWindowMinutes();
+        }
+        return properties.getDefaults().getWindowMinutes();
+    }
+
+    /**
+     * Whether {@link #threshold} can differ by line for this machine, i.e. a line rule sets a
+     * threshold and no machine rule overrides it.
+     */
+    public boolean thresholdDependsOnLine(String machineId) {
+        HealthProperties.Rule machineRule = properties.getMachines().get(machineId);
+        if (machineRule != null && machineRule.getThreshold() != null) {
+            return false;
+        }
+        return properties.getLines().values().stream().anyMatch(rule -> rule.getThreshold() != null);
+    }
+
+    public String status(String machineId, String lineId, double avgDefectRate) {
+        return avgDefectRate < threshold(machineId, lineId) ? HEALTHY : WARNING;
+    }
+}
@@ -0,0 +1,55 @@
+package com.factory.events.health;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Health rules under {@code events.health}. A machine rule beats a line rule, which beats the
+ * defaults; a rule may set only one of its fields and inherit the other.
+ */
+@Component
+@ConfigurationProperties(prefix = "events.health")
+public class HealthProperties {
+
+    private Rule defaults = new Rule(2.0, 60);
+    private Map<String, Rule> machines = new HashMap<>();
+    private Map<String, Rule> lines = new HashMap<>();
+    private long evaluationIntervalMs = 10000;
+    private int seedThreads = 2;
+
+    public static class Rule {
+        private Double threshold;
+        private Integer windowMinutes;
+
+        public Rule() {}
+
+        public Rule(Double threshold, Integer windowMinutes) {
+            this.threshold = threshold;
+            this.windowMinutes = windowMinutes;
+        }
+
+        public Double getThreshold() { return threshold; }
+        public void setThreshold(Double threshold) { this.threshold = threshold; }
+
+        public Integer getWindowMinutes() { return windowMinutes; }
+        public void setWindowMinutes(Integer windowMinutes) { this.windowMinutes = windowMinutes; }
+    }
+
+    public Rule getDefaults() { return defaults; }
+    public void setDefaults(Rule defaults) { this.defaults = defaults; }
+
+    public Map<String, Rule> getMachines() { return machines; }
+    public void setMachines(Map<String, Rule> machines) { this.machines = machines; }
+
+    public Map<String, Rule> getLines() { return lines; }
+    public void setLines(Map<String, Rule> lines) { this.lines = lines; }
+
+    public long getEvaluationIntervalMs() { return evaluationIntervalMs; }
+    public void setEvaluationIntervalMs(long evaluationIntervalMs) { this.evaluationIntervalMs = evaluationIntervalMs; }
+
+    public int getSeedThreads() { return seedThreads; }
+    public void setSeedThreads(int seedThreads) { this.seedThreads = seedThreads; }
+}
@@ -0,0 +1,40 @@
+package com.factory.events.health;
+
+import java.time.Instant;
+
+public class HealthTransition {
+
+    private final String machineId;
+    private final String lineId;
+    private final String factoryId;
+    private final String previousStatus;
+    private final String status;
+    private final double avgDefectRate;
+    private final double threshold;
+    private final int windowMinutes;
+    private final Instant at;
+
+    public HealthTransition(String machineId, String lineId, String factoryId,
+                            String previousStatus, String status, double avgDefectRate,
+                            double threshold, int windowMinutes, Instant at) {
+        this.machineId = machineId;
+        this.lineId = lineId;
+        this.factoryId = factoryId;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.avgDefectRate = avgDefectRate;
+        this.threshold = threshold;
+        this.windowMinutes = windowMinutes;
+        this.at = at;
+    }
+
+    public String getMachineId() { return machineId; }
+    public String getLineId() { return lineId; }
+    public String getFactoryId() { return factoryId; }
+    public String getPreviousStatus() { return previousStatus; }
+    public String getStatus() { return status; }
+    public double getAvgDefectRate() { return avgDefectRate; }
+    public double getThreshold() { return threshold; }
+    public int getWindowMinutes() { return windowMinutes; }
+    public Instant getAt() { return at; }
+}
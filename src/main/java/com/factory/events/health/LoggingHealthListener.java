@@ -0,0 +1,27 @@
+package com.factory.events.health;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default transition sink: one log line per status change, at WARN when a machine degrades.
+ */
+@Component
+public class LoggingHealthListener implements HealthListener {
+
+    private static final Logger log = LoggerFactory.getLogger("com.factory.events.health.transitions");
+
+    @Override
+    public void onTransition(HealthTransition transition) {
+        String message = "Machine {} (line {}, factory {}) {} -> {}: {} defects/h over {} min (threshold {})";
+        Object[] args = {transition.getMachineId(), transition.getLineId(), transition.getFactoryId(),
+                transition.getPreviousStatus(), transition.getStatus(), transition.getAvgDefectRate(),
+                transition.getWindowMinutes(), transition.getThreshold()};
+        if (HealthPolicy.WARNING.equals(transition.getStatus())) {
+            log.warn(message, args);
+        } else {
+            log.info(message, args);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.factory.events.health;
+
+import java.time.Instant;
+
+/**
+ * A machine's rolling window as last evaluated by {@link HealthEvaluationEngine}.
+ */
+public class MachineHealth {
+
+    private final String machineId;
+    private final String lineId;
+    private final String factoryId;
+    private final Instant start;
+    private final Instant end;
+    private final long eventsCount;
+    private final long defectsCount;
+    private final double avgDefectRate;
+    private final String status;
+
+    public MachineHealth(String machineId, String lineId, String factoryId, Instant start, Instant end,
+                         long eventsCount, long defectsCount, double avgDefectRate, String status) {
+        this.machineId = machineId;
+        this.lineId = lineId;
+        this.factoryId = factoryId;
+        this.start = start;
+        this.end = end;
+        this.eventsCount = eventsCount;
+        this.defectsCount = defectsCount;
+        this.avgDefectRate = avgDefectRate;
+        this.status = status;
+    }
+
+    public String getMachineId() { return machineId; }
+    public String getLineId() { return lineId; }
+    public String getFactoryId() { return factoryId; }
+    public Instant getStart() { return start; }
+    public Instant getEnd() { return end; }
+    public long getEventsCount() { return eventsCount; }
+    public long getDefectsCount() { return defectsCount; }
+    public double getAvgDefectRate() { return avgDefectRate; }
+    public String getStatus() { return status; }
+}
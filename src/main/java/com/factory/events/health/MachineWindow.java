@@ -0,0 +1,167 @@
+package com.factory.events.health;
+
+import com.factory.events.service.BatchCommittedEvent;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rolling per-minute event and defect counts for one machine, keyed by eventTime.
+ *
+ * Until {@link #seed} has run, committed changes are buffered. When the seed is applied, a buffered
+ * change whose row the seed query already saw (same or newer changeSeq) is dropped, so each row is
+ * counted exactly once. Counters are ints to keep tens of thousands of machines cheap to hold.
+ */
+class MachineWindow {
+
+    // Events may be up to 15 minutes in the future (see BatchPreprocessor.MAX_FUTURE_WINDOW)
+    private static final int FUTURE_MINUTES = 15;
+
+    private final String machineId;
+    private final int windowMinutes;
+    private final int[] bucketMinute;
+    private final int[] eventCounts;
+    private final int[] defectCounts;
+
+    private volatile String lineId;
+    private volatile String factoryId;
+    private volatile String status;
+    private volatile long lastUpdatedMillis = System.currentTimeMillis();
+    private List<BatchCommittedEvent.Change> pending = new ArrayList<>();
+
+    MachineWindow(String machineId, String lineId, String factoryId, int windowMinutes) {
+        this.machineId = machineId;
+        this.lineId = lineId;
+        this.factoryId = factoryId;
+        this.windowMinutes = windowMinutes;
+        int slots = windowMinutes + FUTURE_MINUTES + 1;
+        this.bucketMinute = new int[slots];
+        this.eventCounts = new int[slots];
+        this.defectCounts = new int[slots];
+    }
+
+    String getMachineId() { return machineId; }
+    String getLineId() { return lineId; }
+    String getFactoryId() { return factoryId; }
+    int getWindowMinutes() { return windowMinutes; }
+    String getStatus() { return status; }
+    long getLastUpdatedMillis() { return lastUpdatedMillis; }
+
+    /**
+     * @return the previous status, or null if the machine had not been evaluated yet
+     */
+    synchronized String swapStatus(String newStatus) {
+        String previous = status;
+        status = newStatus;
+        return previous;
+    }
+
+    synchronized boolean isSeeded() {
+        return pending == null;
+    }
+
+    /**
+     * @param rows {eventId, changeSeq, eventTime, defectCount} for every row of this machine in the window
+     */
+    synchronized void seed(List<Object[]> rows, Instant now) {
+        Map<String, Long> seededChangeSeqs = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            if (row[1] != null) {
+                seededChangeSeqs.put((String) row[0], ((Number) row[1]).longValue());
+            }
+            add((Instant) row[2], ((Number) row[3]).intValue(), 1, now);
+        }
+        // A buffered update only removes its previous values if they are actually counted here
+        Set<String> addedFromPending = new HashSet<>();
+        for (BatchCommittedEvent.Change change : pending) {
+            Long seen = seededChangeSeqs.get(change.getEventId());
+            if (seen != null && seen >= change.getChangeSeq()) {
+                continue;
+            }
+            boolean previousCounted = seen != null || addedFromPending.contains(change.getEventId());
+            applyNow(change, now, previousCounted);
+            if (machineId.equals(change.getCurrent().getMachineId())) {
+                addedFromPending.add(change.getEventId());
+            } else {
+                addedFromPending.remove(change.getEventId());
+            }
+        }
+        pending = null;
+    }
+
+    synchronized void apply(BatchCommittedEvent.Change change, Instant now) {
+        lastUpdatedMillis = System.currentTimeMillis();
+        if (pending != null) {
+            pending.add(change);
+        } else {
+            applyNow(change, now, true);
+        }
+    }
+
+    /**
+     * @return {eventsCount, defectsCount} over the {@code windowMinutes} minutes ending at {@code now}
+     */
+    synchronized long[] totals(Instant now) {
+        long nowMinute = epochMinute(now);
+        long events = 0;
+        long defects = 0;
+        for (int slot = 0; slot < bucketMinute.length; slot++) {
+            long minute = bucketMinute[slot];
+            if (minute > nowMinute - windowMinutes && minute <= nowMinute) {
+                events += eventCounts[slot];
+                defects += defectCounts[slot];
+            }
+        }
+        return new long[]{events, defects};
+    }
+
+    private void applyNow(BatchCommittedEvent.Change change, Instant now, boolean previousCounted) {
+        BatchCommittedEvent.Values previous = change.getPrevious();
+        BatchCommittedEvent.Values current = change.getCurrent();
+        if (previous != null && previousCounted && machineId.equals(previous.getMachineId())) {
+            add(previous.getEventTime(), previous.getDefectCount(), -1, now);
+        }
+        if (machineId.equals(current.getMachineId())) {
+            if (current.getLineId() != null) {
+                lineId = current.getLineId();
+            }
+            if (current.getFactoryId() != null) {
+                factoryId = current.getFactoryId();
+            }
+            add(current.getEventTime(), current.getDefectCount(), 1, now);
+        }
+    }
+
+    private void add(Instant eventTime, int defectCount, int sign, Instant now) {
+        long minute = epochMinute(eventTime);
+        long nowMinute = epochMinute(now);
+        if (minute <= nowMinute - windowMinutes || minute > nowMinute + FUTURE_MINUTES) {
+            return;
+        }
+
+        int slot = (int) Math.floorMod(minute, (long) bucketMinute.length);
+        if (bucketMinute[slot] != minute) {
+            if (sign < 0) {
+                // The bucket already rolled over, so this event is no longer counted anywhere
+                return;
+            }
+            bucketMinute[slot] = (int) minute;
+            eventCounts[slot] = 0;
+            defectCounts[slot] = 0;
+        }
+        eventCounts[slot] += sign;
+        // Same rule as the stats queries: defectCount -1 means unknown and is not summed
+        if (defectCount >= 0) {
+            defectCounts[slot] += sign * defectCount;
+        }
+    }
+
+    private static long epochMinute(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), 60);
+    }
+}
@@ -0,0 +1,64 @@
+package com.factory.events.importer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Runs a backfill and prints a throughput report, e.g.
+ * mvn spring-boot:run -Dspring-boot.run.arguments="--spring.profiles.active=import --events.import.files=plant-a.csv,plant-b.ndjson"
+ */
+@Component
+@Profile("import")
+public class BulkImportRunner implements CommandLineRunner {
+
+    private final BulkImportService importService;
+    private final String files;
+
+    public BulkImportRunner(BulkImportService importService,
+                            @Value("${events.import.files:}") String files) {
+        this.importService = importService;
+        this.files = files;
+    }
+
+    @Override
+    public void run(String... args) {
+        List<Path> paths = Arrays.stream(files.split(","))
+                .map(String::trim)
+                .filter(f -> !f.isEmpty())
+                .map(Path::of)
+                .collect(Collectors.toList());
+
+        System.out.println("=== Bulk Import: " + paths.size() + " file(s) ===");
+        ImportReport report = importService.importFiles(paths);
+
+        for (ImportReport.FileReport file : report.getFiles()) {
+            System.out.println("\n" + file.getFile() + (file.getResumedFrom() > 0
+                    ? " (resumed after record " + file.getResumedFrom() + ")" : ""));
+            System.out.println("  Records: " + file.getRecords());
+            System.out.println("  Merged: " + file.getMerged());
+            System.out.println("  Skipped: " + file.getSkipped());
+            for (Map.Entry<String, Long> rejected : file.getRejected().entrySet()) {
+                System.out.println("  Rejected " + rejected.getKey() + ": " + rejected.getValue());
+            }
+            if (file.getError() != null) {
+                System.out.println("  Stopped: " + file.getError());
+            }
+        }
+
+        System.out.println("\n=== Import Complete ===");
+        System.out.println("  Records: " + report.getRecords());
+        System.out.println("  Merged: " + report.getMerged());
+        System.out.println("  Rejected: " + report.getRejected());
+        System.out.println("  Duration: " + report.getElapsedMs() + " ms");
+        System.out.println("  Throughput: " + report.getRecordsPerSecond() + " records/sec");
+        System.exit(report.getFiles().stream().anyMatch(f -> f.getError() != null) ? 1 : 0);
+    }
+}
@@ -0,0 +1,188 @@
+package com.factory.events.importer;
+
+import com.factory.events.dto.EventDTO;
+import com.factory.events.dto.RejectionReason;
+import com.factory.events.service.BatchPreprocessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Backfills machine_events from local CSV/NDJSON files. Each file is read by its own worker,
+ * validated and hashed exactly like an ingested batch, and merged chunk by chunk through the
+ * staging table. A checkpoint is written after every committed chunk so an interrupted import
+ * resumes where it stopped.
+ */
+@Service
+public class BulkImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImportService.class);
+    private static final int MAX_MERGE_ATTEMPTS = 3;
+
+    private final BatchPreprocessor preprocessor;
+    private final StagingLoader stagingLoader;
+    private final ObjectReader eventReader;
+    private final int chunkSize;
+    private final int readerThreads;
+    private final String checkpointDir;
+
+    private final AtomicLong chunkIds = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    public BulkImportService(BatchPreprocessor preprocessor,
+                             StagingLoader stagingLoader,
+                             ObjectMapper objectMapper,
+                             @Value("${events.import.chunk-size:5000}") int chunkSize,
+                             @Value("${events.import.reader-threads:4}") int readerThreads,
+                             @Value("${events.import.checkpoint-dir:}") String checkpointDir) {
+        this.preprocessor = preprocessor;
+        this.stagingLoader = stagingLoader;
+        this.eventReader = objectMapper.readerFor(EventDTO.class);
+        this.chunkSize = chunkSize;
+        this.readerThreads = readerThreads;
+        this.checkpointDir = checkpointDir;
+    }
+
+    public ImportReport importFiles(List<Path> files) {
+        ImportReport report = new ImportReport();
+        if (files.isEmpty()) {
+            return report;
+        }
+
+        long startTime = System.nanoTime();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService readers = Executors.newFixedThreadPool(Math.min(readerThreads, files.size()), r -> {
+            Thread thread = new Thread(r, "bulk-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<ImportReport.FileReport>> results = new ArrayList<>();
+            for (Path file : files) {
+                results.add(readers.submit(() -> importFile(file)));
+            }
+            for (Future<ImportReport.FileReport> result : results) {
+                report.addFile(result.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bulk import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Bulk import failed", e.getCause());
+        } finally {
+            readers.shutdownNow();
+        }
+
+        report.setElapsedMs((System.nanoTime() - startTime) / 1_000_000);
+        return report;
+    }
+
+    private ImportReport.FileReport importFile(Path file) throws IOException {
+        ImportCheckpoint checkpoint = new ImportCheckpoint(file, checkpointDir);
+        long done = checkpoint.load();
+        ImportReport.FileReport report = new ImportReport.FileReport(file.toString(), done);
+
+        try (EventRecordReader reader = open(file)) {
+            long position = 0;
+            List<EventDTO> chunk = new ArrayList<>(chunkSize);
+
+            while (true) {
+                EventDTO dto;
+                try {
+                    dto = reader.next();
+                } catch (EventRecordReader.MalformedRecordException e) {
+                    position++;
+                    if (position > done) {
+                        report.addRecords(1);
+                        report.addRejected(RejectionReason.MALFORMED_RECORD.name());
+                    }
+                    continue;
+                }
+                if (dto == null) {
+                    break;
+                }
+                position++;
+                if (position <= done) {
+                    continue;
+                }
+
+                chunk.add(dto);
+                if (chunk.size() == chunkSize) {
+                    mergeChunk(chunk, report);
+                    checkpoint.save(position);
+                    chunk.clear();
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                mergeChunk(chunk, report);
+            }
+            checkpoint.save(position);
+        } catch (RuntimeException | IOException e) {
+            log.error("Import of {} stopped; rerun to resume from the last checkpoint", file, e);
+            report.setError(e.getMessage());
+        }
+        return report;
+    }
+
+    private void mergeChunk(List<EventDTO> chunk, ImportReport.FileReport report) {
+        BatchPreprocessor.Result preprocessed = preprocessor.process(chunk, Instant.now());
+
+        List<EventDTO> valid = new ArrayList<>(chunk.size());
+        List<String> hashes = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            RejectionReason rejection = preprocessed.getRejection(i);
+            if (rejection != null) {
+                report.addRejected(rejection.name());
+            } else {
+                valid.add(chunk.get(i));
+                hashes.add(preprocessed.getPayloadHash(i));
+            }
+        }
+        report.addRecords(chunk.size());
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        // Parallel readers can race on the same new eventId; the losing chunk re-merges and sees the winner's row
+        for (int attempt = 1; ; attempt++) {
+            try {
+                report.addMerged(stagingLoader.stageAndMerge(chunkIds.incrementAndGet(), valid, hashes));
+                report.addStaged(valid.size());
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_MERGE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private EventRecordReader open(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".csv")) {
+            return new CsvEventReader(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return new NdjsonEventReader(Files.newBufferedReader(file, StandardCharsets.UTF_8), eventReader);
+        }
+        throw new IllegalArgumentException("Unsupported import file (expected .csv, .ndjson or .jsonl): " + file);
+    }
+}
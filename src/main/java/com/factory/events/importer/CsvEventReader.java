@@ -0,0 +1,105 @@
+package com.factory.events.importer;
+
+import com.factory.events.dto.EventDTO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CSV with a header row naming the event fields (eventId, eventTime, machineId, durationMs,
+ * defectCount, lineId, factoryId) in any order. Fields may be double-quoted; quoted fields
+ * cannot span lines.
+ */
+class CsvEventReader implements EventRecordReader {
+
+    private final BufferedReader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    CsvEventReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+        String header = reader.readLine();
+        if (header == null) {
+            return;
+        }
+        List<String> names = split(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+    }
+
+    @Override
+    public EventDTO next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        List<String> fields = split(line);
+        try {
+            EventDTO dto = new EventDTO();
+            dto.setEventId(field(fields, "eventId"));
+            String eventTime = field(fields, "eventTime");
+            dto.setEventTime(eventTime != null ? Instant.parse(eventTime) : null);
+            dto.setMachineId(field(fields, "machineId"));
+            String durationMs = field(fields, "durationMs");
+            dto.setDurationMs(durationMs != null ? Long.valueOf(durationMs) : null);
+            String defectCount = field(fields, "defectCount");
+            dto.setDefectCount(defectCount != null ? Integer.valueOf(defectCount) : null);
+            dto.setLineId(field(fields, "lineId"));
+            dto.setFactoryId(field(fields, "factoryId"));
+            return dto;
+        } catch (RuntimeException e) {
+            throw new MalformedRecordException("Invalid CSV record", e);
+        }
+    }
+
+    private String field(List<String> fields, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
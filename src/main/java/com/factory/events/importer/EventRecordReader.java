@@ -0,0 +1,22 @@
+package com.factory.events.importer;
+
+import com.factory.events.dto.EventDTO;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+interface EventRecordReader extends Closeable {
+
+    /**
+     * Reads the next record, or returns null at the end of the file.
+     *
+     * @throws MalformedRecordException if the record cannot be parsed; the reader stays usable
+     */
+    EventDTO next() throws IOException;
+
+    class MalformedRecordException extends IOException {
+        MalformedRecordException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
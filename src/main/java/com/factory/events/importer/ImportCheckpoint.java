@@ -0,0 +1,37 @@
+package com.factory.events.importer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Number of records of one input file that are durably merged. Written after every committed chunk,
+ * so a restarted import skips exactly the records that already reached machine_events.
+ */
+class ImportCheckpoint {
+
+    private final Path path;
+
+    ImportCheckpoint(Path input, String checkpointDir) {
+        Path dir = checkpointDir == null || checkpointDir.isBlank()
+                ? input.toAbsolutePath().getParent()
+                : Path.of(checkpointDir);
+        this.path = dir.resolve(input.getFileName() + ".checkpoint");
+    }
+
+    long load() throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        return Long.parseLong(Files.readString(path, StandardCharsets.UTF_8).trim());
+    }
+
+    void save(long recordsDone) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(tmp, Long.toString(recordsDone), StandardCharsets.UTF_8);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
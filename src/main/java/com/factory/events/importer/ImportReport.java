@@ -0,0 +1,58 @@
+package com.factory.events.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ImportReport {
+
+    private final List<FileReport> files = new ArrayList<>();
+    private long elapsedMs;
+
+    public static class FileReport {
+        private final String file;
+        private final long resumedFrom;
+        private long records;
+        private long staged;
+        private long merged;
+        private final Map<String, Long> rejected = new TreeMap<>();
+        private String error;
+
+        public FileReport(String file, long resumedFrom) {
+            this.file = file;
+            this.resumedFrom = resumedFrom;
+        }
+
+        void addRecords(long count) { records += count; }
+        void addStaged(long count) { staged += count; }
+        void addMerged(long count) { merged += count; }
+        void addRejected(String reason) { rejected.merge(reason, 1L, Long::sum); }
+        void setError(String error) { this.error = error; }
+
+        public String getFile() { return file; }
+        public long getResumedFrom() { return resumedFrom; }
+        public long getRecords() { return records; }
+        public long getStaged() { return staged; }
+        public long getMerged() { return merged; }
+        /** Staged rows that did not change machine_events: duplicates, identical payloads, older data. */
+        public long getSkipped() { return staged - merged; }
+        public Map<String, Long> getRejected() { return rejected; }
+        public long getRejectedTotal() { return rejected.values().stream().mapToLong(Long::longValue).sum(); }
+        public String getError() { return error; }
+    }
+
+    void addFile(FileReport report) { files.add(report); }
+    void setElapsedMs(long elapsedMs) { this.elapsedMs = elapsedMs; }
+
+    public List<FileReport> getFiles() { return files; }
+    public long getElapsedMs() { return elapsedMs; }
+
+    public long getRecords() { return files.stream().mapToLong(FileReport::getRecords).sum(); }
+    public long getMerged() { return files.stream().mapToLong(FileReport::getMerged).sum(); }
+    public long getRejected() { return files.stream().mapToLong(FileReport::getRejectedTotal).sum(); }
+
+    public double getRecordsPerSecond() {
+        return elapsedMs > 0 ? getRecords() * 1000.0 / elapsedMs : 0.0;
+    }
+}
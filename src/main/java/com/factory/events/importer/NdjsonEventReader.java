@@ -0,0 +1,42 @@
+package com.factory.events.importer;
+
+import com.factory.events.dto.EventDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/** One JSON event object per line; blank lines are skipped. */
+class NdjsonEventReader implements EventRecordReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader eventReader;
+
+    NdjsonEventReader(BufferedReader reader, ObjectReader eventReader) {
+        this.reader = reader;
+        this.eventReader = eventReader;
+    }
+
+    @Override
+    public EventDTO next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        try {
+            return eventReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new MalformedRecordException("Invalid JSON record", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
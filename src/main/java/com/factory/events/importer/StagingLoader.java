@@ -0,0 +1,331 @@
+package com.factory.events.importer;
+
+import com.factory.events.dto.EventDTO;
+import com.factory.events.service.BatchCommittedEvent;
+import com.factory.events.service.ChangeSequenceAllocator;
+import com.factory.events.service.EventCopyLocator;
+import com.factory.events.shard.ShardRouter;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Loads a chunk of validated events into machine_events_staging and merges it into machine_events
+ * in one transaction. PostgreSQL is fed through COPY; other databases (H2) use a batched insert.
+ *
+ * The merge keeps the ingest semantics: the first occurrence of an eventId in the chunk wins, a new
+ * eventId is inserted, and an existing one is only overwritten when its payload hash differs and the
+ * staged receivedTime is newer. MERGE needs PostgreSQL 15+ (or H2 2.x). The staging table is
+ * created by the V2 migration.
+ *
+ * Rows the merge wrote are read back by their change_seq and published as one
+ * {@link BatchCommittedEvent} per chunk once it has committed, like an ingested batch.
+ */
+@Component
+public class StagingLoader {
+
+    private static final String COLUMNS = "chunk_id, seq, event_id, event_time, received_time, machine_id, "
+            + "duration_ms, defect_count, line_id, factory_id, payload_hash, change_seq";
+
+    private static final String INSERT_STAGING_SQL =
+            "INSERT INTO machine_events_staging (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String COPY_STAGING_SQL =
+            "COPY machine_events_staging (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+
+    private static final String MERGE_SQL =
+            "MERGE INTO machine_events t "
+                    + "USING (SELECT s.* FROM machine_events_staging s WHERE s.chunk_id = ? AND s.seq = "
+                    + "(SELECT MIN(f.seq) FROM machine_events_staging f "
+                    + "WHERE f.chunk_id = s.chunk_id AND f.event_id = s.event_id)) s "
+                    + "ON t.event_id = s.event_id "
+                    + "WHEN MATCHED AND t.payload_hash <> s.payload_hash AND s.received_time > t.received_time THEN "
+                    + "UPDATE SET event_time = s.event_time, received_time = s.received_time, "
+                    + "machine_id = s.machine_id, duration_ms = s.duration_ms, defect_count = s.defect_count, "
+                    + "line_id = s.line_id, factory_id = s.factory_id, payload_hash = s.payload_hash, "
+                    + "change_seq = s.change_seq, version = t.version + 1 "
+                    + "WHEN NOT MATCHED THEN "
+                    + "INSERT (event_id, event_time, received_time, machine_id, duration_ms, defect_count, "
+                    + "line_id, factory_id, payload_hash, change_seq, version) "
+                    + "VALUES (s.event_id, s.event_time, s.received_time, s.machine_id, s.duration_ms, "
+                    + "s.defect_count, s.line_id, s.factory_id, s.payload_hash, s.change_seq, 0)";
+
+    // Locks the rows the merge may update so the values read here are the ones it replaces
+    private static final String PREVIOUS_SQL =
+            "SELECT t.event_id, t.machine_id, t.line_id, t.factory_id, t.event_time, t.duration_ms, t.defect_count "
+                    + "FROM machine_events t WHERE t.event_id IN "
+                    + "(SELECT s.event_id FROM machine_events_staging s WHERE s.chunk_id = ?) FOR UPDATE";
+
+    // Only rows the merge wrote carry a change_seq allocated for this chunk
+    private static final String MERGED_ROWS_SQL =
+            "SELECT t.id, t.event_id, t.change_seq, t.machine_id, t.line_id, t.factory_id, t.event_time, "
+                    + "t.duration_ms, t.defect_count FROM machine_events t "
+                    + "JOIN machine_events_staging s ON s.event_id = t.event_id AND s.change_seq = t.change_seq "
+                    + "WHERE s.chunk_id = ? ORDER BY t.change_seq";
+
+    private static final String DELETE_STAGING_SQL = "DELETE FROM machine_events_staging WHERE chunk_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeSequenceAllocator changeSequence;
+    private final ShardRouter shardRouter;
+    private final EventCopyLocator copyLocator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile Boolean postgres;
+
+    public StagingLoader(DataSource dataSource, PlatformTransactionManager transactionManager,
+                         ChangeSequenceAllocator changeSequence, ShardRouter shardRouter,
+                         EventCopyLocator copyLocator, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.changeSequence = changeSequence;
+        this.shardRouter = shardRouter;
+        this.copyLocator = copyLocator;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.getMetaData().getDatabaseProductName().toLowerCase().contains("postgres"));
+        }
+        return postgres;
+    }
+
+    /**
+     * Splits the chunk by shard and merges each part on its shard, in parallel and in separate
+     * transactions. All occurrences of an eventId go to the shard of its first one. An eventId whose
+     * row sits on another shard (its factoryId/machineId changed) is merged as new, after which the
+     * copy with the older receivedTime is deleted, the same outcome as an update, and is published
+     * as one.
+     *
+     * @return number of machine_events rows inserted or updated
+     */
+    public int stageAndMerge(long chunkId, List<EventDTO> events, List<String> payloadHashes) {
+        if (!shardRouter.isSharded()) {
+            ShardMerge merge = stageAndMergeOnShard(chunkId, events, payloadHashes);
+            publish(merge.changes);
+            return merge.rows;
+        }
+        Map<String, Integer> owners = new HashMap<>();
+        Map<Integer, List<Integer>> byShard = new TreeMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            EventDTO event = events.get(i);
+            int owner = owners.computeIfAbsent(event.getEventId(),
+                    eventId -> shardRouter.shardFor(event.getFactoryId(), event.getMachineId()));
+            byShard.computeIfAbsent(owner, shard -> new ArrayList<>()).add(i);
+        }
+        List<Integer> shards = new ArrayList<>(byShard.keySet());
+        List<ShardMerge> merges = shardRouter.onShards(shards, shard -> {
+            List<Integer> indexes = byShard.get(shard);
+            List<EventDTO> shardEvents = new ArrayList<>(indexes.size());
+            List<String> shardHashes = new ArrayList<>(indexes.size());
+            for (int i : indexes) {
+                shardEvents.add(events.get(i));
+                shardHashes.add(payloadHashes.get(i));
+            }
+            return stageAndMergeOnShard(chunkId, shardEvents, shardHashes);
+        });
+        EventCopyLocator.Placement placement = copyLocator.locate(owners.keySet());
+        copyLocator.delete(placement.getStale());
+
+        // An insert of an eventId that has a copy on another shard is either a move or lost to a newer copy
+        Map<String, Inserted> inserted = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            ShardMerge merge = merges.get(i);
+            for (int j = 0; j < merge.changes.size(); j++) {
+                if (merge.changes.get(j).getPrevious() == null) {
+                    inserted.put(merge.changes.get(j).getEventId(), new Inserted(shards.get(i), merge.ids.get(j)));
+                }
+            }
+        }
+        for (EventCopyLocator.Copy copy : placement.getStaleCopies()) {
+            Inserted insert = inserted.get(copy.getEventId());
+            if (insert == null) {
+                continue;
+            }
+            if (insert.shard == copy.getShard() && insert.id == copy.getId()) {
+                insert.superseded = true;
+            } else if (insert.replaced == null || copy.getReceivedTime().isAfter(insert.replaced.getReceivedTime())) {
+                insert.replaced = copy;
+            }
+        }
+
+        int rows = 0;
+        List<BatchCommittedEvent.Change> changes = new ArrayList<>();
+        for (ShardMerge merge : merges) {
+            rows += merge.rows;
+            for (BatchCommittedEvent.Change change : merge.changes) {
+                Inserted insert = change.getPrevious() == null ? inserted.get(change.getEventId()) : null;
+                if (insert != null && insert.superseded) {
+                    continue;
+                }
+                if (insert != null && insert.replaced != null) {
+                    change = new BatchCommittedEvent.Change(change.getEventId(), change.getChangeSeq(),
+                            insert.replaced.getValues(), change.getCurrent());
+                }
+                changes.add(change);
+            }
+        }
+        changes.sort(Comparator.comparingLong(BatchCommittedEvent.Change::getChangeSeq));
+        publish(changes);
+        return rows;
+    }
+
+    private ShardMerge stageAndMergeOnShard(long chunkId, List<EventDTO> events, List<String> payloadHashes) {
+        return transactionTemplate.execute(status -> {
+            // Allocated inside the transaction so the change feed holds back until the merge commits
+            long[] changeSeqs = changeSequence.allocate(events.size());
+            if (isPostgres()) {
+                copyIn(chunkId, events, payloadHashes, changeSeqs);
+            } else {
+                batchInsert(chunkId, events, payloadHashes, changeSeqs);
+            }
+            Map<String, BatchCommittedEvent.Values> previous = new HashMap<>();
+            jdbcTemplate.query(PREVIOUS_SQL, (RowCallbackHandler) rs ->
+                    previous.put(rs.getString("event_id"), readValues(rs)), chunkId);
+
+            ShardMerge merge = new ShardMerge(jdbcTemplate.update(MERGE_SQL, chunkId));
+            jdbcTemplate.query(MERGED_ROWS_SQL, rs -> {
+                String eventId = rs.getString("event_id");
+                merge.ids.add(rs.getLong("id"));
+                merge.changes.add(new BatchCommittedEvent.Change(eventId, rs.getLong("change_seq"),
+                        previous.get(eventId), readValues(rs)));
+            }, chunkId);
+            jdbcTemplate.update(DELETE_STAGING_SQL, chunkId);
+            return merge;
+        });
+    }
+
+    private void publish(List<BatchCommittedEvent.Change> changes) {
+        // Listeners run on fallbackExecution, so outside a transaction they see the committed merge
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new BatchCommittedEvent(changes));
+        }
+    }
+
+    private static BatchCommittedEvent.Values readValues(ResultSet rs) throws SQLException {
+        return new BatchCommittedEvent.Values(rs.getString("machine_id"), rs.getString("line_id"),
+                rs.getString("factory_id"), rs.getObject("event_time", OffsetDateTime.class).toInstant(),
+                rs.getLong("duration_ms"), rs.getInt("defect_count"));
+    }
+
+    private void batchInsert(long chunkId, List<EventDTO> events, List<String> payloadHashes, long[] changeSeqs) {
+        jdbcTemplate.batchUpdate(INSERT_STAGING_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int seq) throws SQLException {
+                EventDTO dto = events.get(seq);
+                ps.setLong(1, chunkId);
+                ps.setInt(2, seq);
+                ps.setString(3, dto.getEventId());
+                ps.setObject(4, toOffset(dto.getEventTime()));
+                ps.setObject(5, toOffset(dto.getReceivedTime()));
+                ps.setString(6, dto.getMachineId());
+                ps.setLong(7, dto.getDurationMs());
+                ps.setInt(8, dto.getDefectCount());
+                ps.setString(9, dto.getLineId());
+                ps.setString(10, dto.getFactoryId());
+                ps.setString(11, payloadHashes.get(seq));
+                ps.setLong(12, changeSeqs[seq]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+    }
+
+    private void copyIn(long chunkId, List<EventDTO> events, List<String> payloadHashes, long[] changeSeqs) {
+        StringBuilder csv = new StringBuilder(events.size() * 160);
+        for (int seq = 0; seq < events.size(); seq++) {
+            EventDTO dto = events.get(seq);
+            csv.append(chunkId).append(',')
+                    .append(seq).append(',');
+            appendCsv(csv, dto.getEventId()).append(',')
+                    .append(dto.getEventTime()).append(',')
+                    .append(dto.getReceivedTime()).append(',');
+            appendCsv(csv, dto.getMachineId()).append(',')
+                    .append(dto.getDurationMs()).append(',')
+                    .append(dto.getDefectCount()).append(',');
+            appendCsv(csv, dto.getLineId()).append(',');
+            appendCsv(csv, dto.getFactoryId()).append(',')
+                    .append(payloadHashes.get(seq)).append(',')
+                    .append(changeSeqs[seq]).append('\n');
+        }
+
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            // Reflective so the PostgreSQL driver stays a runtime-only dependency
+            Class<?> pgConnectionType = Class.forName("org.postgresql.PGConnection");
+            Object pgConnection = connection.unwrap(pgConnectionType);
+            Object copyManager = pgConnectionType.getMethod("getCopyAPI").invoke(pgConnection);
+            copyManager.getClass().getMethod("copyIn", String.class, Reader.class)
+                    .invoke(copyManager, COPY_STAGING_SQL, new StringReader(csv.toString()));
+        } catch (ReflectiveOperationException | SQLException e) {
+            throw new DataAccessResourceFailureException("COPY into machine_events_staging failed", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private static StringBuilder appendCsv(StringBuilder csv, String value) {
+        // Unquoted empty means NULL in COPY csv; quoted values keep commas and quotes intact
+        if (value == null) {
+            return csv;
+        }
+        return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static OffsetDateTime toOffset(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+
+    private static class ShardMerge {
+        private final int rows;
+        private final List<Long> ids = new ArrayList<>();
+        private final List<BatchCommittedEvent.Change> changes = new ArrayList<>();
+
+        private ShardMerge(int rows) {
+            this.rows = rows;
+        }
+    }
+
+    private static class Inserted {
+        private final int shard;
+        private final long id;
+        private EventCopyLocator.Copy replaced;
+        private boolean superseded;
+
+        private Inserted(int shard, long id) {
+            this.shard = shard;
+            this.id = id;
+        }
+    }
+}
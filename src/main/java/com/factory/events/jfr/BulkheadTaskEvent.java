@@ -0,0 +1,36 @@
+package com.factory.events.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A task run (or shed) by a bulkhead worker. Its duration is the run time; the queue wait is a field.
+ */
+@Name("com.factory.events.BulkheadTask")
+@Label("Bulkhead Task")
+@Category({"Factory Events", "Bulkhead"})
+@StackTrace(false)
+public class BulkheadTaskEvent extends Event {
+
+    @Label("Workload")
+    private String workload;
+
+    @Label("Tenant")
+    private String tenant;
+
+    @Label("Queue Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    private long queueWait;
+
+    @Label("Outcome")
+    private String outcome;
+
+    public void setWorkload(String workload) { this.workload = workload; }
+    public void setTenant(String tenant) { this.tenant = tenant; }
+    public void setQueueWait(long queueWait) { this.queueWait = queueWait; }
+    public void setOutcome(String outcome) { this.outcome = outcome; }
+}
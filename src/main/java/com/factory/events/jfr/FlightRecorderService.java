@@ -0,0 +1,130 @@
+package com.factory.events.jfr;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a continuous in-process flight recording, bounded by age and size, with the JDK "default"
+ * settings plus {@code jfr/factory-events.jfc}, and dumps it to a file on demand.
+ */
+@Component
+public class FlightRecorderService {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecorderService.class);
+
+    static final String SETTINGS_RESOURCE = "jfr/factory-events.jfc";
+
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final long maxSizeBytes;
+    private final Path dumpDir;
+    private final AtomicLong dumps = new AtomicLong();
+    private volatile Recording recording;
+
+    public FlightRecorderService(@Value("${events.jfr.enabled:true}") boolean enabled,
+                                 @Value("${events.jfr.max-age-minutes:30}") long maxAgeMinutes,
+                                 @Value("${events.jfr.max-size-mb:100}") long maxSizeMb,
+                                 @Value("${events.jfr.dump-dir:}") String dumpDir) {
+        this.enabled = enabled;
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        this.dumpDir = dumpDir.isBlank() ? Path.of(System.getProperty("java.io.tmpdir")) : Path.of(dumpDir);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!FlightRecorder.isAvailable()) {
+            log.warn("Flight Recorder is not available in this JVM; continuous recording disabled");
+            return;
+        }
+        Recording continuous = new Recording(settings());
+        continuous.setName("factory-events-continuous");
+        continuous.setToDisk(true);
+        continuous.setMaxAge(maxAge);
+        continuous.setMaxSize(maxSizeBytes);
+        continuous.start();
+        recording = continuous;
+        log.info("Continuous flight recording started (max age {}, max size {} MB)",
+                maxAge, maxSizeBytes / (1024 * 1024));
+    }
+
+    public boolean isRecording() {
+        return recording != null;
+    }
+
+    /**
+     * Writes everything the recording currently holds to a new file in the dump directory.
+     * The caller owns the file and should delete it once it has been read.
+     */
+    public Path dump() {
+        Recording current = recording;
+        if (current == null) {
+            throw new IllegalStateException("Continuous recording is not running");
+        }
+        try {
+            Files.createDirectories(dumpDir);
+            Path file = Files.createTempFile(dumpDir, "factory-events-", ".jfr");
+            current.dump(file);
+            dumps.incrementAndGet();
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not dump flight recording", e);
+        }
+    }
+
+    public Map<String, Long> snapshot() {
+        Recording current = recording;
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        snapshot.put("recording", current != null ? 1L : 0L);
+        snapshot.put("sizeBytes", current != null ? current.getSize() : 0L);
+        snapshot.put("maxAgeSeconds", maxAge.getSeconds());
+        snapshot.put("maxSizeBytes", maxSizeBytes);
+        snapshot.put("dumps", dumps.get());
+        return snapshot;
+    }
+
+    @PreDestroy
+    public void stop() {
+        Recording current = recording;
+        recording = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    static Map<String, String> settings() {
+        try (Reader reader = new InputStreamReader(
+                FlightRecorderService.class.getClassLoader().getResourceAsStream(SETTINGS_RESOURCE),
+                StandardCharsets.UTF_8)) {
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+            settings.putAll(Configuration.create(reader).getSettings());
+            return settings;
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Could not load " + SETTINGS_RESOURCE, e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.factory.events.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One {@code EventService.ingestBatch} call. Its duration covers validation through the last
+ * shard commit; per-shard detail is in {@link IngestShardEvent}.
+ */
+@Name("com.factory.events.IngestBatch")
+@Label("Ingest Batch")
+@Category({"Factory Events", "Ingest"})
+@StackTrace(false)
+public class IngestBatchEvent extends Event {
+
+    @Label("Batch Size")
+    private int batchSize;
+
+    @Label("Rejected")
+    private int rejected;
+
+    @Label("Accepted")
+    private int accepted;
+
+    @Label("Updated")
+    private int updated;
+
+    @Label("Deduped")
+    private int deduped;
+
+    @Label("Shards")
+    private int shards;
+
+    @Label("Preprocess Time")
+    @Description("Validation and payload hashing")
+    @Timespan(Timespan.NANOSECONDS)
+    private long preprocessTime;
+
+    @Label("Write Time")
+    @Description("All shard transactions, which run in parallel")
+    @Timespan(Timespan.NANOSECONDS)
+    private long writeTime;
+
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    public void setRejected(int rejected) { this.rejected = rejected; }
+    public void setAccepted(int accepted) { this.accepted = accepted; }
+    public void setUpdated(int updated) { this.updated = updated; }
+    public void setDeduped(int deduped) { this.deduped = deduped; }
+    public void setShards(int shards) { this.shards = shards; }
+    public void setPreprocessTime(long preprocessTime) { this.preprocessTime = preprocessTime; }
+    public void setWriteTime(long writeTime) { this.writeTime = writeTime; }
+}
@@ -0,0 +1,66 @@
+package com.factory.events.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The part of an ingest batch written to one shard, in one transaction.
+ */
+@Name("com.factory.events.IngestShard")
+@Label("Ingest Shard Write")
+@Category({"Factory Events", "Ingest"})
+@StackTrace(false)
+public class IngestShardEvent extends Event {
+
+    @Label("Shard")
+    private int shard;
+
+    @Label("Events")
+    private int events;
+
+    @Label("Saved Rows")
+    private int saved;
+
+    @Label("Lookup Time")
+    @Description("Loading existing rows by eventId")
+    @Timespan(Timespan.NANOSECONDS)
+    private long lookupTime;
+
+    @Label("Merge Time")
+    @Description("Comparing the batch with existing rows")
+    @Timespan(Timespan.NANOSECONDS)
+    private long mergeTime;
+
+    @Label("Sequence Time")
+    @Description("Allocating change_seq values")
+    @Timespan(Timespan.NANOSECONDS)
+    private long sequenceTime;
+
+    @Label("Save Time")
+    @Timespan(Timespan.NANOSECONDS)
+    private long saveTime;
+
+    @Label("Transaction Overhead")
+    @Description("Connection pool wait, flush and commit: the transaction's time outside the phases above")
+    @Timespan(Timespan.NANOSECONDS)
+    private long transactionOverhead;
+
+    public void setShard(int shard) { this.shard = shard; }
+    public void setEvents(int events) { this.events = events; }
+    public void setSaved(int saved) { this.saved = saved; }
+    public void setLookupTime(long lookupTime) { this.lookupTime = lookupTime; }
+    public void setMergeTime(long mergeTime) { this.mergeTime = mergeTime; }
+    public void setSequenceTime(long sequenceTime) { this.sequenceTime = sequenceTime; }
+    public void setSaveTime(long saveTime) { this.saveTime = saveTime; }
+    public void setTransactionOverhead(long transactionOverhead) { this.transactionOverhead = transactionOverhead; }
+
+    public long getLookupTime() { return lookupTime; }
+    public long getMergeTime() { return mergeTime; }
+    public long getSequenceTime() { return sequenceTime; }
+    public long getSaveTime() { return saveTime; }
+}
@@ -0,0 +1,49 @@
+package com.factory.events.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One stats, percentile or change-feed query, across all shards it touched.
+ */
+@Name("com.factory.events.StatsQuery")
+@Label("Stats Query")
+@Category({"Factory Events", "Query"})
+@StackTrace(false)
+public class StatsQueryEvent extends Event {
+
+    @Label("Query")
+    private String query;
+
+    @Label("Machine Id")
+    private String machineId;
+
+    @Label("Line Id")
+    private String lineId;
+
+    @Label("Factory Id")
+    private String factoryId;
+
+    @Label("Window Seconds")
+    private long windowSeconds;
+
+    @Label("Shards")
+    private int shards;
+
+    @Label("Result Size")
+    private long resultSize;
+
+    public StatsQueryEvent(String query) {
+        this.query = query;
+    }
+
+    public void setMachineId(String machineId) { this.machineId = machineId; }
+    public void setLineId(String lineId) { this.lineId = lineId; }
+    public void setFactoryId(String factoryId) { this.factoryId = factoryId; }
+    public void setWindowSeconds(long windowSeconds) { this.windowSeconds = windowSeconds; }
+    public void setShards(int shards) { this.shards = shards; }
+    public void setResultSize(long resultSize) { this.resultSize = resultSize; }
+}
@@ -0,0 +1,270 @@
+package com.factory.events.live;
+
+import com.factory.events.dto.StatsResponse;
+import com.factory.events.dto.StatusChangeEvent;
+import com.factory.events.health.HealthEvaluationEngine;
+import com.factory.events.health.HealthListener;
+import com.factory.events.health.HealthProperties;
+import com.factory.events.health.MachineHealth;
+import com.factory.events.repository.MachineEventRepository;
+import com.factory.events.service.InvalidRequestException;
+import com.factory.events.shard.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes rolling machine stats to SSE subscribers. The numbers come from the in-memory windows of
+ * {@link HealthEvaluationEngine}; this class only tracks which subscriptions care about which machine
+ * and makes sure each receives at most one update per machine per push interval.
+ *
+ * Idle subscriptions cost an emitter and two small sets.
+ */
+@Component
+public class LiveStatsService implements HealthListener {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveStatsService.class);
+
+    private final MachineEventRepository repository;
+    private final HealthEvaluationEngine healthEngine;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int factoryLookbackMinutes;
+    private final long emitterTimeoutMs;
+
+    private final Map<Long, LiveSubscription> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, Set<LiveSubscription>> byMachine = new ConcurrentHashMap<>();
+    private final Map<String, Set<LiveSubscription>> byFactory = new ConcurrentHashMap<>();
+    private final AtomicLong subscriptionIds = new AtomicLong();
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService pushExecutor;
+    private volatile long lastPushMinute;
+
+    private final AtomicLong pushed = new AtomicLong();
+    private final AtomicLong statusChanges = new AtomicLong();
+
+    public LiveStatsService(MachineEventRepository repository,
+                            HealthEvaluationEngine healthEngine,
+                            HealthProperties healthProperties,
+                            PlatformTransactionManager transactionManager,
+                            ShardRouter shardRouter,
+                            @Value("${events.live.push-interval-ms:1000}") long pushIntervalMs,
+                            @Value("${events.live.heartbeat-interval-ms:15000}") long heartbeatIntervalMs,
+                            @Value("${events.live.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                            @Value("${events.live.push-threads:2}") int pushThreads) {
+        this.repository = repository;
+        this.healthEngine = healthEngine;
+        this.shardRouter = shardRouter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.factoryLookbackMinutes = healthProperties.getDefaults().getWindowMinutes();
+        this.emitterTimeoutMs = emitterTimeoutMs;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "live-stats-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicLong pushThreadIds = new AtomicLong();
+        this.pushExecutor = Executors.newFixedThreadPool(pushThreads, runnable -> {
+            Thread thread = new Thread(runnable, "live-stats-push-" + pushThreadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::pushUpdates, pushIntervalMs, pushIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::sendHeartbeats,
+                heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe(Set<String> machineIds, Set<String> factoryIds) {
+        if (machineIds.isEmpty() && factoryIds.isEmpty()) {
+            throw new InvalidRequestException("Subscribe to at least one machineId or factoryId");
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        LiveSubscription subscription = new LiveSubscription(
+                subscriptionIds.incrementAndGet(), emitter, machineIds, factoryIds);
+        emitter.onCompletion(() -> unsubscribe(subscription));
+        emitter.onTimeout(() -> unsubscribe(subscription));
+        emitter.onError(error -> unsubscribe(subscription));
+
+        subscriptions.put(subscription.getId(), subscription);
+        for (String machineId : machineIds) {
+            addToIndex(byMachine, machineId, subscription);
+            healthEngine.track(machineId);
+            subscription.markDirty(machineId);
+        }
+        for (String factoryId : factoryIds) {
+            addToIndex(byFactory, factoryId, subscription);
+            pushExecutor.execute(() -> trackFactory(factoryId));
+        }
+        return emitter;
+    }
+
+    @Override
+    public void onUpdated(String machineId, String factoryId) {
+        if (!subscriptions.isEmpty()) {
+            markDirty(machineId, factoryId);
+        }
+    }
+
+    public Map<String, Long> snapshot() {
+        return Map.of(
+                "subscriptions", (long) subscriptions.size(),
+                "pushed", pushed.get(),
+                "statusChanges", statusChanges.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        pushExecutor.shutdownNow();
+        for (LiveSubscription subscription : subscriptions.values()) {
+            subscription.getEmitter().complete();
+        }
+    }
+
+    private void trackFactory(String factoryId) {
+        Instant from = Instant.now().minus(Duration.ofMinutes(factoryLookbackMinutes));
+        try {
+            List<List<String>> perShard = shardRouter.onShards(shardRouter.shardsFor(factoryId, null),
+                    shard -> readOnlyTransaction.execute(
+                            status -> repository.findMachineIdsByFactorySince(factoryId, from)));
+            for (List<String> machineIds : perShard) {
+                machineIds.forEach(healthEngine::track);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not load machines of factory {} for live stats: {}", factoryId, e.getMessage());
+        }
+    }
+
+    private void markDirty(String machineId, String factoryId) {
+        Set<LiveSubscription> machineSubscribers = byMachine.get(machineId);
+        if (machineSubscribers != null) {
+            machineSubscribers.forEach(subscription -> subscription.markDirty(machineId));
+        }
+        if (factoryId != null) {
+            Set<LiveSubscription> factorySubscribers = byFactory.get(factoryId);
+            if (factorySubscribers != null) {
+                factorySubscribers.forEach(subscription -> subscription.markDirty(machineId));
+            }
+        }
+    }
+
+    // Package-private so tests can drive a push without waiting for the scheduler
+    void pushUpdates() {
+        try {
+            long minute = Math.floorDiv(Instant.now().getEpochSecond(), 60);
+            if (minute != lastPushMinute) {
+                // The window slid, so every watched machine's rate may have changed without new events
+                lastPushMinute = minute;
+                healthEngine.forEachTracked(this::markDirty);
+            }
+            for (LiveSubscription subscription : subscriptions.values()) {
+                if (subscription.tryStartFlush()) {
+                    pushExecutor.execute(() -> flush(subscription));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Live stats push failed", e);
+        }
+    }
+
+    private void flush(LiveSubscription subscription) {
+        try {
+            for (String machineId : List.copyOf(subscription.getDirtyMachines())) {
+                MachineHealth health = healthEngine.getHealth(machineId);
+                if (health == null) {
+                    // Evicted as idle or still seeding; the engine reports back through onUpdated
+                    healthEngine.track(machineId);
+                    continue;
+                }
+                subscription.getDirtyMachines().remove(machineId);
+
+                String status = health.getStatus();
+                double avgDefectRate = health.getAvgDefectRate();
+                StatsResponse response = new StatsResponse(machineId, health.getStart(), health.getEnd(),
+                        health.getEventsCount(), health.getDefectsCount(), avgDefectRate, status);
+                subscription.getEmitter().send(SseEmitter.event().name("stats").data(response));
+                pushed.incrementAndGet();
+
+                String previousStatus = subscription.swapStatus(machineId, status);
+                if (previousStatus != null && !previousStatus.equals(status)) {
+                    subscription.getEmitter().send(SseEmitter.event().name("status")
+                            .data(new StatusChangeEvent(machineId, previousStatus, status, avgDefectRate, health.getEnd())));
+                    statusChanges.incrementAndGet();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the emitter callbacks may not fire for a half-closed connection
+            subscription.getEmitter().completeWithError(e);
+            unsubscribe(subscription);
+        } finally {
+            subscription.endFlush();
+        }
+    }
+
+    void sendHeartbeats() {
+        for (LiveSubscription subscription : subscriptions.values()) {
+            pushExecutor.execute(() -> {
+                try {
+                    subscription.getEmitter().send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException e) {
+                    subscription.getEmitter().completeWithError(e);
+                    unsubscribe(subscription);
+                }
+            });
+        }
+    }
+
+    private void unsubscribe(LiveSubscription subscription) {
+        if (subscription.isClosed()) {
+            return;
+        }
+        subscription.close();
+        subscriptions.remove(subscription.getId());
+        for (String machineId : subscription.getMachineIds()) {
+            removeFromIndex(byMachine, machineId, subscription);
+        }
+        for (String factoryId : subscription.getFactoryIds()) {
+            removeFromIndex(byFactory, factoryId, subscription);
+        }
+    }
+
+    private static void addToIndex(Map<String, Set<LiveSubscription>> index, String key,
+                                   LiveSubscription subscription) {
+        // compute() rather than computeIfAbsent().add() so a concurrent removal cannot drop the set under us
+        index.compute(key, (k, subscribers) -> {
+            Set<LiveSubscription> set = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            set.add(subscription);
+            return set;
+        });
+    }
+
+    private static void removeFromIndex(Map<String, Set<LiveSubscription>> index, String key,
+                                        LiveSubscription subscription) {
+        index.computeIfPresent(key, (k, subscribers) -> {
+            subscribers.remove(subscription);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package com.factory.events.live;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One SSE client. Between pushes it only collects the ids of machines whose stats changed, so a
+ * burst of batches for the same machine becomes a single update.
+ */
+class LiveSubscription {
+
+    private final long id;
+    private final SseEmitter emitter;
+    private final Set<String> machineIds;
+    private final Set<String> factoryIds;
+
+    private final Set<String> dirtyMachines = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> lastStatus = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private volatile boolean closed;
+
+    LiveSubscription(long id, SseEmitter emitter, Set<String> machineIds, Set<String> factoryIds) {
+        this.id = id;
+        this.emitter = emitter;
+        this.machineIds = machineIds;
+        this.factoryIds = factoryIds;
+    }
+
+    long getId() { return id; }
+    SseEmitter getEmitter() { return emitter; }
+    Set<String> getMachineIds() { return machineIds; }
+    Set<String> getFactoryIds() { return factoryIds; }
+    Set<String> getDirtyMachines() { return dirtyMachines; }
+
+    boolean isClosed() { return closed; }
+    void close() { closed = true; }
+
+    void markDirty(String machineId) {
+        dirtyMachines.add(machineId);
+    }
+
+    boolean tryStartFlush() {
+        return !closed && !dirtyMachines.isEmpty() && flushing.compareAndSet(false, true);
+    }
+
+    void endFlush() {
+        flushing.set(false);
+    }
+
+    /**
+     * @return the status last pushed for the machine, or null on the first push
+     */
+    String swapStatus(String machineId, String status) {
+        return lastStatus.put(machineId, status);
+    }
+}
@@ -8,7 +8,10 @@ import java.util.Objects;
 @Table(name = "machine_events", indexes = {
         @Index(name = "idx_event_id", columnList = "eventId", unique = true),
         @Index(name = "idx_machine_time", columnList = "machineId,eventTime"),
-        @Index(name = "idx_line_time", columnList = "lineId,eventTime")
+        @Index(name = "idx_line_time", columnList = "lineId,eventTime"),
+        @Index(name = "idx_change_seq", columnList = "changeSeq"),
+        @Index(name = "idx_machine_change", columnList = "machineId,changeSeq"),
+        @Index(name = "idx_factory_change", columnList = "factoryId,changeSeq")
 })
 public class MachineEvent {
 
@@ -47,6 +50,10 @@ public class MachineEvent {
     @Column(nullable = false)
     private String payloadHash;
 
+    // Position in the change feed; reassigned every time the row is inserted or updated
+    @Column
+    private Long changeSeq;
+
     
     public MachineEvent() {}
 
@@ -98,6 +105,9 @@ public class MachineEvent {
     public String getPayloadHash() { return payloadHash; }
     public void setPayloadHash(String payloadHash) { this.payloadHash = payloadHash; }
 
+    public Long getChangeSeq() { return changeSeq; }
+    public void setChangeSeq(Long changeSeq) { this.changeSeq = changeSeq; }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,150 @@
+package com.factory.events.ratelimit;
+
+import com.factory.events.dto.EventDTO;
+import com.factory.events.service.InvalidRequestException;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token-bucket admission for {@code /api/events/batch}, one bucket per tenant, charged one token per
+ * event. Buckets and counters are lock-free so the check adds no contention between tenants.
+ */
+@Component
+public class IngestRateLimiter {
+
+    static final String DEFAULT_TENANT = "default";
+    // Shared by tenants beyond maxTenants so unbounded ids cannot grow the map
+    static final String OVERFLOW_TENANT = "_overflow";
+
+    private final RateLimitProperties properties;
+    private final Map<String, TenantState> tenants = new ConcurrentHashMap<>();
+
+    public IngestRateLimiter(RateLimitProperties properties) {
+        this.properties = properties;
+    }
+
+    private static class TenantState {
+        private final TokenBucket bucket;
+        private final int weight;
+        private final LongAdder acceptedRequests = new LongAdder();
+        private final LongAdder acceptedEvents = new LongAdder();
+        private final LongAdder throttledRequests = new LongAdder();
+        private final LongAdder throttledEvents = new LongAdder();
+
+        TenantState(TokenBucket bucket, int weight) {
+            this.bucket = bucket;
+            this.weight = weight;
+        }
+    }
+
+    public String getTenantHeader() {
+        return properties.getTenantHeader();
+    }
+
+    /**
+     * @return the header value if present, else the batch's factoryId, else "default"
+     * @throws InvalidRequestException when there is no header and the batch mixes factoryIds, since
+     *         charging it all to one of them would spend the others' quota on its bucket
+     */
+    public String resolveTenant(String headerValue, List<EventDTO> events) {
+        if (headerValue != null && !headerValue.isBlank()) {
+            return headerValue.trim();
+        }
+        String factoryId = null;
+        for (EventDTO event : events) {
+            if (event == null || event.getFactoryId() == null || event.getFactoryId().isBlank()) {
+                continue;
+            }
+            if (factoryId == null) {
+                factoryId = event.getFactoryId();
+            } else if (!factoryId.equals(event.getFactoryId())) {
+                throw new InvalidRequestException("A batch with more than one factoryId needs the "
+                        + properties.getTenantHeader() + " header");
+            }
+        }
+        return factoryId != null ? factoryId : DEFAULT_TENANT;
+    }
+
+    /**
+     * Takes one token per event from the tenant's bucket.
+     *
+     * @throws RateLimitedException when the tenant is over its quota
+     */
+    public void acquire(String tenant, int events) {
+        TenantState state = state(tenant);
+        if (properties.isEnabled() && events > 0) {
+            long waitNanos = state.bucket.tryAcquire(events, System.nanoTime());
+            if (waitNanos > 0) {
+                state.throttledRequests.increment();
+                state.throttledEvents.add(events);
+                long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+                throw new RateLimitedException(tenant,
+                        "Ingest quota exceeded for " + tenant + "; retry later", retryAfterSeconds);
+            }
+        }
+        state.acceptedRequests.increment();
+        state.acceptedEvents.add(events);
+    }
+
+    /**
+     * Returns the tokens of an acquired batch that was not ingested after all, e.g. refused by the bulkhead.
+     */
+    public void release(String tenant, int events) {
+        TenantState state = state(tenant);
+        if (properties.isEnabled() && events > 0) {
+            state.bucket.refund(events);
+        }
+        state.acceptedRequests.decrement();
+        state.acceptedEvents.add(-events);
+    }
+
+    /**
+     * @return the tenant's share of the ingest workers relative to other tenants
+     */
+    public int weightOf(String tenant) {
+        return state(tenant).weight;
+    }
+
+    public Map<String, Map<String, Long>> snapshot() {
+        long now = System.nanoTime();
+        Map<String, Map<String, Long>> snapshot = new TreeMap<>();
+        tenants.forEach((tenant, state) -> {
+            Map<String, Long> metrics = new LinkedHashMap<>();
+            metrics.put("acceptedRequests", state.acceptedRequests.sum());
+            metrics.put("acceptedEvents", state.acceptedEvents.sum());
+            metrics.put("throttledRequests", state.throttledRequests.sum());
+            metrics.put("throttledEvents", state.throttledEvents.sum());
+            metrics.put("availableTokens", state.bucket.available(now));
+            metrics.put("weight", (long) state.weight);
+            snapshot.put(tenant, metrics);
+        });
+        return snapshot;
+    }
+
+    private TenantState state(String tenant) {
+        TenantState state = tenants.get(tenant);
+        if (state != null) {
+            return state;
+        }
+        if (tenants.size() >= properties.getMaxTenants() && !properties.getTenants().containsKey(tenant)) {
+            tenant = OVERFLOW_TENANT;
+        }
+        return tenants.computeIfAbsent(tenant, this::newState);
+    }
+
+    private TenantState newState(String tenant) {
+        RateLimitProperties.Quota defaults = properties.getDefaults();
+        RateLimitProperties.Quota quota = properties.getTenants().get(tenant);
+        double rate = quota != null && quota.getEventsPerSecond() > 0 ? quota.getEventsPerSecond() : defaults.getEventsPerSecond();
+        long burst = quota != null && quota.getBurstEvents() > 0 ? quota.getBurstEvents() : defaults.getBurstEvents();
+        int weight = quota != null && quota.getWeight() > 0 ? quota.getWeight() : defaults.getWeight();
+        return new TenantState(new TokenBucket(rate, burst, System.nanoTime()), Math.max(1, weight));
+    }
+}
@@ -0,0 +1,62 @@
+package com.factory.events.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-tenant ingest quotas. A tenant is the value of {@code tenantHeader} when the caller sends it
+ * (e.g. a gateway id), otherwise the factoryId of the batch. Fields left at 0 in a
+ * {@code tenants[...]} entry fall back to {@code defaults}.
+ */
+@Component
+@ConfigurationProperties("events.ratelimit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private String tenantHeader = "X-Tenant-Id";
+    private int maxTenants = 10000;
+    private Quota defaults = new Quota(5000, 20000, 1);
+    private Map<String, Quota> tenants = new HashMap<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public String getTenantHeader() { return tenantHeader; }
+    public void setTenantHeader(String tenantHeader) { this.tenantHeader = tenantHeader; }
+
+    public int getMaxTenants() { return maxTenants; }
+    public void setMaxTenants(int maxTenants) { this.maxTenants = maxTenants; }
+
+    public Quota getDefaults() { return defaults; }
+    public void setDefaults(Quota defaults) { this.defaults = defaults; }
+
+    public Map<String, Quota> getTenants() { return tenants; }
+    public void setTenants(Map<String, Quota> tenants) { this.tenants = tenants; }
+
+    public static class Quota {
+        private double eventsPerSecond;
+        private long burstEvents;
+        private int weight;
+
+        public Quota() {
+        }
+
+        public Quota(double eventsPerSecond, long burstEvents, int weight) {
+            this.eventsPerSecond = eventsPerSecond;
+            this.burstEvents = burstEvents;
+            this.weight = weight;
+        }
+
+        public double getEventsPerSecond() { return eventsPerSecond; }
+        public void setEventsPerSecond(double eventsPerSecond) { this.eventsPerSecond = eventsPerSecond; }
+
+        public long getBurstEvents() { return burstEvents; }
+        public void setBurstEvents(long burstEvents) { this.burstEvents = burstEvents; }
+
+        public int getWeight() { return weight; }
+        public void setWeight(int weight) { this.weight = weight; }
+    }
+}
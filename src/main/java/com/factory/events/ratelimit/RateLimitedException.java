@@ -0,0 +1,17 @@
+package com.factory.events.ratelimit;
+
+public class RateLimitedException extends RuntimeException {
+
+    private final String tenant;
+    private final long retryAfterSeconds;
+
+    public RateLimitedException(String tenant, String message, long retryAfterSeconds) {
+        super(message);
+        this.tenant = tenant;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getTenant() { return tenant; }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
@@ -0,0 +1,60 @@
+package com.factory.events.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, kept as a single "theoretical arrival time" (GCRA): the instant at which
+ * the bucket would be full again. Taking n tokens pushes that instant n emission intervals into the
+ * future; the request is allowed while it stays within {@code burst} intervals of now.
+ */
+class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(double tokensPerSecond, long burst, long nowNanos) {
+        if (tokensPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / tokensPerSecond));
+        this.toleranceNanos = burst * intervalNanos;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @return 0 when the tokens were taken, otherwise how many nanoseconds until they would be available.
+     *         A request larger than the burst is only granted from a full bucket.
+     */
+    long tryAcquire(long tokens, long nowNanos) {
+        long cost = tokens * intervalNanos;
+        while (true) {
+            long current = theoreticalArrival.get();
+            long base = Math.max(current, nowNanos);
+            long wait = cost > toleranceNanos
+                    ? current - nowNanos
+                    : base + cost - toleranceNanos - nowNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, base + cost)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back tokens taken for work that was then refused elsewhere.
+     */
+    void refund(long tokens) {
+        theoreticalArrival.addAndGet(-tokens * intervalNanos);
+    }
+
+    /**
+     * @return tokens currently available, for metrics
+     */
+    long available(long nowNanos) {
+        long debt = Math.max(0, theoreticalArrival.get() - nowNanos);
+        return Math.max(0, (toleranceNanos - debt) / intervalNanos);
+    }
+}
@@ -1,8 +1,12 @@
 package com.factory.events.repository;
 
+import com.factory.events.dto.ChangeFeedEvent;
 import com.factory.events.model.MachineEvent;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -18,6 +22,10 @@ public interface MachineEventRepository extends JpaRepository<MachineEvent, Long
     
     List<MachineEvent> findByEventIdIn(List<String> eventIds);
 
+    @Query("SELECT e.eventId, e.id, e.receivedTime, e.machineId, e.lineId, e.factoryId, e.eventTime, " +
+            "e.durationMs, e.defectCount FROM MachineEvent e WHERE e.eventId IN :eventIds")
+    List<Object[]> findCopiesByEventIdIn(@Param("eventIds") List<String> eventIds);
+
     @Query("SELECT COUNT(e) FROM MachineEvent e WHERE e.machineId = :machineId " +
             "AND e.eventTime >= :start AND e.eventTime < :end")
     long countEventsByMachineAndTimeRange(
@@ -35,6 +43,16 @@ public interface MachineEventRepository extends JpaRepository<MachineEvent, Long
             @Param("end") Instant end
     );
 
+    @Query("SELECT e.lineId, e.eventTime FROM MachineEvent e WHERE e.machineId = :machineId " +
+            "AND e.eventTime >= :start AND e.eventTime < :end AND e.lineId IS NOT NULL " +
+            "ORDER BY e.eventTime DESC")
+    List<Object[]> findLatestLineByMachineAndTimeRange(
+            @Param("machineId") String machineId,
+            @Param("start") Instant start,
+            @Param("end") Instant end,
+            Pageable page
+    );
+
     @Query("SELECT e.lineId as lineId, " +
             "COALESCE(SUM(CASE WHEN e.defectCount >= 0 THEN e.defectCount ELSE 0 END), 0) as totalDefects, " +
             "COUNT(e) as eventCount " +
@@ -48,4 +66,69 @@ public interface MachineEventRepository extends JpaRepository<MachineEvent, Long
             @Param("from") Instant from,
             @Param("to") Instant to
     );
-}
\ No newline at end of file
+
+    @Query("SELECT e.eventId, e.changeSeq, e.eventTime, e.defectCount FROM MachineEvent e " +
+            "WHERE e.machineId = :machineId AND e.eventTime >= :from")
+    List<Object[]> findRecentDefectRows(
+            @Param("machineId") String machineId,
+            @Param("from") Instant from
+    );
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT e.eventId, e.changeSeq, e.durationMs FROM MachineEvent e " +
+            "WHERE e.machineId = :machineId AND e.eventTime >= :from AND e.eventTime < :to")
+    List<Object[]> findDurationRowsByMachine(
+            @Param("machineId") String machineId,
+            @Param("from") Instant from,
+            @Param("to") Instant to
+    );
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT e.eventId, e.changeSeq, e.durationMs FROM MachineEvent e " +
+            "WHERE e.lineId = :lineId AND e.eventTime >= :from AND e.eventTime < :to")
+    List<Object[]> findDurationRowsByLine(
+            @Param("lineId") String lineId,
+            @Param("from") Instant from,
+            @Param("to") Instant to
+    );
+
+    @Query("SELECT DISTINCT e.machineId FROM MachineEvent e WHERE e.factoryId = :factoryId AND e.eventTime >= :from")
+    List<String> findMachineIdsByFactorySince(
+            @Param("factoryId") String factoryId,
+            @Param("from") Instant from
+    );
+
+    // Change feed: keyset on changeSeq, projected straight into DTOs so nothing enters the persistence context
+    String CHANGE_FEED_SELECT = "SELECT new com.factory.events.dto.ChangeFeedEvent(e.changeSeq, e.eventId, " +
+            "e.eventTime, e.receivedTime, e.machineId, e.durationMs, e.defectCount, e.lineId, e.factoryId) " +
+            "FROM MachineEvent e ";
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query(CHANGE_FEED_SELECT +
+            "WHERE e.changeSeq > :after AND e.changeSeq <= :upTo ORDER BY e.changeSeq")
+    List<ChangeFeedEvent> findChanges(
+            @Param("after") long after,
+            @Param("upTo") long upTo,
+            Pageable page
+    );
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query(CHANGE_FEED_SELECT +
+            "WHERE e.machineId = :machineId AND e.changeSeq > :after AND e.changeSeq <= :upTo ORDER BY e.changeSeq")
+    List<ChangeFeedEvent> findChangesByMachine(
+            @Param("machineId") String machineId,
+            @Param("after") long after,
+            @Param("upTo") long upTo,
+            Pageable page
+    );
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query(CHANGE_FEED_SELECT +
+            "WHERE e.factoryId = :factoryId AND e.changeSeq > :after AND e.changeSeq <= :upTo ORDER BY e.changeSeq")
+    List<ChangeFeedEvent> findChangesByFactory(
+            @Param("factoryId") String factoryId,
+            @Param("after") long after,
+            @Param("upTo") long upTo,
+            Pageable page
+    );
+}
@@ -0,0 +1,231 @@
+package com.factory.events.schema;
+
+import com.factory.events.config.DataSourceRoute;
+import com.factory.events.shard.ShardDataSources;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies {@code db/migration/V<n>__<description>.sql} scripts in version order to every shard,
+ * recording each in a schema_version table. When a shard already has every version, startup costs
+ * one query against it and nothing is executed. Replaces Hibernate's ddl-auto, which inspected the
+ * whole schema at every start and only ever saw shard 0.
+ *
+ * Runs before the EntityManagerFactory (see {@link SchemaMigrationConfig}). Applied scripts must never
+ * be edited: a checksum mismatch fails startup. Several nodes starting at once are safe because a
+ * version row can only be inserted once; the loser rolls back and checks that the winner applied the
+ * same script.
+ */
+@Component
+public class SchemaMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    static final String LOCATION = "classpath*:db/migration/V*__*.sql";
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS schema_version ("
+            + "version INTEGER PRIMARY KEY, "
+            + "description VARCHAR(255) NOT NULL, "
+            + "checksum VARCHAR(64) NOT NULL, "
+            + "installed_at TIMESTAMP WITH TIME ZONE NOT NULL)";
+    private static final String SELECT_SQL = "SELECT version, checksum FROM schema_version";
+    private static final String INSERT_SQL =
+            "INSERT INTO schema_version (version, description, checksum, installed_at) VALUES (?, ?, ?, ?)";
+
+    private final ShardDataSources shardDataSources;
+    private final List<Migration> migrations;
+
+    private volatile long applied;
+    private volatile long upToDateShards;
+    private volatile long durationMs;
+
+    static class Migration {
+        private final int version;
+        private final String description;
+        private final String checksum;
+        private final Resource resource;
+
+        Migration(int version, String description, String checksum, Resource resource) {
+            this.version = version;
+            this.description = description;
+            this.checksum = checksum;
+            this.resource = resource;
+        }
+
+        int getVersion() { return version; }
+        String getDescription() { return description; }
+        String getChecksum() { return checksum; }
+    }
+
+    public SchemaMigrator(ShardDataSources shardDataSources) {
+        this.shardDataSources = shardDataSources;
+        this.migrations = load(LOCATION);
+    }
+
+    @PostConstruct
+    public void migrate() {
+        long started = System.nanoTime();
+        long appliedNow = 0;
+        long upToDate = 0;
+        for (int shard = 0; shard < shardDataSources.size(); shard++) {
+            int count = migrate(shard, shardDataSources.get(shard, DataSourceRoute.PRIMARY));
+            appliedNow += count;
+            if (count == 0) {
+                upToDate++;
+            }
+        }
+        applied += appliedNow;
+        upToDateShards = upToDate;
+        durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("Schema at V{} on {} shard(s): {} migration(s) applied, {} shard(s) already current, {} ms",
+                latestVersion(), shardDataSources.size(), appliedNow, upToDate, durationMs);
+    }
+
+    public int latestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        snapshot.put("latestVersion", (long) latestVersion());
+        snapshot.put("applied", applied);
+        snapshot.put("upToDateShards", upToDateShards);
+        snapshot.put("durationMs", durationMs);
+        return snapshot;
+    }
+
+    /**
+     * @return the number of migrations applied to this shard
+     */
+    private int migrate(int shard, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            Map<Integer, String> appliedVersions = appliedVersions(connection);
+            int count = 0;
+            for (Migration migration : migrations) {
+                String checksum = appliedVersions.get(migration.getVersion());
+                if (checksum == null) {
+                    apply(shard, connection, migration);
+                    count++;
+                } else if (!checksum.equals(migration.getChecksum())) {
+                    throw new IllegalStateException("V" + migration.getVersion() + " on shard " + shard
+                            + " was applied from a different script; migrations must not be edited once released");
+                }
+            }
+            return count;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Schema migration failed on shard " + shard, e);
+        }
+    }
+
+    private void apply(int shard, Connection connection, Migration migration) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            ScriptUtils.executeSqlScript(connection, migration.resource);
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+                insert.setInt(1, migration.getVersion());
+                insert.setString(2, migration.getDescription());
+                insert.setString(3, migration.getChecksum());
+                insert.setTimestamp(4, Timestamp.from(Instant.now()));
+                insert.executeUpdate();
+            }
+            connection.commit();
+            log.info("Applied V{} ({}) on shard {}", migration.getVersion(), migration.getDescription(), shard);
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+            // Another node may have applied it between our read and our insert
+            if (!migration.getChecksum().equals(appliedVersions(connection).get(migration.getVersion()))) {
+                throw e;
+            }
+            log.info("V{} was applied on shard {} by another node", migration.getVersion(), shard);
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static Map<Integer, String> appliedVersions(Connection connection) throws SQLException {
+        Map<Integer, String> applied = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement()) {
+            // Creating it only when the lookup fails keeps DDL off the common path
+            ResultSet rows;
+            try {
+                rows = statement.executeQuery(SELECT_SQL);
+            } catch (SQLException missing) {
+                statement.execute(CREATE_TABLE_SQL);
+                return applied;
+            }
+            try (rows) {
+                while (rows.next()) {
+                    applied.put(rows.getInt(1), rows.getString(2));
+                }
+            }
+        }
+        return applied;
+    }
+
+    static List<Migration> load(String location) {
+        try {
+            List<Migration> loaded = new ArrayList<>();
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(location)) {
+                Matcher name = FILE_NAME.matcher(resource.getFilename());
+                if (!name.matches()) {
+                    continue;
+                }
+                String script = new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                loaded.add(new Migration(Integer.parseInt(name.group(1)), name.group(2).replace('_', ' '),
+                        checksum(script), resource));
+            }
+            loaded.sort(Comparator.comparingInt(Migration::getVersion));
+            for (int i = 1; i < loaded.size(); i++) {
+                if (loaded.get(i).getVersion() == loaded.get(i - 1).getVersion()) {
+                    throw new IllegalStateException("Duplicate migration version V" + loaded.get(i).getVersion());
+                }
+            }
+            return loaded;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read migrations from " + location, e);
+        }
+    }
+
+    /**
+     * SHA-256 of the script with line endings normalized, so a checkout with CRLF does not look edited.
+     */
+    static String checksum(String script) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(
+                    script.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.factory.events.service;
+
+import com.factory.events.model.MachineEvent;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Published by {@link EventService#ingestBatch} for every batch, and by the bulk importer for every
+ * merged chunk, that inserted or updated rows.
+ * Listeners should use {@code @TransactionalEventListener} so they only see committed changes.
+ */
+public class BatchCommittedEvent {
+
+    private final List<Change> changes;
+
+    public BatchCommittedEvent(List<Change> changes) {
+        this.changes = changes;
+    }
+
+    public List<Change> getChanges() { return changes; }
+
+    /**
+     * One insert ({@code previous == null}) or update of a row, in the order it was applied.
+     */
+    public static class Change {
+        private final String eventId;
+        private final long changeSeq;
+        private final Values previous;
+        private final Values current;
+
+        public Change(String eventId, long changeSeq, Values previous, Values current) {
+            this.eventId = eventId;
+            this.changeSeq = changeSeq;
+            this.previous = previous;
+            this.current = current;
+        }
+
+        public String getEventId() { return eventId; }
+        public long getChangeSeq() { return changeSeq; }
+        public Values getPrevious() { return previous; }
+        public Values getCurrent() { return current; }
+    }
+
+    /**
+     * The stats-relevant columns of a row at one point in time.
+     */
+    public static class Values {
+        private final String machineId;
+        private final String lineId;
+        private final String factoryId;
+        private final Instant eventTime;
+        private final long durationMs;
+        private final int defectCount;
+
+        public Values(String machineId, String lineId, String factoryId,
+                      Instant eventTime, long durationMs, int defectCount) {
+            this.machineId = machineId;
+            this.lineId = lineId;
+            this.factoryId = factoryId;
+            this.eventTime = eventTime;
+            this.durationMs = durationMs;
+            this.defectCount = defectCount;
+        }
+
+        public static Values of(MachineEvent event) {
+            return new Values(event.getMachineId(), event.getLineId(), event.getFactoryId(),
+                    event.getEventTime(), event.getDurationMs(), event.getDefectCount());
+        }
+
+        public String getMachineId() { return machineId; }
+        public String getLineId() { return lineId; }
+        public String getFactoryId() { return factoryId; }
+        public Instant getEventTime() { return eventTime; }
+        public long getDurationMs() { return durationMs; }
+        public int getDefectCount() { return defectCount; }
+    }
+}
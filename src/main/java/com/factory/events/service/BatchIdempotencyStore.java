@@ -0,0 +1,195 @@
+package com.factory.events.service;
+
+import com.factory.events.dto.BatchIngestResponse;
+import com.factory.events.dto.EventDTO;
+import com.factory.events.dto.RejectionMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the result of each batch submitted with an Idempotency-Key so that gateway retries are
+ * answered from memory. A retry that arrives while the original is still running joins the in-flight
+ * result instead of ingesting the batch again. Failed batches are not remembered.
+ *
+ * Keys are scoped to the tenant, and each entry keeps a fingerprint of the batch and its rejection
+ * mode: reusing a key for a different request is refused rather than answered with the stored
+ * response of an unrelated batch.
+ */
+@Component
+public class BatchIdempotencyStore {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Entries, not keys: a key re-inserted after expiry must not leave its old position behind
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong mismatched = new AtomicLong();
+
+    public BatchIdempotencyStore(@Value("${events.idempotency.ttl-seconds:600}") long ttlSeconds,
+                                 @Value("${events.idempotency.max-entries:10000}") int maxEntries) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    private static class Entry {
+        private final String key;
+        private final String fingerprint;
+        private final CompletableFuture<BatchIngestResponse> result = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        Entry(String key, String fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+
+        boolean isExpired(long now) {
+            return result.isDone() && now - expiresAt > 0;
+        }
+    }
+
+    /**
+     * @param fingerprint identifies the request the key was first used for; see {@link #fingerprint}
+     * @throws IdempotencyKeyMismatchException if the tenant already used the key for a different request
+     */
+    public CompletableFuture<BatchIngestResponse> execute(String tenant, String idempotencyKey, String fingerprint,
+                                                          Supplier<CompletableFuture<BatchIngestResponse>> work) {
+        // Header values cannot contain a newline, so tenant and key cannot run into each other
+        String key = tenant + '\n' + idempotencyKey;
+        while (true) {
+            long now = System.nanoTime();
+            Entry fresh = new Entry(key, fingerprint);
+            Entry existing = entries.putIfAbsent(key, fresh);
+
+            if (existing == null) {
+                insertionOrder.add(fresh);
+                evictExpiredOrOverflow(now);
+                return run(key, fresh, work);
+            }
+            if (existing.isExpired(now)) {
+                entries.remove(key, existing);
+                continue;
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                mismatched.incrementAndGet();
+                throw new IdempotencyKeyMismatchException(idempotencyKey,
+                        "Idempotency-Key " + idempotencyKey + " was already used for a different batch or rejections mode");
+            }
+            if (existing.result.isDone()) {
+                replayed.incrementAndGet();
+            } else {
+                joined.incrementAndGet();
+            }
+            return existing.result;
+        }
+    }
+
+    private CompletableFuture<BatchIngestResponse> run(String key, Entry entry,
+                                                       Supplier<CompletableFuture<BatchIngestResponse>> work) {
+        executed.incrementAndGet();
+        CompletableFuture<BatchIngestResponse> pending;
+        try {
+            pending = work.get();
+        } catch (RuntimeException e) {
+            entries.remove(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+
+        pending.whenComplete((response, failure) -> {
+            if (failure != null) {
+                entries.remove(key, entry);
+                entry.result.completeExceptionally(failure);
+            } else {
+                entry.expiresAt = System.nanoTime() + ttlNanos;
+                entry.result.complete(response);
+            }
+        });
+        return entry.result;
+    }
+
+    private void evictExpiredOrOverflow(long now) {
+        // Oldest keys first; in-flight batches are skipped so a running batch can never be executed twice
+        Iterator<Entry> oldest = insertionOrder.iterator();
+        while (oldest.hasNext()) {
+            Entry entry = oldest.next();
+            if (entries.get(entry.key) != entry) {
+                // Failed, expired or replaced since it was queued
+                oldest.remove();
+                continue;
+            }
+            boolean overflow = entries.size() > maxEntries;
+            if (entry.isExpired(now) || (overflow && entry.result.isDone())) {
+                if (entries.remove(entry.key, entry)) {
+                    evicted.incrementAndGet();
+                }
+                oldest.remove();
+            } else if (!overflow) {
+                return;
+            }
+        }
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        snapshot.put("entries", (long) entries.size());
+        snapshot.put("executed", executed.get());
+        snapshot.put("replayed", replayed.get());
+        snapshot.put("joinedInFlight", joined.get());
+        snapshot.put("evicted", evicted.get());
+        snapshot.put("mismatched", mismatched.get());
+        return snapshot;
+    }
+
+    int queuedKeys() {
+        return insertionOrder.size();
+    }
+
+    /**
+     * SHA-256 over every event's fields, in order, and the rejection mode. receivedTime is left out
+     * because the server assigns it.
+     */
+    public static String fingerprint(List<EventDTO> events, RejectionMode rejectionMode) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(rejectionMode.name().getBytes(StandardCharsets.UTF_8));
+        StringBuilder fields = new StringBuilder(128);
+        for (EventDTO event : events) {
+            fields.setLength(0);
+            fields.append('\n')
+                    .append(event.getEventId()).append('|')
+                    .append(event.getEventTime()).append('|')
+                    .append(event.getMachineId()).append('|')
+                    .append(event.getDurationMs()).append('|')
+                    .append(event.getDefectCount()).append('|')
+                    .append(event.getLineId()).append('|')
+                    .append(event.getFactoryId());
+            digest.update(fields.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,150 @@
+package com.factory.events.service;
+
+import com.factory.events.dto.EventDTO;
+import com.factory.events.dto.RejectionReason;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Validates and hashes a batch before the dedup merge. Batches at or above the parallel
+ * threshold are split into chunks on a dedicated fork-join pool; results are written by
+ * index, so the merge that follows sees exactly what the sequential path would produce.
+ */
+@Component
+public class BatchPreprocessor {
+
+    static final long MAX_DURATION_MS = 6 * 60 * 60 * 1000L; // 6 hours
+    static final Duration MAX_FUTURE_WINDOW = Duration.ofMinutes(15);
+
+    private final int parallelThreshold;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    public BatchPreprocessor(
+            @Value("${events.ingest.parallel-threshold:10000}") int parallelThreshold,
+            @Value("${events.ingest.parallel-chunk-size:1024}") int chunkSize,
+            @Value("${events.ingest.parallelism:0}") int parallelism) {
+        this.parallelThreshold = parallelThreshold;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public static class Result {
+        private final RejectionReason[] rejections;
+        private final String[] payloadHashes;
+
+        Result(int size) {
+            this.rejections = new RejectionReason[size];
+            this.payloadHashes = new String[size];
+        }
+
+        /** Reason the event at this index was rejected, or null if it is valid. */
+        public RejectionReason getRejection(int index) { return rejections[index]; }
+
+        /** Payload hash of the event at this index; only set for valid events. */
+        public String getPayloadHash(int index) { return payloadHashes[index]; }
+
+        public int size() { return rejections.length; }
+    }
+
+    public Result process(List<EventDTO> events, Instant now) {
+        Instant maxFutureTime = now.plus(MAX_FUTURE_WINDOW);
+        Result result = new Result(events.size());
+
+        if (events.size() < parallelThreshold) {
+            processRange(events, 0, events.size(), now, maxFutureTime, result);
+        } else {
+            pool.invoke(new ChunkTask(events, 0, events.size(), now, maxFutureTime, result));
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static void processRange(List<EventDTO> events, int from, int to,
+                                     Instant now, Instant maxFutureTime, Result result) {
+        for (int i = from; i < to; i++) {
+            EventDTO dto = events.get(i);
+            RejectionReason rejection = validateEvent(dto, maxFutureTime);
+            if (rejection != null) {
+                result.rejections[i] = rejection;
+                continue;
+            }
+            dto.setReceivedTime(now);
+            result.payloadHashes[i] = dto.generatePayloadHash();
+        }
+    }
+
+    // Single pass, no allocation on the happy path: the future cut-off is computed once per batch
+    static RejectionReason validateEvent(EventDTO dto, Instant maxFutureTime) {
+        String eventId = dto.getEventId();
+        if (eventId == null || eventId.isEmpty()) {
+            return RejectionReason.MISSING_EVENT_ID;
+        }
+        String machineId = dto.getMachineId();
+        if (machineId == null || machineId.isEmpty()) {
+            return RejectionReason.MISSING_MACHINE_ID;
+        }
+        Instant eventTime = dto.getEventTime();
+        if (eventTime == null) {
+            return RejectionReason.MISSING_EVENT_TIME;
+        }
+        Long durationMs = dto.getDurationMs();
+        if (durationMs == null) {
+            return RejectionReason.MISSING_DURATION;
+        }
+        if (dto.getDefectCount() == null) {
+            return RejectionReason.MISSING_DEFECT_COUNT;
+        }
+
+        long duration = durationMs;
+        if (duration < 0 || duration > MAX_DURATION_MS) {
+            return RejectionReason.INVALID_DURATION;
+        }
+
+        if (eventTime.isAfter(maxFutureTime)) {
+            return RejectionReason.FUTURE_EVENT_TIME;
+        }
+
+        return null;
+    }
+
+    private class ChunkTask extends RecursiveAction {
+        private final List<EventDTO> events;
+        private final int from;
+        private final int to;
+        private final Instant now;
+        private final Instant maxFutureTime;
+        private final Result result;
+
+        ChunkTask(List<EventDTO> events, int from, int to, Instant now, Instant maxFutureTime, Result result) {
+            this.events = events;
+            this.from = from;
+            this.to = to;
+            this.now = now;
+            this.maxFutureTime = maxFutureTime;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                processRange(events, from, to, now, maxFutureTime, result);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(events, from, mid, now, maxFutureTime, result),
+                    new ChunkTask(events, mid, to, now, maxFutureTime, result));
+        }
+    }
+}
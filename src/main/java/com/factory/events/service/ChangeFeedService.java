@@ -0,0 +1,100 @@
+package com.factory.events.service;
+
+import com.factory.events.config.RoutingDataSource;
+import com.factory.events.dto.ChangeFeedEvent;
+import com.factory.events.dto.ChangeFeedResponse;
+import com.factory.events.jfr.StatsQueryEvent;
+import com.factory.events.repository.MachineEventRepository;
+import com.factory.events.shard.ShardRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Serves inserted and updated events in changeSeq order. Consumers pass back {@code nextCursor}
+ * as {@code after}; each page is an index range scan starting at the cursor, never an OFFSET.
+ */
+@Service
+public class ChangeFeedService {
+
+    private final MachineEventRepository repository;
+    private final ChangeSequenceAllocator sequenceAllocator;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxLimit;
+
+    public ChangeFeedService(MachineEventRepository repository,
+                             ChangeSequenceAllocator sequenceAllocator,
+                             ShardRouter shardRouter,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${events.changes.max-limit:5000}") int maxLimit) {
+        this.repository = repository;
+        this.sequenceAllocator = sequenceAllocator;
+        this.shardRouter = shardRouter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxLimit = maxLimit;
+    }
+
+    public ChangeFeedResponse readChanges(long after, int limit, String machineId, String factoryId) {
+        if (after < 0) {
+            throw new InvalidRequestException("after must be >= 0");
+        }
+        if (limit < 1 || limit > maxLimit) {
+            throw new InvalidRequestException("limit must be between 1 and " + maxLimit);
+        }
+        if (machineId != null && factoryId != null) {
+            throw new InvalidRequestException("Filter by machineId or factoryId, not both");
+        }
+
+        StatsQueryEvent event = new StatsQueryEvent("changes");
+        event.begin();
+        long upTo = sequenceAllocator.safeUpperBound();
+        if (upTo <= after) {
+            return new ChangeFeedResponse(List.of(), after, false);
+        }
+
+        // One extra row tells us whether another page exists without a count query
+        PageRequest page = PageRequest.of(0, limit + 1);
+
+        List<Integer> shards = shardRouter.shardsFor(factoryId, machineId);
+        // A replica may lag behind the in-flight watermark, which would let a cursor skip rows
+        List<List<ChangeFeedEvent>> perShard = shardRouter.onShards(shards,
+                shard -> RoutingDataSource.readFromPrimary(() -> readOnlyTransaction.execute(status -> {
+                    if (machineId != null) {
+                        return repository.findChangesByMachine(machineId, after, upTo, page);
+                    }
+                    if (factoryId != null) {
+                        return repository.findChangesByFactory(factoryId, after, upTo, page);
+                    }
+                    return repository.findChanges(after, upTo, page);
+                })));
+        // changeSeq is global, so the first limit + 1 of the merged shard pages are the first limit + 1 overall
+        List<ChangeFeedEvent> rows = perShard.size() == 1 ? perShard.get(0) : perShard.stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingLong(ChangeFeedEvent::getChangeSeq))
+                .limit(limit + 1L)
+                .collect(Collectors.toList());
+
+        boolean hasMore = rows.size() > limit;
+        List<ChangeFeedEvent> events = hasMore ? rows.subList(0, limit) : rows;
+        // Once the range is exhausted the cursor can jump to the watermark, so sparse filters don't rescan
+        long nextCursor = hasMore ? events.get(events.size() - 1).getChangeSeq() : upTo;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.setMachineId(machineId);
+            event.setFactoryId(factoryId);
+            event.setShards(shards.size());
+            event.setResultSize(events.size());
+            event.commit();
+        }
+        return new ChangeFeedResponse(events, nextCursor, hasMore);
+    }
+}
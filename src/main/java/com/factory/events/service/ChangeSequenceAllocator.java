@@ -0,0 +1,130 @@
+package com.factory.events.service;
+
+import com.factory.events.config.DataSourceRoute;
+import com.factory.events.shard.ShardContext;
+import com.factory.events.shard.ShardDataSources;
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out change-feed positions from the machine_event_change_seq database sequence.
+ *
+ * Sequence values are assigned before the writing transaction commits, so a reader could see
+ * seq 11 committed while seq 10 is still in flight and move its cursor past 10 for good. Every
+ * allocation is therefore tracked until its transaction completes, and {@link #safeUpperBound()}
+ * caps the feed below the oldest one. This only covers writers in this JVM; with several ingest
+ * nodes a consumer should trail the feed by a few seconds.
+ *
+ * The sequence lives on shard 0 only, so positions are global across shards. Writers on other
+ * shards fetch them over a separate shard 0 connection.
+ */
+@Component
+@DependsOn("schemaMigrator")
+public class ChangeSequenceAllocator {
+
+    public static final String SEQUENCE_NAME = "machine_event_change_seq";
+
+    private static final String POSTGRES_NEXT_SQL =
+            "SELECT nextval('" + SEQUENCE_NAME + "') FROM generate_series(1, ?)";
+    private static final String H2_NEXT_SQL =
+            "SELECT NEXT VALUE FOR " + SEQUENCE_NAME + " FROM SYSTEM_RANGE(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate shardZeroTemplate;
+
+    // Lower bound of each in-flight allocation -> number of allocations sharing that bound
+    private final ConcurrentSkipListMap<Long, Integer> inFlight = new ConcurrentSkipListMap<>();
+    private final AtomicLong highestAllocated = new AtomicLong();
+
+    private volatile String nextValuesSql;
+
+    public ChangeSequenceAllocator(DataSource dataSource, ShardDataSources shardDataSources) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.shardZeroTemplate = new JdbcTemplate(shardDataSources.get(0, DataSourceRoute.PRIMARY));
+    }
+
+    @PostConstruct
+    public void initialize() {
+        // The sequence itself is created by the V1 migration. Burn one value so the high-water mark starts at the sequence's current position
+        highestAllocated.set(jdbcTemplate.queryForObject(nextValuesSql(), Long.class, 1));
+    }
+
+    /**
+     * Allocates {@code count} ascending sequence values. Inside a transaction the values stay
+     * in flight until it commits or rolls back; outside one they are released immediately.
+     */
+    public long[] allocate(int count) {
+        if (count <= 0) {
+            return new long[0];
+        }
+
+        // Registered before touching the sequence: every value fetched below is >= this bound
+        long bound = highestAllocated.get() + 1;
+        inFlight.merge(bound, 1, Integer::sum);
+
+        long[] values;
+        try {
+            // On shard 0 this joins the writer's transaction connection
+            JdbcTemplate template = ShardContext.current() == 0 ? jdbcTemplate : shardZeroTemplate;
+            List<Long> fetched = template.queryForList(nextValuesSql(), Long.class, count);
+            values = fetched.stream().mapToLong(Long::longValue).sorted().toArray();
+            highestAllocated.accumulateAndGet(values[values.length - 1], Math::max);
+        } catch (RuntimeException e) {
+            release(bound);
+            throw e;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(bound);
+                }
+            });
+        } else {
+            release(bound);
+        }
+        return values;
+    }
+
+    /**
+     * Highest change sequence a reader may return without risking a gap that fills in later.
+     */
+    public long safeUpperBound() {
+        // Read the high-water mark first: anything allocated after this point is above it
+        long high = highestAllocated.get();
+        Map.Entry<Long, Integer> oldestInFlight = inFlight.firstEntry();
+        if (oldestInFlight == null) {
+            return high;
+        }
+        return Math.min(high, oldestInFlight.getKey() - 1);
+    }
+
+    public int getInFlightCount() {
+        return inFlight.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private void release(long bound) {
+        inFlight.computeIfPresent(bound, (key, n) -> n > 1 ? n - 1 : null);
+    }
+
+    private String nextValuesSql() {
+        if (nextValuesSql == null) {
+            boolean postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.getMetaData().getDatabaseProductName().toLowerCase().contains("postgres"));
+            nextValuesSql = postgres ? POSTGRES_NEXT_SQL : H2_NEXT_SQL;
+        }
+        return nextValuesSql;
+    }
+}
@@ -0,0 +1,110 @@
+package com.factory.events.service;
+
+import com.factory.events.dto.DurationBin;
+import com.factory.events.dto.DurationStatsResponse;
+import com.factory.events.jfr.StatsQueryEvent;
+import com.factory.events.sketch.DurationSketch;
+import com.factory.events.sketch.DurationSketchStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Duration percentiles and histograms for a machine or a line, answered from the in-memory
+ * sketches of {@link DurationSketchStore} instead of sorting durations in the database.
+ */
+@Service
+public class DurationStatsService {
+
+    private static final int MAX_PERCENTILES = 20;
+
+    private final DurationSketchStore sketchStore;
+    private final int maxBins;
+
+    public DurationStatsService(DurationSketchStore sketchStore,
+                                @Value("${events.durations.max-bins:200}") int maxBins) {
+        this.sketchStore = sketchStore;
+        this.maxBins = maxBins;
+    }
+
+    public DurationStatsResponse getDurationStats(String machineId, String lineId, Instant start, Instant end,
+                                                  String percentiles, int bins) {
+        if ((machineId == null) == (lineId == null)) {
+            throw new InvalidRequestException("Pass exactly one of machineId or lineId");
+        }
+        if (bins < 0 || bins > maxBins) {
+            throw new InvalidRequestException("bins must be between 0 and " + maxBins);
+        }
+        List<Double> quantiles = parsePercentiles(percentiles);
+        StatsQueryEvent event = new StatsQueryEvent("durations");
+        event.begin();
+
+        DurationSketchStore.Result result = machineId != null
+                ? sketchStore.query(DurationSketchStore.Scope.MACHINE, machineId, start, end)
+                : sketchStore.query(DurationSketchStore.Scope.LINE, lineId, start, end);
+        DurationSketch sketch = result.getSketch();
+
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (double q : quantiles) {
+            values.put(percentileKey(q), sketch.getCount() > 0 ? round(sketch.quantile(q)) : null);
+        }
+        List<DurationBin> histogram = new ArrayList<>();
+        if (bins > 0) {
+            for (double[] bin : sketch.histogram(bins)) {
+                histogram.add(new DurationBin(round(bin[0]), round(bin[1]), (long) bin[2]));
+            }
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.setMachineId(machineId);
+            event.setLineId(lineId);
+            event.setWindowSeconds(Duration.between(start, end).getSeconds());
+            event.setResultSize(sketch.getCount());
+            event.commit();
+        }
+        return new DurationStatsResponse(machineId, lineId, result.getStart(), result.getEnd(),
+                sketch.getCount(), sketch.getRelativeAccuracy(), values, histogram);
+    }
+
+    static List<Double> parsePercentiles(String percentiles) {
+        List<Double> quantiles = new ArrayList<>();
+        for (String part : percentiles.split(",")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            double q;
+            try {
+                q = Double.parseDouble(part.trim());
+            } catch (NumberFormatException e) {
+                throw new InvalidRequestException("Invalid percentile: " + part.trim());
+            }
+            if (!(q >= 0 && q <= 1)) {
+                throw new InvalidRequestException("Percentiles must be between 0 and 1, got " + part.trim());
+            }
+            quantiles.add(q);
+        }
+        if (quantiles.size() > MAX_PERCENTILES) {
+            throw new InvalidRequestException("At most " + MAX_PERCENTILES + " percentiles per request");
+        }
+        return quantiles;
+    }
+
+    /**
+     * 0.5 -> "p50", 0.999 -> "p99.9"
+     */
+    static String percentileKey(double q) {
+        return "p" + BigDecimal.valueOf(q).movePointRight(2).stripTrailingZeros().toPlainString();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,142 @@
+package com.factory.events.service;
+
+import com.factory.events.config.RoutingDataSource;
+import com.factory.events.repository.MachineEventRepository;
+import com.factory.events.shard.ShardRouter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Finds the rows of given eventIds on every shard. An eventId lives on the shard of its current
+ * factoryId/machineId, so an update that changes that key moves the row; until the move has
+ * finished (or if it failed halfway) the eventId can have a copy on more than one shard. The copy
+ * with the newest receivedTime is the live one, the others are stale.
+ */
+@Component
+public class EventCopyLocator {
+
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private final MachineEventRepository repository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate writeTransaction;
+
+    public EventCopyLocator(MachineEventRepository repository, ShardRouter shardRouter,
+                            PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.shardRouter = shardRouter;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Looks the eventIds up on every shard, in parallel and on the primaries.
+     */
+    public Placement locate(Collection<String> eventIds) {
+        List<String> ids = new ArrayList<>(eventIds);
+        List<Integer> shards = shardRouter.allShards();
+        List<List<Object[]>> perShard = shardRouter.onShards(shards, shard -> RoutingDataSource.readFromPrimary(
+                () -> readOnlyTransaction.execute(status -> {
+                    List<Object[]> rows = new ArrayList<>();
+                    // Chunked so very large batches stay under the driver's bind-parameter limit
+                    for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+                        rows.addAll(repository.findCopiesByEventIdIn(
+                                ids.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, ids.size()))));
+                    }
+                    return rows;
+                })));
+
+        Placement placement = new Placement();
+        Map<String, Copy> newestCopy = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            int shard = shards.get(i);
+            for (Object[] row : perShard.get(i)) {
+                Copy copy = new Copy(shard, (Long) row[1], (String) row[0], (Instant) row[2],
+                        new BatchCommittedEvent.Values((String) row[3], (String) row[4], (String) row[5],
+                                (Instant) row[6], (Long) row[7], (Integer) row[8]));
+                Copy current = newestCopy.get(copy.eventId);
+                if (current == null || copy.receivedTime.isAfter(current.receivedTime)) {
+                    if (current != null) {
+                        placement.addStale(current);
+                    }
+                    newestCopy.put(copy.eventId, copy);
+                    placement.owners.put(copy.eventId, shard);
+                } else {
+                    placement.addStale(copy);
+                }
+            }
+        }
+        return placement;
+    }
+
+    /**
+     * Deletes rows by primary key, each shard in its own transaction.
+     */
+    public void delete(Map<Integer, List<Long>> idsByShard) {
+        if (idsByShard.isEmpty()) {
+            return;
+        }
+        shardRouter.forEachShard(new ArrayList<>(idsByShard.keySet()), shard ->
+                writeTransaction.executeWithoutResult(status ->
+                        repository.deleteAllByIdInBatch(idsByShard.get(shard))));
+    }
+
+    public static class Placement {
+        private final Map<String, Integer> owners = new HashMap<>();
+        private final Map<Integer, List<Long>> stale = new TreeMap<>();
+        private final List<Copy> staleCopies = new ArrayList<>();
+
+        /**
+         * eventId -> shard holding its live copy; eventIds without any row are absent
+         */
+        public Map<String, Integer> getOwners() { return owners; }
+
+        /**
+         * shard -> primary keys of copies that lost to a newer copy on another shard
+         */
+        public Map<Integer, List<Long>> getStale() { return stale; }
+
+        /**
+         * The stale copies themselves, with the values they held
+         */
+        public List<Copy> getStaleCopies() { return staleCopies; }
+
+        private void addStale(Copy copy) {
+            stale.computeIfAbsent(copy.shard, key -> new ArrayList<>()).add(copy.id);
+            staleCopies.add(copy);
+        }
+    }
+
+    public static class Copy {
+        private final int shard;
+        private final long id;
+        private final String eventId;
+        private final Instant receivedTime;
+        private final BatchCommittedEvent.Values values;
+
+        private Copy(int shard, long id, String eventId, Instant receivedTime, BatchCommittedEvent.Values values) {
+            this.shard = shard;
+            this.id = id;
+            this.eventId = eventId;
+            this.receivedTime = receivedTime;
+            this.values = values;
+        }
+
+        public int getShard() { return shard; }
+        public long getId() { return id; }
+        public String getEventId() { return eventId; }
+        public Instant getReceivedTime() { return receivedTime; }
+        public BatchCommittedEvent.Values getValues() { return values; }
+    }
+}
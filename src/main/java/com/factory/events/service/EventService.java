@@ -1,10 +1,21 @@
 package com.factory.events.service;
 
 import com.factory.events.dto.*;
+import com.factory.events.health.HealthPolicy;
+import com.factory.events.jfr.IngestBatchEvent;
+import com.factory.events.jfr.IngestShardEvent;
+import com.factory.events.jfr.StatsQueryEvent;
 import com.factory.events.model.MachineEvent;
 import com.factory.events.repository.MachineEventRepository;
+import com.factory.events.shard.ShardContext;
+import com.factory.events.shard.ShardRouter;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -14,49 +25,197 @@ import java.util.stream.Collectors;
 @Service
 public class EventService {
 
-    private static final long MAX_DURATION_MS = 6 * 60 * 60 * 1000L; // 6 hours
-    private static final long MAX_FUTURE_MINUTES = 15;
-    private static final double HEALTHY_DEFECT_RATE_THRESHOLD = 2.0;
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
 
     private final MachineEventRepository repository;
-
-    public EventService(MachineEventRepository repository) {
+    private final BatchPreprocessor preprocessor;
+    private final ChangeSequenceAllocator changeSequence;
+    private final ApplicationEventPublisher eventPublisher;
+    private final HealthPolicy healthPolicy;
+    private final ShardRouter shardRouter;
+    private final EventCopyLocator copyLocator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int rejectionSampleSize;
+
+    public EventService(MachineEventRepository repository,
+                        BatchPreprocessor preprocessor,
+                        ChangeSequenceAllocator changeSequence,
+                        ApplicationEventPublisher eventPublisher,
+                        HealthPolicy healthPolicy,
+                        ShardRouter shardRouter,
+                        EventCopyLocator copyLocator,
+                        EntityManager entityManager,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${events.rejections.sample-size:10}") int rejectionSampleSize) {
         this.repository = repository;
+        this.preprocessor = preprocessor;
+        this.changeSequence = changeSequence;
+        this.eventPublisher = eventPublisher;
+        this.healthPolicy = healthPolicy;
+        this.shardRouter = shardRouter;
+        this.copyLocator = copyLocator;
+        this.entityManager = entityManager;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rejectionSampleSize = rejectionSampleSize;
     }
 
-    @Transactional
     public BatchIngestResponse ingestBatch(List<EventDTO> events) {
-        BatchIngestResponse response = new BatchIngestResponse();
+        return ingestBatch(events, RejectionMode.FULL);
+    }
+
+    /**
+     * Validates the batch, then writes each shard's part in its own transaction, in parallel. If one
+     * shard fails the others may already have committed; retrying the batch is safe because rows
+     * that made it are deduplicated by payload hash.
+     *
+     * With several shards every eventId is first looked up on all of them, and all of a batch's
+     * occurrences of an eventId go to the shard holding its row (or, for a new eventId, the shard of
+     * its first occurrence), so the usual merge rules decide between them. Rows whose update changed
+     * the shard key are then moved: inserted on their new shard, and only after that deleted from the
+     * old one.
+     */
+    public BatchIngestResponse ingestBatch(List<EventDTO> events, RejectionMode rejectionMode) {
+        IngestBatchEvent event = new IngestBatchEvent();
+        event.begin();
+        BatchIngestResponse response = new BatchIngestResponse(rejectionMode, rejectionSampleSize);
         Instant now = Instant.now();
+        long started = System.nanoTime();
+        BatchPreprocessor.Result preprocessed = preprocessor.process(events, now);
+        event.setPreprocessTime(System.nanoTime() - started);
+
+        // Reject first so a mostly-invalid batch never reaches the database
+        int[] validIndexes = new int[events.size()];
+        int validCount = 0;
+        for (int i = 0; i < events.size(); i++) {
+            RejectionReason validationError = preprocessed.getRejection(i);
+            if (validationError != null) {
+                response.addRejection(events.get(i).getEventId(), validationError);
+                response.setRejected(response.getRejected() + 1);
+            } else {
+                validIndexes[validCount++] = i;
+            }
+        }
+
+        if (validCount == 0) {
+            commitBatchEvent(event, events.size(), response, 0, 0);
+            return response;
+        }
+        validIndexes = Arrays.copyOf(validIndexes, validCount);
+
+        long writeStarted = System.nanoTime();
+        EventCopyLocator.Placement placement = null;
+        Map<Integer, int[]> byShard;
+        if (shardRouter.isSharded()) {
+            placement = copyLocator.locate(Arrays.stream(validIndexes)
+                    .mapToObj(i -> events.get(i).getEventId())
+                    .collect(Collectors.toSet()));
+            byShard = partitionByShard(events, validIndexes, placement.getOwners());
+        } else {
+            byShard = Map.of(0, validIndexes);
+        }
+        List<Integer> shards = new ArrayList<>(byShard.keySet());
+        List<ShardWrite> writes = shardRouter.onShards(shards,
+                shard -> writeShard(shard, events, byShard.get(shard), preprocessed));
+        List<Move> moves = new ArrayList<>();
+        for (ShardWrite write : writes) {
+            response.setAccepted(response.getAccepted() + write.counts[0]);
+            response.setUpdated(response.getUpdated() + write.counts[1]);
+            response.setDeduped(response.getDeduped() + write.counts[2]);
+            moves.addAll(write.moves);
+        }
+        if (placement != null) {
+            relocate(moves, placement.getStale());
+        }
+        commitBatchEvent(event, events.size(), response, shards.size(), System.nanoTime() - writeStarted);
+        return response;
+    }
+
+
+    private static void commitBatchEvent(IngestBatchEvent event, int batchSize, BatchIngestResponse response,
+                                         int shards, long writeTime) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.setBatchSize(batchSize);
+            event.setRejected(response.getRejected());
+            event.setAccepted(response.getAccepted());
+            event.setUpdated(response.getUpdated());
+            event.setDeduped(response.getDeduped());
+            event.setShards(shards);
+            event.setWriteTime(writeTime);
+            event.commit();
+        }
+    }
+
+
+    private ShardWrite writeShard(int shard, List<EventDTO> events, int[] validIndexes,
+                                  BatchPreprocessor.Result preprocessed) {
+        IngestShardEvent event = new IngestShardEvent();
+        event.begin();
+        long started = System.nanoTime();
+        ShardWrite write = writeTransaction.execute(status -> ingestOnShard(events, validIndexes, preprocessed, event));
+        int[] counts = write.counts;
+        long elapsed = System.nanoTime() - started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.setShard(shard);
+            event.setEvents(validIndexes.length);
+            event.setSaved(counts[0] + counts[1]);
+            event.setTransactionOverhead(Math.max(0, elapsed - event.getLookupTime() - event.getMergeTime()
+                    - event.getSequenceTime() - event.getSaveTime()));
+            event.commit();
+        }
+        return write;
+    }
+
 
+    /**
+     * @param owners eventId -> shard already holding it; filled in here for new eventIds
+     */
+    private Map<Integer, int[]> partitionByShard(List<EventDTO> events, int[] validIndexes,
+                                                 Map<String, Integer> owners) {
+        int[] shardOf = new int[validIndexes.length];
+        int[] sizes = new int[shardRouter.getShardCount()];
+        for (int i = 0; i < validIndexes.length; i++) {
+            EventDTO dto = events.get(validIndexes[i]);
+            shardOf[i] = owners.computeIfAbsent(dto.getEventId(),
+                    eventId -> shardRouter.shardFor(dto.getFactoryId(), dto.getMachineId()));
+            sizes[shardOf[i]]++;
+        }
+        Map<Integer, int[]> byShard = new TreeMap<>();
+        int[] filled = new int[sizes.length];
+        for (int i = 0; i < validIndexes.length; i++) {
+            int shard = shardOf[i];
+            byShard.computeIfAbsent(shard, key -> new int[sizes[key]])[filled[shard]++] = validIndexes[i];
+        }
+        return byShard;
+    }
 
-        Set<String> eventIds = events.stream()
-                .map(EventDTO::getEventId)
-                .collect(Collectors.toSet());
 
-        
-        Map<String, MachineEvent> existingEvents = repository.findAll().stream()
-                .filter(e -> eventIds.contains(e.getEventId()))
-                .collect(Collectors.toMap(MachineEvent::getEventId, e -> e));
+    private ShardWrite ingestOnShard(List<EventDTO> events, int[] validIndexes, BatchPreprocessor.Result preprocessed,
+                                IngestShardEvent shardEvent) {
+        int accepted = 0;
+        int updated = 0;
+        int deduped = 0;
+        long phaseStarted = System.nanoTime();
+        Map<String, MachineEvent> existingEvents = findExistingEvents(events, validIndexes);
+        shardEvent.setLookupTime(System.nanoTime() - phaseStarted);
+        phaseStarted = System.nanoTime();
 
     
         Map<String, MachineEvent> batchSeen = new HashMap<>();
 
         List<MachineEvent> toSave = new ArrayList<>();
+        // Row values before/after each entry of toSave, for BatchCommittedEvent listeners
+        List<BatchCommittedEvent.Values> previousValues = new ArrayList<>();
+        List<BatchCommittedEvent.Values> currentValues = new ArrayList<>();
 
-        for (EventDTO dto : events) {
-
-            
-            String validationError = validateEvent(dto, now);
-            if (validationError != null) {
-                response.addRejection(dto.getEventId(), validationError);
-                response.setRejected(response.getRejected() + 1);
-                continue;
-            }
-
-            
-            dto.setReceivedTime(now);
-            String payloadHash = dto.generatePayloadHash();
+        for (int index : validIndexes) {
+            EventDTO dto = events.get(index);
+            String payloadHash = preprocessed.getPayloadHash(index);
 
             MachineEvent existing = existingEvents.get(dto.getEventId());
             MachineEvent batchExisting = batchSeen.get(dto.getEventId());
@@ -65,8 +224,10 @@ public class EventService {
             if (existing == null && batchExisting == null) {
                 MachineEvent newEvent = createEventFromDTO(dto, payloadHash);
                 toSave.add(newEvent);
+                previousValues.add(null);
+                currentValues.add(BatchCommittedEvent.Values.of(newEvent));
                 batchSeen.put(dto.getEventId(), newEvent);
-                response.setAccepted(response.getAccepted() + 1);
+                accepted++;
                 continue;
             }
 
@@ -75,57 +236,166 @@ public class EventService {
 
             
             if (target.getPayloadHash().equals(payloadHash)) {
-                response.setDeduped(response.getDeduped() + 1);
+                deduped++;
                 continue;
             }
 
             
             if (dto.getReceivedTime().isAfter(target.getReceivedTime())) {
+                previousValues.add(BatchCommittedEvent.Values.of(target));
                 updateEventFromDTO(target, dto, payloadHash);
                 toSave.add(target);
+                currentValues.add(BatchCommittedEvent.Values.of(target));
                 batchSeen.put(dto.getEventId(), target);
-                response.setUpdated(response.getUpdated() + 1);
+                updated++;
             } else {
-                response.setDeduped(response.getDeduped() + 1);
+                deduped++;
             }
         }
 
+        shardEvent.setMergeTime(System.nanoTime() - phaseStarted);
+
+        List<Move> moves = shardRouter.isSharded()
+                ? extractMoves(toSave, previousValues, currentValues) : List.of();
+
         if (!toSave.isEmpty()) {
+            phaseStarted = System.nanoTime();
+            long[] changeSeqs = changeSequence.allocate(toSave.size());
+            shardEvent.setSequenceTime(System.nanoTime() - phaseStarted);
+            List<BatchCommittedEvent.Change> changes = new ArrayList<>(toSave.size());
+            for (int i = 0; i < toSave.size(); i++) {
+                MachineEvent event = toSave.get(i);
+                event.setChangeSeq(changeSeqs[i]);
+                changes.add(new BatchCommittedEvent.Change(event.getEventId(), changeSeqs[i],
+                        previousValues.get(i), currentValues.get(i)));
+            }
+            phaseStarted = System.nanoTime();
             repository.saveAll(toSave);
+            shardEvent.setSaveTime(System.nanoTime() - phaseStarted);
+            eventPublisher.publishEvent(new BatchCommittedEvent(changes));
         }
 
-        return response;
+        return new ShardWrite(new int[]{accepted, updated, deduped}, moves);
     }
 
-   
-    private String validateEvent(EventDTO dto, Instant now) {
 
-        if (dto.getEventId() == null || dto.getEventId().isEmpty()) {
-            return "MISSING_EVENT_ID";
-        }
-        if (dto.getMachineId() == null || dto.getMachineId().isEmpty()) {
-            return "MISSING_MACHINE_ID";
+    /**
+     * Takes the rows whose factoryId/machineId now maps to another shard out of {@code toSave} (and the
+     * matching values lists). Loaded rows are detached first so their changes are not flushed here.
+     */
+    private List<Move> extractMoves(List<MachineEvent> toSave, List<BatchCommittedEvent.Values> previousValues,
+                                    List<BatchCommittedEvent.Values> currentValues) {
+        int shard = ShardContext.current();
+        // By identity: a row updated twice in the batch appears twice in toSave
+        Map<MachineEvent, Move> moves = new IdentityHashMap<>();
+        List<MachineEvent> keptRows = new ArrayList<>(toSave.size());
+        List<BatchCommittedEvent.Values> keptPrevious = new ArrayList<>(toSave.size());
+        List<BatchCommittedEvent.Values> keptCurrent = new ArrayList<>(toSave.size());
+        for (int i = 0; i < toSave.size(); i++) {
+            MachineEvent event = toSave.get(i);
+            int target = shardRouter.shardFor(event.getFactoryId(), event.getMachineId());
+            if (target == shard) {
+                keptRows.add(event);
+                keptPrevious.add(previousValues.get(i));
+                keptCurrent.add(currentValues.get(i));
+                continue;
+            }
+            Move move = moves.computeIfAbsent(event, row -> {
+                if (row.getId() != null) {
+                    entityManager.detach(row);
+                }
+                return new Move(shard, row.getId(), target, row);
+            });
+            move.previous.add(previousValues.get(i));
+            move.current.add(currentValues.get(i));
         }
-        if (dto.getEventTime() == null) {
-            return "MISSING_EVENT_TIME";
+        if (moves.isEmpty()) {
+            return List.of();
         }
-        if (dto.getDurationMs() == null) {
-            return "MISSING_DURATION";
+        toSave.clear();
+        toSave.addAll(keptRows);
+        previousValues.clear();
+        previousValues.addAll(keptPrevious);
+        currentValues.clear();
+        currentValues.addAll(keptCurrent);
+        return new ArrayList<>(moves.values());
+    }
+
+
+    /**
+     * Inserts moved rows on their new shards (dropping stale copies there first), then deletes the
+     * old rows. A failure in between leaves two copies; the next ingest of the eventId keeps the one
+     * with the newest receivedTime and deletes the other.
+     */
+    private void relocate(List<Move> moves, Map<Integer, List<Long>> stale) {
+        if (moves.isEmpty() && stale.isEmpty()) {
+            return;
         }
-        if (dto.getDefectCount() == null) {
-            return "MISSING_DEFECT_COUNT";
+        Map<Integer, List<Move>> byTarget = new TreeMap<>();
+        Map<Integer, List<Long>> sources = new TreeMap<>();
+        for (Move move : moves) {
+            byTarget.computeIfAbsent(move.toShard, shard -> new ArrayList<>()).add(move);
+            if (move.fromId != null) {
+                sources.computeIfAbsent(move.fromShard, shard -> new ArrayList<>()).add(move.fromId);
+            }
         }
+        Set<Integer> shards = new TreeSet<>(byTarget.keySet());
+        shards.addAll(stale.keySet());
+        shardRouter.forEachShard(new ArrayList<>(shards), shard -> writeTransaction.executeWithoutResult(status ->
+                insertMoved(byTarget.getOrDefault(shard, List.of()), stale.getOrDefault(shard, List.of()))));
+        copyLocator.delete(sources);
+    }
 
-        if (dto.getDurationMs() < 0 || dto.getDurationMs() > MAX_DURATION_MS) {
-            return "INVALID_DURATION";
-        }
 
-        Instant maxFutureTime = now.plus(Duration.ofMinutes(MAX_FUTURE_MINUTES));
-        if (dto.getEventTime().isAfter(maxFutureTime)) {
-            return "FUTURE_EVENT_TIME";
+    private void insertMoved(List<Move> moves, List<Long> staleIds) {
+        if (!staleIds.isEmpty()) {
+            repository.deleteAllByIdInBatch(staleIds);
+        }
+        if (moves.isEmpty()) {
+            return;
         }
+        // Positions are taken in this transaction so the change feed holds back until the row is on its new shard
+        long[] changeSeqs = changeSequence.allocate(moves.stream().mapToInt(move -> move.current.size()).sum());
+        List<MachineEvent> rows = new ArrayList<>(moves.size());
+        List<BatchCommittedEvent.Change> changes = new ArrayList<>(changeSeqs.length);
+        int next = 0;
+        for (Move move : moves) {
+            MachineEvent row = copyOf(move.row);
+            for (int i = 0; i < move.current.size(); i++) {
+                row.setChangeSeq(changeSeqs[next]);
+                changes.add(new BatchCommittedEvent.Change(row.getEventId(), changeSeqs[next],
+                        move.previous.get(i), move.current.get(i)));
+                next++;
+            }
+            rows.add(row);
+        }
+        repository.saveAll(rows);
+        eventPublisher.publishEvent(new BatchCommittedEvent(changes));
+    }
+
+
+    private static MachineEvent copyOf(MachineEvent event) {
+        return new MachineEvent(event.getEventId(), event.getEventTime(), event.getReceivedTime(),
+                event.getMachineId(), event.getDurationMs(), event.getDefectCount(), event.getLineId(),
+                event.getFactoryId(), event.getPayloadHash());
+    }
 
-        return null;
+
+    private Map<String, MachineEvent> findExistingEvents(List<EventDTO> events, int[] validIndexes) {
+        List<String> eventIds = Arrays.stream(validIndexes)
+                .mapToObj(i -> events.get(i).getEventId())
+                .distinct()
+                .collect(Collectors.toList());
+
+        // Chunked so very large batches stay under the driver's bind-parameter limit
+        Map<String, MachineEvent> existingEvents = new HashMap<>();
+        for (int from = 0; from < eventIds.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = eventIds.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, eventIds.size()));
+            for (MachineEvent event : repository.findByEventIdIn(chunk)) {
+                existingEvents.put(event.getEventId(), event);
+            }
+        }
+        return existingEvents;
     }
 
  
@@ -156,32 +426,147 @@ public class EventService {
     }
 
 
-    @Transactional(readOnly = true)
     public StatsResponse getStats(String machineId, Instant start, Instant end) {
-        long eventsCount = repository.countEventsByMachineAndTimeRange(machineId, start, end);
-        long defectsCount = repository.sumDefectsByMachineAndTimeRange(machineId, start, end);
+        return getStats(machineId, null, start, end);
+    }
 
-        double hours = Duration.between(start, end).getSeconds() / 3600.0;
-        double avgDefectRate = hours > 0 ? defectsCount / hours : 0.0;
-        avgDefectRate = Math.round(avgDefectRate * 10.0) / 10.0;
 
-        String status = avgDefectRate < HEALTHY_DEFECT_RATE_THRESHOLD ? "Healthy" : "Warning";
+    /**
+     * When line rules set thresholds, the machine's line is the line of its latest event in the window,
+     * so the status depends only on the stored rows.
+     *
+     * @param factoryId optional; when sharding by factory it narrows the query to that factory's shard
+     */
+    public StatsResponse getStats(String machineId, String factoryId, Instant start, Instant end) {
+        StatsQueryEvent event = new StatsQueryEvent("stats");
+        event.begin();
+        long eventsCount = 0;
+        long defectsCount = 0;
+        boolean needsLine = healthPolicy.thresholdDependsOnLine(machineId);
+        List<Integer> shards = shardRouter.shardsFor(factoryId, machineId);
+        // Counts and sums are additive, so shards are simply summed
+        List<Object[]> perShard = shardRouter.onShards(shards,
+                shard -> readOnlyTransaction.execute(status -> new Object[]{
+                        repository.countEventsByMachineAndTimeRange(machineId, start, end),
+                        repository.sumDefectsByMachineAndTimeRange(machineId, start, end),
+                        needsLine ? repository.findLatestLineByMachineAndTimeRange(machineId, start, end,
+                                PageRequest.of(0, 1)) : List.<Object[]>of()}));
+        String lineId = null;
+        Instant lineSeenAt = null;
+        for (Object[] totals : perShard) {
+            eventsCount += (Long) totals[0];
+            defectsCount += (Long) totals[1];
+            for (Object row : (List<?>) totals[2]) {
+                Object[] latest = (Object[]) row;
+                Instant eventTime = (Instant) latest[1];
+                if (lineSeenAt == null || eventTime.isAfter(lineSeenAt)) {
+                    lineId = (String) latest[0];
+                    lineSeenAt = eventTime;
+                }
+            }
+        }
+
+        double avgDefectRate = defectRatePerHour(defectsCount, start, end);
+        String status = healthPolicy.status(machineId, lineId, avgDefectRate);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.setMachineId(machineId);
+            event.setFactoryId(factoryId);
+            event.setWindowSeconds(Duration.between(start, end).getSeconds());
+            event.setShards(shards.size());
+            event.setResultSize(eventsCount);
+            event.commit();
+        }
 
         return new StatsResponse(machineId, start, end, eventsCount, defectsCount, avgDefectRate, status);
     }
 
 
-    @Transactional(readOnly = true)
+    public static double defectRatePerHour(long defectsCount, Instant start, Instant end) {
+        double hours = Duration.between(start, end).getSeconds() / 3600.0;
+        double avgDefectRate = hours > 0 ? defectsCount / hours : 0.0;
+        return Math.round(avgDefectRate * 10.0) / 10.0;
+    }
+
+
     public List<TopDefectLineResponse> getTopDefectLines(String factoryId, Instant from, Instant to, int limit) {
-        List<Object[]> results = repository.findTopDefectLines(factoryId, from, to);
+        StatsQueryEvent event = new StatsQueryEvent("topDefectLines");
+        event.begin();
+        List<List<Object[]>> perShard = shardRouter.onShards(shardRouter.shardsFor(factoryId, null),
+                shard -> readOnlyTransaction.execute(status -> repository.findTopDefectLines(factoryId, from, to)));
+        List<TopDefectLineResponse> result = rankTopDefectLines(perShard, limit);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.setFactoryId(factoryId);
+            event.setWindowSeconds(Duration.between(from, to).getSeconds());
+            event.setShards(perShard.size());
+            event.setResultSize(result.size());
+            event.commit();
+        }
+        return result;
+    }
+
+
+    private static List<TopDefectLineResponse> rankTopDefectLines(List<List<Object[]>> perShard, int limit) {
+        if (perShard.size() == 1) {
+            return perShard.get(0).stream()
+                    .limit(limit)
+                    .map(row -> new TopDefectLineResponse(
+                            (String) row[0],
+                            ((Number) row[1]).longValue(),
+                            ((Number) row[2]).longValue()
+                    ))
+                    .collect(Collectors.toList());
+        }
 
-        return results.stream()
+        // A line's events can sit on several shards: add up its totals before ranking
+        Map<String, long[]> byLine = new HashMap<>();
+        for (List<Object[]> rows : perShard) {
+            for (Object[] row : rows) {
+                long[] totals = byLine.computeIfAbsent((String) row[0], key -> new long[2]);
+                totals[0] += ((Number) row[1]).longValue();
+                totals[1] += ((Number) row[2]).longValue();
+            }
+        }
+        return byLine.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[0]).reversed())
                 .limit(limit)
-                .map(row -> new TopDefectLineResponse(
-                        (String) row[0],
-                        ((Number) row[1]).longValue(),
-                        ((Number) row[2]).longValue()
-                ))
+                .map(entry -> new TopDefectLineResponse(entry.getKey(), entry.getValue()[0], entry.getValue()[1]))
                 .collect(Collectors.toList());
     }
+
+
+    /**
+     * One shard's {accepted, updated, deduped} counts, plus the rows it hands to other shards.
+     */
+    private static class ShardWrite {
+        private final int[] counts;
+        private final List<Move> moves;
+
+        ShardWrite(int[] counts, List<Move> moves) {
+            this.counts = counts;
+            this.moves = moves;
+        }
+    }
+
+    /**
+     * A row whose update changed its shard key; {@code fromId} is null when the row was new in this batch.
+     */
+    private static class Move {
+        private final int fromShard;
+        private final Long fromId;
+        private final int toShard;
+        private final MachineEvent row;
+        private final List<BatchCommittedEvent.Values> previous = new ArrayList<>();
+        private final List<BatchCommittedEvent.Values> current = new ArrayList<>();
+
+        Move(int fromShard, Long fromId, int toShard, MachineEvent row) {
+            this.fromShard = fromShard;
+            this.fromId = fromId;
+            this.toShard = toShard;
+            this.row = row;
+        }
+    }
 }
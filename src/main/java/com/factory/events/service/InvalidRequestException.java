@@ -0,0 +1,12 @@
+package com.factory.events.service;
+
+/**
+ * A request parameter the caller got wrong; answered with 400 INVALID_REQUEST. Internal checks keep
+ * throwing IllegalArgumentException so that bugs surface as server errors, not as client mistakes.
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,34 @@
+package com.factory.events.shard;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread's connections go to. Read by the routing data source when a
+ * transaction obtains its connection, so it must be set before the transaction starts.
+ * Unset means shard 0, the spring.datasource database.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {}
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard != null ? shard : 0;
+    }
+
+    public static <T> T on(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.factory.events.shard;
+
+import com.factory.events.config.DataSourceRoute;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ingest and query pools per shard. Shard 0 reuses the pools built from spring.datasource; the
+ * pools of the other shards are created here and closed with the context.
+ */
+public class ShardDataSources implements DisposableBean {
+
+    private final List<DataSource> primaries = new ArrayList<>();
+    private final List<DataSource> queries = new ArrayList<>();
+    private final List<HikariDataSource> owned = new ArrayList<>();
+
+    public ShardDataSources(DataSource primaryDataSource, DataSource queryDataSource) {
+        primaries.add(primaryDataSource);
+        queries.add(queryDataSource);
+    }
+
+    public void addShard(HikariDataSource primary, HikariDataSource query) {
+        primaries.add(primary);
+        queries.add(query);
+        owned.add(primary);
+        owned.add(query);
+    }
+
+    public int size() {
+        return primaries.size();
+    }
+
+    /**
+     * @param route PRIMARY for the ingest pool; QUERY and REPLICA both use the query pool
+     */
+    public DataSource get(int shard, DataSourceRoute route) {
+        return route == DataSourceRoute.PRIMARY ? primaries.get(shard) : queries.get(shard);
+    }
+
+    /**
+     * @return the ingest pool of every shard, in shard order
+     */
+    public List<DataSource> primaries() {
+        return List.copyOf(primaries);
+    }
+
+    @Override
+    public void destroy() {
+        owned.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,164 @@
+package com.factory.events.shard;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Maps factoryId or machineId (per {@code events.sharding.strategy}) to a shard and runs work on
+ * one or several shards. Work on several shards runs in parallel, one shard per worker, with the
+ * calling thread taking the first shard itself.
+ *
+ * The mapping is a plain hash modulo the shard count: adding a shard moves existing keys, so the
+ * shard count is fixed for the lifetime of a dataset. With a single shard everything runs inline.
+ */
+@Component
+public class ShardRouter {
+
+    private final ShardStrategy strategy;
+    private final int shardCount;
+    private final List<Integer> allShards;
+    private final ExecutorService workers;
+
+    private final AtomicLong singleShardCalls = new AtomicLong();
+    private final AtomicLong fanOutCalls = new AtomicLong();
+
+    public ShardRouter(ShardingProperties properties) {
+        List<Integer> configured = new ArrayList<>(properties.getShards().keySet());
+        for (int i = 0; i < configured.size(); i++) {
+            if (configured.get(i) != i + 1) {
+                throw new IllegalStateException("events.sharding.shards must be numbered 1.." + configured.size()
+                        + " (shard 0 is spring.datasource), got " + configured);
+            }
+        }
+        this.strategy = properties.getStrategy();
+        this.shardCount = configured.size() + 1;
+        this.allShards = IntStream.range(0, shardCount).boxed().collect(Collectors.toUnmodifiableList());
+
+        int threads = properties.getWorkerThreads() > 0 ? properties.getWorkerThreads() : 2 * shardCount;
+        AtomicLong threadIds = new AtomicLong();
+        this.workers = shardCount == 1 ? null : Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "shard-worker-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getShardCount() { return shardCount; }
+    public ShardStrategy getStrategy() { return strategy; }
+    public List<Integer> allShards() { return allShards; }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    /**
+     * The shard an event with these values is written to. A missing factoryId goes to shard 0.
+     */
+    public int shardFor(String factoryId, String machineId) {
+        String key = strategy == ShardStrategy.FACTORY ? factoryId : machineId;
+        if (shardCount == 1 || key == null) {
+            return 0;
+        }
+        return Math.floorMod(key.hashCode(), shardCount);
+    }
+
+    /**
+     * The shards that can hold rows matching the given filters; every shard unless the filter
+     * includes the shard key.
+     */
+    public List<Integer> shardsFor(String factoryId, String machineId) {
+        String key = strategy == ShardStrategy.FACTORY ? factoryId : machineId;
+        if (shardCount == 1 || key != null) {
+            return List.of(shardFor(factoryId, machineId));
+        }
+        return allShards;
+    }
+
+    public <T> T onShard(int shard, Supplier<T> action) {
+        singleShardCalls.incrementAndGet();
+        return shard == ShardContext.current() ? action.get() : ShardContext.on(shard, action);
+    }
+
+    /**
+     * Runs {@code work} once per shard with {@link ShardContext} set, in parallel.
+     *
+     * @return the results in the order of {@code shards}
+     */
+    public <T> List<T> onShards(List<Integer> shards, IntFunction<T> work) {
+        if (shards.size() == 1) {
+            int shard = shards.get(0);
+            return List.of(onShard(shard, () -> work.apply(shard)));
+        }
+        fanOutCalls.incrementAndGet();
+        List<CompletableFuture<T>> others = new ArrayList<>(shards.size() - 1);
+        for (int shard : shards.subList(1, shards.size())) {
+            others.add(CompletableFuture.supplyAsync(() -> ShardContext.on(shard, () -> work.apply(shard)), workers));
+        }
+        int first = shards.get(0);
+        List<T> results = new ArrayList<>(shards.size());
+        RuntimeException failure = null;
+        try {
+            results.add(ShardContext.on(first, () -> work.apply(first)));
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        // Wait for every shard even after a failure, so none is still running when the caller reacts
+        for (CompletableFuture<T> future : others) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * {@link #onShards} for work without a result, such as DDL or cleanup run on every shard.
+     */
+    public void forEachShard(List<Integer> shards, IntConsumer work) {
+        onShards(shards, shard -> {
+            work.accept(shard);
+            return Boolean.TRUE;
+        });
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        snapshot.put("shards", (long) shardCount);
+        snapshot.put("singleShardCalls", singleShardCalls.get());
+        snapshot.put("fanOutCalls", fanOutCalls.get());
+        return snapshot;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.factory.events.shard;
+
+public enum ShardStrategy {
+    /** All events of a factory live on one shard; top-defect-lines and factory feeds hit a single shard. */
+    FACTORY,
+    /** Events are spread by machineId hash; per-machine stats and windows hit a single shard. */
+    MACHINE_HASH
+}
@@ -0,0 +1,56 @@
+package com.factory.events.shard;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Shard 0 is always the spring.datasource database. {@code events.sharding.shards[1..N]} add
+ * further databases; with none configured the service runs unsharded.
+ */
+@Component
+@ConfigurationProperties("events.sharding")
+public class ShardingProperties {
+
+    private ShardStrategy strategy = ShardStrategy.FACTORY;
+    private Map<Integer, Shard> shards = new TreeMap<>();
+    private int workerThreads = 0;
+
+    public ShardStrategy getStrategy() { return strategy; }
+    public void setStrategy(ShardStrategy strategy) { this.strategy = strategy; }
+
+    public Map<Integer, Shard> getShards() { return shards; }
+    public void setShards(Map<Integer, Shard> shards) { this.shards = new TreeMap<>(shards); }
+
+    public int getWorkerThreads() { return workerThreads; }
+    public void setWorkerThreads(int workerThreads) { this.workerThreads = workerThreads; }
+
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 10;
+        private int queryMaximumPoolSize = 5;
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+
+        public String getDriverClassName() { return driverClassName; }
+        public void setDriverClassName(String driverClassName) { this.driverClassName = driverClassName; }
+
+        public int getMaximumPoolSize() { return maximumPoolSize; }
+        public void setMaximumPoolSize(int maximumPoolSize) { this.maximumPoolSize = maximumPoolSize; }
+
+        public int getQueryMaximumPoolSize() { return queryMaximumPoolSize; }
+        public void setQueryMaximumPoolSize(int queryMaximumPoolSize) { this.queryMaximumPoolSize = queryMaximumPoolSize; }
+    }
+}
@@ -0,0 +1,197 @@
+package com.factory.events.sketch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mergeable quantile sketch for durations in milliseconds, using the bucketing scheme of DDSketch.
+ *
+ * A value v >= 1 lands in bucket i = ceil(log_gamma(v)) with gamma = (1 + a) / (1 - a). Every value
+ * in a bucket is within relative error a of the bucket's representative 2 * gamma^i / (gamma + 1), so
+ * any quantile is returned with relative error at most a (rank error is zero). Sketches with the
+ * same accuracy merge by adding bucket counts, and values can be removed again, which updates need.
+ * Durations of 0 ms are counted separately and reported exactly.
+ *
+ * At a = 1% durations from 1 ms to 6 hours span about 850 buckets. Only the range between the
+ * smallest and largest bucket seen is allocated. Not thread-safe.
+ */
+public class DurationSketch {
+
+    private static final int GROWTH_MARGIN = 16;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    private long zeroCount;
+    private long count;
+    private int offset;
+    private int[] counts = new int[0];
+
+    public DurationSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("relativeAccuracy must be in (0, 1)");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public double getRelativeAccuracy() { return relativeAccuracy; }
+    public long getCount() { return count; }
+
+    public void add(long durationMs) {
+        adjust(durationMs, 1);
+    }
+
+    /**
+     * Removes a value previously added. Removing a value that was never added is ignored.
+     */
+    public void remove(long durationMs) {
+        adjust(durationMs, -1);
+    }
+
+    public void merge(DurationSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                int index = other.offset + i;
+                ensureCapacity(index);
+                counts[index - offset] += other.counts[i];
+            }
+        }
+    }
+
+    /**
+     * @param q quantile in [0, 1]
+     * @return the estimated value in ms, or NaN if the sketch is empty
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be in [0, 1]");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double rank = q * (count - 1);
+        long cumulative = zeroCount;
+        if (cumulative > rank) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative > rank) {
+                return representative(offset + i);
+            }
+        }
+        return representative(offset + counts.length - 1);
+    }
+
+    /**
+     * Groups adjacent buckets so the result has at most {@code maxBins} bins (plus one for 0 ms).
+     *
+     * @return {lowerMs, upperMs, count} per non-empty bin, lower bound exclusive except for the 0 ms bin
+     */
+    public List<double[]> histogram(int maxBins) {
+        List<double[]> bins = new ArrayList<>();
+        if (zeroCount > 0) {
+            bins.add(new double[]{0, 0, zeroCount});
+        }
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                if (first < 0) {
+                    first = i;
+                }
+                last = i;
+            }
+        }
+        if (first < 0) {
+            return bins;
+        }
+        int width = Math.max(1, (int) Math.ceil((last - first + 1) / (double) Math.max(1, maxBins)));
+        for (int start = first; start <= last; start += width) {
+            int end = Math.min(start + width - 1, last);
+            long binCount = 0;
+            for (int i = start; i <= end; i++) {
+                binCount += counts[i];
+            }
+            if (binCount > 0) {
+                bins.add(new double[]{lowerBound(offset + start), upperBound(offset + end), binCount});
+            }
+        }
+        return bins;
+    }
+
+    public DurationSketch copy() {
+        DurationSketch copy = new DurationSketch(relativeAccuracy);
+        copy.zeroCount = zeroCount;
+        copy.count = count;
+        copy.offset = offset;
+        copy.counts = Arrays.copyOf(counts, counts.length);
+        return copy;
+    }
+
+    private void adjust(long durationMs, int delta) {
+        if (durationMs < 0) {
+            throw new IllegalArgumentException("Duration must be >= 0");
+        }
+        if (durationMs == 0) {
+            if (delta > 0 || zeroCount > 0) {
+                zeroCount += delta;
+                count += delta;
+            }
+            return;
+        }
+        int index = index(durationMs);
+        if (delta < 0) {
+            int slot = index - offset;
+            if (slot < 0 || slot >= counts.length || counts[slot] == 0) {
+                return;
+            }
+        } else {
+            ensureCapacity(index);
+        }
+        counts[index - offset] += delta;
+        count += delta;
+    }
+
+    private int index(long value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    private double lowerBound(int index) {
+        return Math.pow(gamma, index - 1);
+    }
+
+    private double upperBound(int index) {
+        return Math.pow(gamma, index);
+    }
+
+    private double representative(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    private void ensureCapacity(int index) {
+        if (counts.length == 0) {
+            counts = new int[GROWTH_MARGIN];
+            offset = index - GROWTH_MARGIN / 2;
+            return;
+        }
+        if (index < offset) {
+            int shift = offset - index + GROWTH_MARGIN;
+            int[] grown = new int[counts.length + shift];
+            System.arraycopy(counts, 0, grown, shift, counts.length);
+            counts = grown;
+            offset -= shift;
+        } else if (index >= offset + counts.length) {
+            counts = Arrays.copyOf(counts, index - offset + 1 + GROWTH_MARGIN);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.factory.events.sketch;
+
+import com.factory.events.config.RoutingDataSource;
+import com.factory.events.repository.MachineEventRepository;
+import com.factory.events.service.BatchCommittedEvent;
+import com.factory.events.service.InvalidRequestException;
+import com.factory.events.shard.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Duration sketches per machine and per line, one per time bucket of {@code events.durations.bucket-minutes},
+ * kept for {@code retention-hours}. Buckets are created and updated as batches commit; each is seeded
+ * from the database once so rows written before startup (or by the bulk importer) are included.
+ * A query merges the buckets that overlap the requested window.
+ */
+@Component
+public class DurationSketchStore {
+
+    public enum Scope { MACHINE, LINE }
+
+    private static final Logger log = LoggerFactory.getLogger(DurationSketchStore.class);
+    private static final long SEED_WAIT_SECONDS = 30;
+
+    private final MachineEventRepository repository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final double relativeAccuracy;
+    private final long bucketMinutes;
+    private final long retentionMinutes;
+
+    private final Map<String, Map<Long, SketchBucket>> machineBuckets = new ConcurrentHashMap<>();
+    private final Map<String, Map<Long, SketchBucket>> lineBuckets = new ConcurrentHashMap<>();
+    private final Executor seedExecutor;
+    private final ScheduledExecutorService evictor;
+
+    private final AtomicLong seeded = new AtomicLong();
+    private final AtomicLong seedFailures = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    @Autowired
+    public DurationSketchStore(MachineEventRepository repository,
+                               PlatformTransactionManager transactionManager,
+                               ShardRouter shardRouter,
+                               @Value("${events.durations.relative-accuracy:0.01}") double relativeAccuracy,
+                               @Value("${events.durations.bucket-minutes:60}") long bucketMinutes,
+                               @Value("${events.durations.retention-hours:24}") long retentionHours,
+                               @Value("${events.durations.seed-threads:2}") int seedThreads) {
+        this(repository, transactionManager, shardRouter, relativeAccuracy, bucketMinutes, retentionHours,
+                seedPool(seedThreads));
+    }
+
+    DurationSketchStore(MachineEventRepository repository,
+                        PlatformTransactionManager transactionManager,
+                        ShardRouter shardRouter,
+                        double relativeAccuracy,
+                        long bucketMinutes,
+                        long retentionHours,
+                        Executor seedExecutor) {
+        this.repository = repository;
+        this.shardRouter = shardRouter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.relativeAccuracy = relativeAccuracy;
+        this.bucketMinutes = bucketMinutes;
+        this.retentionMinutes = TimeUnit.HOURS.toMinutes(retentionHours);
+
+        this.seedExecutor = seedExecutor;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "duration-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictExpired, bucketMinutes, bucketMinutes, TimeUnit.MINUTES);
+    }
+
+    private static ExecutorService seedPool(int threads) {
+        AtomicLong seedThreadIds = new AtomicLong();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "duration-seed-" + seedThreadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public double getRelativeAccuracy() { return relativeAccuracy; }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBatchCommitted(BatchCommittedEvent event) {
+        long oldest = oldestRetainedBucket();
+        for (BatchCommittedEvent.Change change : event.getChanges()) {
+            BatchCommittedEvent.Values previous = change.getPrevious();
+            BatchCommittedEvent.Values current = change.getCurrent();
+            // Removal first: an update inside one bucket is a remove followed by an add
+            if (previous != null) {
+                long bucket = bucketOf(previous.getEventTime());
+                removeFrom(machineBuckets, previous.getMachineId(), bucket, change, previous.getDurationMs());
+                removeFrom(lineBuckets, previous.getLineId(), bucket, change, previous.getDurationMs());
+            }
+            long bucket = bucketOf(current.getEventTime());
+            if (bucket >= oldest) {
+                addTo(machineBuckets, current.getMachineId(), bucket, change, current.getDurationMs());
+                addTo(lineBuckets, current.getLineId(), bucket, change, current.getDurationMs());
+            }
+        }
+    }
+
+    /**
+     * Merges every bucket overlapping [start, end). The window is widened to whole buckets.
+     */
+    public Result query(Scope scope, String id, Instant start, Instant end) {
+        if (!start.isBefore(end)) {
+            throw new InvalidRequestException("start must be before end");
+        }
+        long firstBucket = bucketOf(start);
+        long endMinute = epochMinute(end);
+        long lastBucket = Math.floorDiv(endMinute - 1, bucketMinutes) * bucketMinutes;
+        if (firstBucket < oldestRetainedBucket()) {
+            throw new InvalidRequestException("Duration stats are kept for the last "
+                    + TimeUnit.MINUTES.toHours(retentionMinutes) + " hours only");
+        }
+        lastBucket = Math.min(lastBucket, bucketOf(Instant.now()));
+
+        Map<String, Map<Long, SketchBucket>> index = scope == Scope.MACHINE ? machineBuckets : lineBuckets;
+        DurationSketch merged = new DurationSketch(relativeAccuracy);
+        for (long bucketStart = firstBucket; bucketStart <= lastBucket; bucketStart += bucketMinutes) {
+            SketchBucket bucket = bucketFor(index, scope, id, bucketStart, true, null);
+            awaitSeeded(bucket);
+            bucket.mergeInto(merged);
+        }
+        return new Result(merged, firstBucket, Math.max(firstBucket, lastBucket) + bucketMinutes);
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        snapshot.put("machineBuckets", countBuckets(machineBuckets));
+        snapshot.put("lineBuckets", countBuckets(lineBuckets));
+        snapshot.put("seeded", seeded.get());
+        snapshot.put("seedFailures", seedFailures.get());
+        snapshot.put("evicted", evicted.get());
+        return snapshot;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (seedExecutor instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+        evictor.shutdownNow();
+    }
+
+    public static class Result {
+        private final DurationSketch sketch;
+        private final long startMinute;
+        private final long endMinute;
+
+        Result(DurationSketch sketch, long startMinute, long endMinute) {
+            this.sketch = sketch;
+            this.startMinute = startMinute;
+            this.endMinute = endMinute;
+        }
+
+        public DurationSketch getSketch() { return sketch; }
+        public Instant getStart() { return Instant.ofEpochSecond(startMinute * 60); }
+        public Instant getEnd() { return Instant.ofEpochSecond(endMinute * 60); }
+    }
+
+    private void addTo(Map<String, Map<Long, SketchBucket>> index, String id, long bucketStart,
+                       BatchCommittedEvent.Change change, long durationMs) {
+        if (id == null) {
+            return;
+        }
+        Scope scope = index == machineBuckets ? Scope.MACHINE : Scope.LINE;
+        bucketFor(index, scope, id, bucketStart, false,
+                bucket -> bucket.apply(change.getEventId(), change.getChangeSeq(), durationMs, true));
+    }
+
+    private void removeFrom(Map<String, Map<Long, SketchBucket>> index, String id, long bucketStart,
+                            BatchCommittedEvent.Change change, long durationMs) {
+        if (id == null) {
+            return;
+        }
+        // A bucket nobody created yet will read the current rows when it is seeded
+        Map<Long, SketchBucket> buckets = index.get(id);
+        SketchBucket bucket = buckets != null ? buckets.get(bucketStart) : null;
+        if (bucket != null) {
+            bucket.apply(change.getEventId(), change.getChangeSeq(), durationMs, false);
+        }
+    }
+
+    /**
+     * @param update applied to the bucket before its seed is started, so a seed that finishes first
+     *               still reconciles it by changeSeq; may be null
+     */
+    private SketchBucket bucketFor(Map<String, Map<Long, SketchBucket>> index, Scope scope, String id,
+                                   long bucketStart, boolean seedInline, Consumer<SketchBucket> update) {
+        // Created inside compute() so eviction cannot drop the machine's map while we add to it
+        SketchBucket[] created = new SketchBucket[1];
+        index.compute(id, (key, buckets) -> {
+            Map<Long, SketchBucket> map = buckets != null ? buckets : new ConcurrentHashMap<>();
+            created[0] = map.computeIfAbsent(bucketStart, start -> new SketchBucket(start, relativeAccuracy));
+            return map;
+        });
+        SketchBucket bucket = created[0];
+        if (update != null) {
+            update.accept(bucket);
+        }
+        if (bucket.claimSeed()) {
+            if (seedInline) {
+                seed(scope, id, bucket);
+            } else {
+                seedExecutor.execute(() -> seed(scope, id, bucket));
+            }
+        }
+        return bucket;
+    }
+
+    private void seed(Scope scope, String id, SketchBucket bucket) {
+        Instant from = Instant.ofEpochSecond(bucket.getStartMinute() * 60);
+        Instant to = Instant.ofEpochSecond((bucket.getStartMinute() + bucketMinutes) * 60);
+        try {
+            // The primary, not the replica: rows committed before the bucket existed are never replayed
+            List<Integer> shards = scope == Scope.MACHINE
+                    ? shardRouter.shardsFor(null, id) : shardRouter.allShards();
+            List<Object[]> rows = new ArrayList<>();
+            shardRouter.onShards(shards, shard -> RoutingDataSource.readFromPrimary(() ->
+                    readOnlyTransaction.execute(status -> scope == Scope.MACHINE
+                            ? repository.findDurationRowsByMachine(id, from, to)
+                            : repository.findDurationRowsByLine(id, from, to))))
+                    .forEach(rows::addAll);
+            bucket.seed(rows);
+            seeded.incrementAndGet();
+        } catch (RuntimeException e) {
+            Map<Long, SketchBucket> buckets = (scope == Scope.MACHINE ? machineBuckets : lineBuckets).get(id);
+            if (buckets != null) {
+                buckets.remove(bucket.getStartMinute(), bucket);
+            }
+            seedFailures.incrementAndGet();
+            bucket.ready().completeExceptionally(e);
+            log.warn("Could not seed duration sketch for {} {}: {}", scope, id, e.getMessage());
+        }
+    }
+
+    private void awaitSeeded(SketchBucket bucket) {
+        try {
+            bucket.ready().get(SEED_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while seeding duration sketch", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Duration sketch could not be loaded", e);
+        }
+    }
+
+    private void evictExpired() {
+        try {
+            evictBefore(oldestRetainedBucket());
+        } catch (RuntimeException e) {
+            log.warn("Duration sketch eviction failed", e);
+        }
+    }
+
+    private void evictBefore(long oldest) {
+        for (Map<String, Map<Long, SketchBucket>> index : List.of(machineBuckets, lineBuckets)) {
+            for (String id : index.keySet()) {
+                index.computeIfPresent(id, (key, buckets) -> {
+                    buckets.keySet().removeIf(start -> {
+                        boolean expired = start < oldest;
+                        if (expired) {
+                            evicted.incrementAndGet();
+                        }
+                        return expired;
+                    });
+                    return buckets.isEmpty() ? null : buckets;
+                });
+            }
+        }
+    }
+
+    private long countBuckets(Map<String, Map<Long, SketchBucket>> index) {
+        return index.values().stream().mapToLong(Map::size).sum();
+    }
+
+    private long oldestRetainedBucket() {
+        return bucketOf(Instant.now()) - retentionMinutes;
+    }
+
+    private long bucketOf(Instant instant) {
+        return Math.floorDiv(epochMinute(instant), bucketMinutes) * bucketMinutes;
+    }
+
+    private static long epochMinute(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), 60);
+    }
+}
@@ -0,0 +1,93 @@
+package com.factory.events.sketch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The sketch for one machine or line and one time bucket. Changes that arrive before the bucket is
+ * seeded are buffered and reconciled against the seed rows by changeSeq, as in the health windows.
+ */
+class SketchBucket {
+
+    private final long startMinute;
+    private final DurationSketch sketch;
+    private final AtomicBoolean seedClaimed = new AtomicBoolean();
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+    private List<PendingChange> pending = new ArrayList<>();
+
+    private static class PendingChange {
+        private final String eventId;
+        private final long changeSeq;
+        private final long durationMs;
+        private final boolean add;
+
+        PendingChange(String eventId, long changeSeq, long durationMs, boolean add) {
+            this.eventId = eventId;
+            this.changeSeq = changeSeq;
+            this.durationMs = durationMs;
+            this.add = add;
+        }
+    }
+
+    SketchBucket(long startMinute, double relativeAccuracy) {
+        this.startMinute = startMinute;
+        this.sketch = new DurationSketch(relativeAccuracy);
+    }
+
+    long getStartMinute() { return startMinute; }
+    CompletableFuture<Void> ready() { return ready; }
+
+    boolean claimSeed() {
+        return seedClaimed.compareAndSet(false, true);
+    }
+
+    synchronized void apply(String eventId, long changeSeq, long durationMs, boolean add) {
+        if (pending != null) {
+            pending.add(new PendingChange(eventId, changeSeq, durationMs, add));
+        } else if (add) {
+            sketch.add(durationMs);
+        } else {
+            sketch.remove(durationMs);
+        }
+    }
+
+    /**
+     * @param rows {eventId, changeSeq, durationMs} for every row currently in this bucket
+     */
+    synchronized void seed(List<Object[]> rows) {
+        Map<String, Long> seededChangeSeqs = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            if (row[1] != null) {
+                seededChangeSeqs.put((String) row[0], ((Number) row[1]).longValue());
+            }
+            sketch.add(((Number) row[2]).longValue());
+        }
+
+        // A buffered removal only applies if the value it removes is actually counted here
+        Set<String> addedFromPending = new HashSet<>();
+        for (PendingChange change : pending) {
+            Long seen = seededChangeSeqs.get(change.eventId);
+            if (seen != null && seen >= change.changeSeq) {
+                continue;
+            }
+            if (change.add) {
+                sketch.add(change.durationMs);
+                addedFromPending.add(change.eventId);
+            } else if (seen != null || addedFromPending.remove(change.eventId)) {
+                sketch.remove(change.durationMs);
+            }
+        }
+        pending = null;
+        ready.complete(null);
+    }
+
+    synchronized void mergeInto(DurationSketch target) {
+        target.merge(sketch);
+    }
+}
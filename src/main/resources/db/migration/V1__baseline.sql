@@ -0,0 +1,26 @@
+-- Schema as of the switch from Hibernate ddl-auto to versioned migrations, on every shard.
+-- IF NOT EXISTS throughout so databases Hibernate already created are adopted as-is (PostgreSQL and H2).
+CREATE TABLE IF NOT EXISTS machine_events (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    event_id VARCHAR(255) NOT NULL,
+    event_time TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    received_time TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    machine_id VARCHAR(255) NOT NULL,
+    duration_ms BIGINT NOT NULL,
+    defect_count INTEGER NOT NULL,
+    line_id VARCHAR(255),
+    factory_id VARCHAR(255),
+    version BIGINT,
+    payload_hash VARCHAR(255) NOT NULL,
+    change_seq BIGINT
+);
+-- Databases created by ddl-auto before the change feed existed lack change_seq
+ALTER TABLE machine_events ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_event_id ON machine_events (event_id);
+CREATE INDEX IF NOT EXISTS idx_machine_time ON machine_events (machine_id, event_time);
+CREATE INDEX IF NOT EXISTS idx_line_time ON machine_events (line_id, event_time);
+CREATE INDEX IF NOT EXISTS idx_change_seq ON machine_events (change_seq);
+CREATE INDEX IF NOT EXISTS idx_machine_change ON machine_events (machine_id, change_seq);
+CREATE INDEX IF NOT EXISTS idx_factory_change ON machine_events (factory_id, change_seq);
+-- Change-feed positions; only shard 0's sequence is used
+CREATE SEQUENCE IF NOT EXISTS machine_event_change_seq;
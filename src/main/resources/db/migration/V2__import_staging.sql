@@ -0,0 +1,18 @@
+-- Staging table for the bulk importer (StagingLoader), on every shard.
+-- IF NOT EXISTS throughout so tables the importer created at runtime before this migration are adopted.
+CREATE TABLE IF NOT EXISTS machine_events_staging (
+    chunk_id BIGINT NOT NULL,
+    seq INTEGER NOT NULL,
+    event_id VARCHAR(255) NOT NULL,
+    event_time TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    received_time TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    machine_id VARCHAR(255) NOT NULL,
+    duration_ms BIGINT NOT NULL,
+    defect_count INTEGER NOT NULL,
+    line_id VARCHAR(255),
+    factory_id VARCHAR(255),
+    payload_hash VARCHAR(255) NOT NULL,
+    change_seq BIGINT NOT NULL
+);
+ALTER TABLE machine_events_staging ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+CREATE INDEX IF NOT EXISTS idx_staging_chunk_event ON machine_events_staging (chunk_id, event_id, seq);
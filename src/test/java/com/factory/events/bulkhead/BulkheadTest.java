@@ -0,0 +1,57 @@
+package com.factory.events.bulkhead;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    @Test
+    void testRejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (Bulkhead bulkhead = new Bulkhead("test", 1, 1, 0, 3)) {
+            CompletableFuture<Integer> running = bulkhead.submit(() -> await(release));
+            CompletableFuture<Integer> queued = bulkhead.submit(() -> 2);
+
+            BulkheadFullException e = assertThrows(BulkheadFullException.class, () -> bulkhead.submit(() -> 3));
+            assertEquals("test", e.getWorkload());
+            assertEquals(3, e.getRetryAfterSeconds());
+
+            release.countDown();
+            assertEquals(1, running.get(5, TimeUnit.SECONDS));
+            assertEquals(2, queued.get(5, TimeUnit.SECONDS));
+            assertEquals(1L, bulkhead.snapshot().get("rejected"));
+        }
+    }
+
+    @Test
+    void testShedsWorkThatWaitedTooLong() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (Bulkhead bulkhead = new Bulkhead("test", 1, 4, 200, 1)) {
+            CompletableFuture<Integer> running = bulkhead.submit(() -> await(release));
+            CompletableFuture<Integer> queued = bulkhead.submit(() -> 2);
+
+            Thread.sleep(400);
+            release.countDown();
+
+            assertEquals(1, running.get(5, TimeUnit.SECONDS));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof BulkheadFullException);
+            assertEquals(1L, bulkhead.snapshot().get("shed"));
+        }
+    }
+
+    private int await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 1;
+    }
+}
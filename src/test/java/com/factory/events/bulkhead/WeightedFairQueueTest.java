@@ -0,0 +1,63 @@
+package com.factory.events.bulkhead;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightedFairQueueTest {
+
+    @Test
+    void testInterleavesTenantsInsteadOfFifo() {
+        WeightedFairQueue queue = new WeightedFairQueue(100, 100, 1000);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.offer(task("noisy", 1, 1000)));
+        }
+        assertTrue(queue.offer(task("quiet", 1, 1000)));
+
+        List<String> order = drain(queue);
+        assertTrue(order.indexOf("quiet") <= 1, "quiet tenant waited behind the backlog: " + order);
+        assertEquals(6, order.size());
+    }
+
+    @Test
+    void testWeightsSplitWorkProportionally() {
+        WeightedFairQueue queue = new WeightedFairQueue(100, 100, 100);
+        for (int i = 0; i < 20; i++) {
+            queue.offer(task("heavy", 3, 100));
+            queue.offer(task("light", 1, 100));
+        }
+
+        List<String> firstEight = drain(queue).subList(0, 8);
+        assertEquals(6, firstEight.stream().filter("heavy"::equals).count());
+        assertEquals(2, firstEight.stream().filter("light"::equals).count());
+    }
+
+    @Test
+    void testTenantCapacityLeavesRoomForOthers() {
+        WeightedFairQueue queue = new WeightedFairQueue(10, 2, 1000);
+
+        assertTrue(queue.offer(task("noisy", 1, 1)));
+        assertTrue(queue.offer(task("noisy", 1, 1)));
+        assertFalse(queue.offer(task("noisy", 1, 1)));
+        assertTrue(queue.offer(task("quiet", 1, 1)));
+        assertEquals(Map.of("noisy", 2, "quiet", 1), queue.queuedByTenant());
+        assertEquals(7, queue.remainingCapacity());
+    }
+
+    private static TenantTask task(String tenant, int weight, long cost) {
+        return new TenantTask(tenant, weight, cost, () -> { });
+    }
+
+    private static List<String> drain(WeightedFairQueue queue) {
+        List<String> order = new ArrayList<>();
+        TenantTask task;
+        while ((task = (TenantTask) queue.poll()) != null) {
+            order.add(task.getTenant());
+        }
+        return order;
+    }
+}
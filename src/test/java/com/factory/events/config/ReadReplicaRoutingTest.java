@@ -0,0 +1,108 @@
+package com.factory.events.config;
+
+import com.factory.events.dto.EventDTO;
+import com.factory.events.dto.StatsResponse;
+import com.factory.events.repository.MachineEventRepository;
+import com.factory.events.service.EventService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "events.datasource.replica.enabled=true",
+        "events.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "events.datasource.replica.lag-query=",
+        "events.datasource.replica.check-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class ReadReplicaRoutingTest {
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private MachineEventRepository repository;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private ReplicaHealthMonitor replicaHealthMonitor;
+
+    @Autowired
+    private DataSourceRouteMetrics routeMetrics;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+
+        // Two independent H2 instances: give the replica the primary's schema but none of its rows
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("DROP ALL OBJECTS");
+        List<String> schema = new JdbcTemplate(primaryDataSource).queryForList("SCRIPT NODATA", String.class);
+        for (String statement : schema) {
+            if (!statement.startsWith("--")) {
+                replica.execute(statement);
+            }
+        }
+        replicaHealthMonitor.checkNow();
+    }
+
+    @Test
+    void testReadOnlyQueriesRouteToReplica() {
+        Instant start = Instant.now().minus(1, ChronoUnit.HOURS);
+        eventService.ingestBatch(Collections.singletonList(createEventDTO("E-R1", start.plus(5, ChronoUnit.MINUTES))));
+        long replicaConnectionsBefore = routeMetrics.snapshot().get("connections.replica");
+
+        StatsResponse stats = eventService.getStats("M-001", start, Instant.now());
+
+        assertTrue(replicaHealthMonitor.isReplicaUsable());
+        assertEquals(0, stats.getEventsCount(), "Replica has not received the primary's rows");
+        assertTrue(routeMetrics.snapshot().get("connections.replica") > replicaConnectionsBefore);
+    }
+
+    @Test
+    void testFallsBackToPrimaryWhenReplicaDown() {
+        Instant start = Instant.now().minus(1, ChronoUnit.HOURS);
+        eventService.ingestBatch(Collections.singletonList(createEventDTO("E-R2", start.plus(5, ChronoUnit.MINUTES))));
+        long fallbacksBefore = routeMetrics.snapshot().get("replica.fallbacks");
+
+        replicaHealthMonitor.markDown(new SQLException("simulated outage"));
+        StatsResponse stats = eventService.getStats("M-001", start, Instant.now());
+
+        assertFalse(replicaHealthMonitor.isReplicaUsable());
+        assertEquals(1, stats.getEventsCount());
+        assertTrue(routeMetrics.snapshot().get("replica.fallbacks") > fallbacksBefore);
+    }
+
+    private EventDTO createEventDTO(String eventId, Instant eventTime) {
+        EventDTO dto = new EventDTO();
+        dto.setEventId(eventId);
+        dto.setEventTime(eventTime);
+        dto.setMachineId("M-001");
+        dto.setDurationMs(1000L);
+        dto.setDefectCount(1);
+        dto.setLineId("L-001");
+        dto.setFactoryId("F-01");
+        return dto;
+    }
+}
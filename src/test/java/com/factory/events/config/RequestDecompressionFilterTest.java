@@ -0,0 +1,123 @@
+package com.factory.events.config;
+
+import com.factory.events.repository.MachineEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "events.compression.request.max-inflated-bytes=4096")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RequestDecompressionFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MachineEventRepository repository;
+
+    @Test
+    void testGzipBodyIsInflated() throws Exception {
+        byte[] body = gzip(batch("E-GZ", 2));
+
+        MvcResult pending = mockMvc.perform(post("/api/events/batch").header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .contentType(MediaType.APPLICATION_JSON).content(body)).andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2));
+    }
+
+    @Test
+    void testDeflateBodyIsInflated() throws Exception {
+        byte[] body = deflate(batch("E-DF", 3));
+
+        MvcResult pending = mockMvc.perform(post("/api/events/batch").header(HttpHeaders.CONTENT_ENCODING, "deflate")
+                .contentType(MediaType.APPLICATION_JSON).content(body)).andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(3));
+    }
+
+    @Test
+    void testUnsupportedEncodingIsRejected() throws Exception {
+        mockMvc.perform(post("/api/events/batch").header(HttpHeaders.CONTENT_ENCODING, "br")
+                        .contentType(MediaType.APPLICATION_JSON).content(batch("E-BR", 1)))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    void testMalformedGzipBodyIsRejected() throws Exception {
+        // Plain JSON labelled as gzip, and an empty body: neither has a gzip header
+        mockMvc.perform(post("/api/events/batch").header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .contentType(MediaType.APPLICATION_JSON).content(batch("E-BAD", 1)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/events/batch").header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .contentType(MediaType.APPLICATION_JSON).content(new byte[0]))
+                .andExpect(status().isBadRequest());
+        assertFalse(repository.findByEventId("E-BAD-0").isPresent());
+    }
+
+    @Test
+    void testBodyInflatingPastLimitIsRejected() throws Exception {
+        // About 9 KB of JSON once inflated, a fraction of that on the wire; the read fails before
+        // the controller sees a complete batch
+        byte[] body = gzip(batch("E-BIG", 60));
+
+        mockMvc.perform(post("/api/events/batch").header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+        assertFalse(repository.findByEventId("E-BIG-0").isPresent());
+    }
+
+    private static String batch(String prefix, int count) {
+        String eventTime = Instant.now().minus(1, ChronoUnit.HOURS).toString();
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            json.append(i > 0 ? "," : "")
+                    .append("{\"eventId\":\"").append(prefix).append('-').append(i)
+                    .append("\",\"eventTime\":\"").append(eventTime)
+                    .append("\",\"machineId\":\"M-GZ\",\"durationMs\":1000,\"defectCount\":0,")
+                    .append("\"lineId\":\"L-GZ\",\"factoryId\":\"F-01\"}");
+        }
+        return json.append(']').toString();
+    }
+
+    private static byte[] gzip(String body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] deflate(String body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(bytes)) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,115 @@
+package com.factory.events.controller;
+
+import com.factory.events.bulkhead.Bulkhead;
+import com.factory.events.bulkhead.BulkheadFullException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doReturn;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "events.ratelimit.tenants[T-LIMITED].burst-events=1",
+        "events.ratelimit.tenants[T-LIMITED].events-per-second=0.01",
+        "events.ratelimit.tenants[T-SHED].burst-events=1",
+        "events.ratelimit.tenants[T-SHED].events-per-second=0.01"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class EventControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SpyBean(name = "ingestBulkhead")
+    private Bulkhead ingestBulkhead;
+
+    @Test
+    void testInvalidParameterIsBadRequest() throws Exception {
+        MvcResult pending = mockMvc.perform(get("/api/events/changes").param("limit", "0")).andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("INVALID_REQUEST"));
+    }
+
+    @Test
+    void testOverQuotaBatchIsTooManyRequests() throws Exception {
+        MvcResult accepted = mockMvc.perform(post("/api/events/batch").header("X-Tenant-Id", "T-LIMITED")
+                .contentType(MediaType.APPLICATION_JSON).content(batch("E-RL-1", "F-01"))).andReturn();
+        mockMvc.perform(asyncDispatch(accepted))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1));
+
+        MvcResult throttled = mockMvc.perform(post("/api/events/batch").header("X-Tenant-Id", "T-LIMITED")
+                        .contentType(MediaType.APPLICATION_JSON).content(batch("E-RL-2", "F-01")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.error").value("RATE_LIMITED"))
+                .andReturn();
+        // One token refills every 100 seconds
+        long retryAfter = Long.parseLong(throttled.getResponse().getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(retryAfter > 90 && retryAfter <= 100, "Retry-After " + retryAfter);
+    }
+
+    @Test
+    void testShedBatchGivesItsTokensBack() throws Exception {
+        // As if the batch had waited in the queue past max-queue-wait-ms
+        doReturn(CompletableFuture.failedFuture(new BulkheadFullException("ingest", "shed", 1)))
+                .when(ingestBulkhead).submit(eq("T-SHED"), anyInt(), anyLong(), any());
+        MvcResult shed = mockMvc.perform(post("/api/events/batch").header("X-Tenant-Id", "T-SHED")
+                .contentType(MediaType.APPLICATION_JSON).content(batch("E-SHED-1", "F-01"))).andReturn();
+        mockMvc.perform(asyncDispatch(shed))
+                .andExpect(status().isServiceUnavailable());
+
+        // The tenant's only token is available again
+        doCallRealMethod().when(ingestBulkhead).submit(eq("T-SHED"), anyInt(), anyLong(), any());
+        MvcResult accepted = mockMvc.perform(post("/api/events/batch").header("X-Tenant-Id", "T-SHED")
+                .contentType(MediaType.APPLICATION_JSON).content(batch("E-SHED-2", "F-01"))).andReturn();
+        mockMvc.perform(asyncDispatch(accepted))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1));
+    }
+
+    @Test
+    void testMixedFactoryBatchWithoutTenantHeaderIsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/events/batch")
+                        .contentType(MediaType.APPLICATION_JSON).content(batch("E-MIX-1", "F-01", "F-02")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("INVALID_REQUEST"));
+    }
+
+    private static String batch(String eventId, String... factoryIds) {
+        String eventTime = Instant.now().minus(1, ChronoUnit.HOURS).toString();
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < factoryIds.length; i++) {
+            json.append(i > 0 ? "," : "")
+                    .append("{\"eventId\":\"").append(eventId).append('-').append(i)
+                    .append("\",\"eventTime\":\"").append(eventTime)
+                    .append("\",\"machineId\":\"M-RL\",\"durationMs\":1000,\"defectCount\":0,")
+                    .append("\"factoryId\":\"").append(factoryIds[i]).append("\"}");
+        }
+        return json.append(']').toString();
+    }
+}
@@ -0,0 +1,135 @@
+package com.factory.events.generator;
+
+import com.factory.events.dto.EventDTO;
+import com.factory.events.service.BatchPreprocessor;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetGeneratorTest {
+
+    @Test
+    void testSameSeedProducesSameChunksInAnyOrder() {
+        GeneratorProperties settings = settings(20_000, 1000);
+        DatasetGenerator first = new DatasetGenerator(settings);
+        DatasetGenerator second = new DatasetGenerator(settings);
+
+        for (long chunk = first.getChunkCount() - 1; chunk >= 0; chunk--) {
+            assertEquals(hashes(first.chunk(chunk)), hashes(second.chunk(chunk)));
+        }
+        settings.setSeed(7);
+        assertFalse(hashes(first.chunk(3)).equals(hashes(new DatasetGenerator(settings).chunk(3))));
+    }
+
+    @Test
+    void testRatiosAndShapeAreRoughlyAsConfigured() {
+        GeneratorProperties settings = settings(100_000, 5000);
+        DatasetGenerator generator = new DatasetGenerator(settings);
+
+        int[] kinds = new int[4];
+        long late = 0;
+        long fresh = 0;
+        Map<String, Long> defectsByLine = new HashMap<>();
+        for (long chunk = 0; chunk < generator.getChunkCount(); chunk++) {
+            byte[] plan = new byte[generator.chunkSize(chunk)];
+            generator.plan(chunk, plan, new int[plan.length]);
+            List<EventDTO> batch = generator.chunk(chunk);
+            for (int slot = 0; slot < plan.length; slot++) {
+                kinds[plan[slot]]++;
+                if (plan[slot] != DatasetGenerator.FRESH) {
+                    continue;
+                }
+                EventDTO event = batch.get(slot);
+                if (event.getReceivedTime().toEpochMilli() - event.getEventTime().toEpochMilli() > 60_000) {
+                    late++;
+                }
+                defectsByLine.merge(event.getLineId(), (long) Math.max(0, event.getDefectCount()), Long::sum);
+            }
+            fresh += generator.finalRows(chunk).size();
+        }
+
+        assertEquals(100_000, kinds[0] + kinds[1] + kinds[2] + kinds[3]);
+        assertEquals(0.03, kinds[DatasetGenerator.DUPLICATE] / 100_000.0, 0.005);
+        assertEquals(0.02, kinds[DatasetGenerator.UPDATE] / 100_000.0, 0.005);
+        assertEquals(0.01, kinds[DatasetGenerator.INVALID] / 100_000.0, 0.003);
+        assertEquals(kinds[DatasetGenerator.FRESH], fresh);
+        assertEquals(0.05, late / (double) fresh, 0.01);
+
+        // Power-law skew: the worst line alone has several times the defects of the median line
+        long[] totals = defectsByLine.values().stream().mapToLong(Long::longValue).sorted().toArray();
+        assertTrue(totals[totals.length - 1] > 5 * totals[totals.length / 2]);
+    }
+
+    @Test
+    void testFinalRowsMatchReplayingChunksThroughIngestRules() {
+        DatasetGenerator generator = new DatasetGenerator(settings(20_000, 1000));
+        BatchPreprocessor preprocessor = new BatchPreprocessor(10_000, 1024, 1);
+        Map<String, String> stored = new HashMap<>();
+        Map<String, Instant> storedReceived = new HashMap<>();
+        long rejected = 0;
+        try {
+            Instant now = Instant.now();
+            for (long chunk = 0; chunk < generator.getChunkCount(); chunk++) {
+                // Each batch arrives later than the one before, like sequential ingest requests
+                Instant received = now.plusSeconds(chunk);
+                List<EventDTO> batch = generator.chunk(chunk);
+                BatchPreprocessor.Result result = preprocessor.process(batch, received);
+                for (int i = 0; i < batch.size(); i++) {
+                    if (result.getRejection(i) != null) {
+                        rejected++;
+                        continue;
+                    }
+                    String eventId = batch.get(i).getEventId();
+                    String hash = result.getPayloadHash(i);
+                    Instant previous = storedReceived.get(eventId);
+                    if (previous == null || (!hash.equals(stored.get(eventId)) && received.isAfter(previous))) {
+                        stored.put(eventId, hash);
+                        storedReceived.put(eventId, received);
+                    }
+                }
+            }
+        } finally {
+            preprocessor.shutdown();
+        }
+
+        Map<String, String> expected = new HashMap<>();
+        for (long chunk = 0; chunk < generator.getChunkCount(); chunk++) {
+            for (EventDTO event : generator.finalRows(chunk)) {
+                assertNull(expected.put(event.getEventId(), event.generatePayloadHash()));
+            }
+        }
+        assertTrue(rejected > 0);
+        assertEquals(expected, stored);
+    }
+
+    @Test
+    void testRejectsRatiosAboveOne() {
+        GeneratorProperties settings = settings(1000, 100);
+        settings.setInvalidRatio(0.99);
+        assertThrows(IllegalArgumentException.class, () -> new DatasetGenerator(settings));
+    }
+
+    private static GeneratorProperties settings(long events, int chunkSize) {
+        GeneratorProperties settings = new GeneratorProperties();
+        settings.setEvents(events);
+        settings.setChunkSize(chunkSize);
+        settings.setMachines(2000);
+        settings.setLines(100);
+        settings.setFactories(10);
+        settings.setDays(7);
+        settings.setEnd(Instant.now().truncatedTo(ChronoUnit.HOURS));
+        return settings;
+    }
+
+    private static List<String> hashes(List<EventDTO> events) {
+        return events.stream()
+                .map(event -> event.getEventId() + "|" + event.getReceivedTime() + "|" + event.generatePayloadHash())
+                .toList();
+    }
+}
@@ -0,0 +1,176 @@
+package com.factory.events.health;
+
+import com.factory.events.dto.EventDTO;
+import com.factory.events.model.MachineEvent;
+import com.factory.events.repository.MachineEventRepository;
+import com.factory.events.service.BatchCommittedEvent;
+import com.factory.events.service.EventService;
+import com.factory.events.shard.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "events.health.lines[L-HOT].threshold=0.5")
+@ActiveProfiles("test")
+class HealthEvaluationEngineTest {
+
+    @Autowired
+    private HealthEvaluationEngine engine;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private MachineEventRepository repository;
+
+    @Autowired
+    private RecordingListener listener;
+
+    @Autowired
+    private HealthPolicy policy;
+
+    @Autowired
+    private HealthProperties properties;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ObjectProvider<HealthListener> listenerProvider;
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+
+    static class RecordingListener implements HealthListener {
+        final List<HealthTransition> transitions = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onTransition(HealthTransition transition) {
+            transitions.add(transition);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        listener.transitions.clear();
+    }
+
+    @Test
+    void testTransitionToWarningIsEmittedFromIngest() throws InterruptedException {
+        Instant eventTime = Instant.now().minus(5, ChronoUnit.MINUTES);
+        eventService.ingestBatch(List.of(createEventDTO("H-1", eventTime, "M-HEALTH-1", "L01", 0)));
+        MachineHealth initial = awaitHealth("M-HEALTH-1");
+        assertEquals(HealthPolicy.HEALTHY, initial.getStatus());
+
+        // 120 defects over the 60 minute default window = 120/h, well above the 2.0 default
+        eventService.ingestBatch(List.of(createEventDTO("H-2", eventTime, "M-HEALTH-1", "L01", 120)));
+
+        MachineHealth health = engine.getHealth("M-HEALTH-1");
+        assertEquals(2L, health.getEventsCount());
+        assertEquals(120L, health.getDefectsCount());
+        assertEquals(HealthPolicy.WARNING, health.getStatus());
+
+        assertEquals(1, listener.transitions.size());
+        HealthTransition transition = listener.transitions.get(0);
+        assertEquals("M-HEALTH-1", transition.getMachineId());
+        assertEquals(HealthPolicy.HEALTHY, transition.getPreviousStatus());
+        assertEquals(HealthPolicy.WARNING, transition.getStatus());
+        assertTrue(engine.machinesWithStatus(HealthPolicy.WARNING).contains("M-HEALTH-1"));
+    }
+
+    @Test
+    void testLineThresholdAppliesToStatsAndEngine() throws InterruptedException {
+        Instant start = Instant.now().minus(1, ChronoUnit.HOURS);
+        Instant eventTime = Instant.now().minus(5, ChronoUnit.MINUTES);
+        eventService.ingestBatch(List.of(createEventDTO("H-3", eventTime, "M-HEALTH-2", "L-HOT", 1)));
+        awaitHealth("M-HEALTH-2");
+
+        // 1 defect/h: Healthy under the default 2.0, Warning under the line's 0.5
+        assertEquals(HealthPolicy.WARNING, engine.getHealth("M-HEALTH-2").getStatus());
+        assertEquals(HealthPolicy.WARNING,
+                eventService.getStats("M-HEALTH-2", start, Instant.now().plus(1, ChronoUnit.SECONDS)).getStatus());
+    }
+
+    @Test
+    void testStatsUseLineThresholdForUntrackedMachine() {
+        Instant start = Instant.now().minus(1, ChronoUnit.HOURS);
+        Instant eventTime = Instant.now().minus(5, ChronoUnit.MINUTES);
+        // Written past the service, so the engine has never tracked the machine
+        repository.save(new MachineEvent("H-4", eventTime, eventTime, "M-HEALTH-3", 1000L, 1, "L-HOT", "F01", "h4"));
+
+        assertNull(engine.getHealth("M-HEALTH-3"));
+        assertEquals(HealthPolicy.WARNING,
+                eventService.getStats("M-HEALTH-3", start, Instant.now().plus(1, ChronoUnit.SECONDS)).getStatus());
+        // Outside the window the machine's line is unknown and the default threshold applies
+        assertEquals(HealthPolicy.HEALTHY,
+                eventService.getStats("M-HEALTH-3", start.minus(2, ChronoUnit.HOURS), start).getStatus());
+    }
+
+    @Test
+    void testSeedFinishingFirstDoesNotCountTriggeringChangeTwice() {
+        Instant eventTime = Instant.now().minus(5, ChronoUnit.MINUTES);
+        eventService.ingestBatch(List.of(createEventDTO("H-5", eventTime, "M-HEALTH-4", "L01", 3)));
+        MachineEvent row = repository.findByEventId("H-5").orElseThrow();
+
+        // Seeds on the calling thread, so the seed has read the committed row before the change that
+        // started tracking is handed to the window
+        HealthEvaluationEngine inline = new HealthEvaluationEngine(repository, policy, properties,
+                transactionManager, shardRouter, listenerProvider, Runnable::run);
+        try {
+            inline.onBatchCommitted(new BatchCommittedEvent(List.of(new BatchCommittedEvent.Change(
+                    "H-5", row.getChangeSeq(), null, BatchCommittedEvent.Values.of(row)))));
+
+            MachineHealth health = inline.getHealth("M-HEALTH-4");
+            assertEquals(1L, health.getEventsCount());
+            assertEquals(3L, health.getDefectsCount());
+        } finally {
+            inline.shutdown();
+        }
+    }
+
+    private MachineHealth awaitHealth(String machineId) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            MachineHealth health = engine.getHealth(machineId);
+            if (health != null) {
+                return health;
+            }
+            Thread.sleep(20);
+        }
+        fail("Machine " + machineId + " was never seeded");
+        return null;
+    }
+
+    private EventDTO createEventDTO(String eventId, Instant eventTime, String machineId, String lineId, int defects) {
+        EventDTO dto = new EventDTO();
+        dto.setEventId(eventId);
+        dto.setEventTime(eventTime);
+        dto.setMachineId(machineId);
+        dto.setDurationMs(1000L);
+        dto.setDefectCount(defects);
+        dto.setLineId(lineId);
+        dto.setFactoryId("F01");
+        return dto;
+    }
+}
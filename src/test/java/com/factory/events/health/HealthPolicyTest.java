@@ -0,0 +1,49 @@
+package com.factory.events.health;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HealthPolicyTest {
+
+    @Test
+    void testMachineRuleBeatsLineRuleBeatsDefaults() {
+        HealthProperties properties = new HealthProperties();
+        properties.getLines().put("L01", new HealthProperties.Rule(1.0, 30));
+        properties.getMachines().put("M-001", new HealthProperties.Rule(5.0, null));
+        HealthPolicy policy = new HealthPolicy(properties);
+
+        assertEquals(5.0, policy.threshold("M-001", "L01"), 0.0);
+        assertEquals(30, policy.windowMinutes("M-001", "L01"));
+
+        assertEquals(1.0, policy.threshold("M-002", "L01"), 0.0);
+        assertEquals(2.0, policy.threshold("M-002", "L02"), 0.0);
+        assertEquals(60, policy.windowMinutes("M-002", null));
+    }
+
+    @Test
+    void testStatusUsesResolvedThreshold() {
+        HealthProperties properties = new HealthProperties();
+        properties.getLines().put("L01", new HealthProperties.Rule(1.0, null));
+        HealthPolicy policy = new HealthPolicy(properties);
+
+        assertEquals(HealthPolicy.WARNING, policy.status("M-001", "L01", 1.5));
+        assertEquals(HealthPolicy.HEALTHY, policy.status("M-001", "L02", 1.5));
+        assertEquals(HealthPolicy.WARNING, policy.status("M-001", null, 2.0));
+    }
+
+    @Test
+    void testThresholdDependsOnLineOnlyWithoutMachineOverride() {
+        HealthProperties properties = new HealthProperties();
+        HealthPolicy policy = new HealthPolicy(properties);
+        assertFalse(policy.thresholdDependsOnLine("M-001"));
+
+        properties.getLines().put("L01", new HealthProperties.Rule(null, 30));
+        assertFalse(policy.thresholdDependsOnLine("M-001"));
+
+        properties.getLines().put("L02", new HealthProperties.Rule(1.0, null));
+        properties.getMachines().put("M-001", new HealthProperties.Rule(5.0, null));
+        assertFalse(policy.thresholdDependsOnLine("M-001"));
+        assertTrue(policy.thresholdDependsOnLine("M-002"));
+    }
+}
@@ -0,0 +1,108 @@
+package com.factory.events.health;
+
+import com.factory.events.service.BatchCommittedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MachineWindowTest {
+
+    private final Instant now = Instant.parse("2026-01-15T10:30:00Z");
+
+    @Test
+    void testSeedSkipsChangesAlreadyVisibleToSeedQuery() {
+        MachineWindow stats = new MachineWindow("M-001", "L01", "F01", 60);
+        Instant eventTime = now.minus(5, ChronoUnit.MINUTES);
+
+        // Committed before the seed query ran (seen with seq 10) and after it (seq 11)
+        stats.apply(insert("E-1", 10, eventTime, 3), now);
+        stats.apply(insert("E-2", 11, eventTime, 4), now);
+        assertFalse(stats.isSeeded());
+
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{"E-1", 10L, eventTime, 3});
+        stats.seed(rows, now);
+
+        assertTrue(stats.isSeeded());
+        long[] totals = stats.totals(now);
+        assertEquals(2L, totals[0]);
+        assertEquals(7L, totals[1]);
+    }
+
+    @Test
+    void testBufferedMoveAwayDoesNotRemoveUncountedRow() {
+        MachineWindow stats = new MachineWindow("M-001", "L01", "F01", 60);
+        Instant eventTime = now.minus(5, ChronoUnit.MINUTES);
+
+        // The row had already moved to M-002 when the seed query ran, so the seed never counted it
+        stats.apply(new BatchCommittedEvent.Change("E-1", 5,
+                values("M-001", eventTime, 2), values("M-002", eventTime, 2)), now);
+        stats.seed(List.of(), now);
+
+        long[] totals = stats.totals(now);
+        assertEquals(0L, totals[0]);
+        assertEquals(0L, totals[1]);
+    }
+
+    @Test
+    void testUpdateReplacesPreviousValues() {
+        MachineWindow stats = seeded();
+        Instant eventTime = now.minus(10, ChronoUnit.MINUTES);
+
+        stats.apply(insert("E-1", 1, eventTime, 2), now);
+        stats.apply(new BatchCommittedEvent.Change("E-1", 2,
+                values("M-001", eventTime, 2), values("M-001", eventTime, 9)), now);
+
+        long[] totals = stats.totals(now);
+        assertEquals(1L, totals[0]);
+        assertEquals(9L, totals[1]);
+    }
+
+    @Test
+    void testEventMovedToAnotherMachineIsRemoved() {
+        MachineWindow stats = seeded();
+        Instant eventTime = now.minus(10, ChronoUnit.MINUTES);
+
+        stats.apply(insert("E-1", 1, eventTime, 2), now);
+        stats.apply(new BatchCommittedEvent.Change("E-1", 2,
+                values("M-001", eventTime, 2), values("M-002", eventTime, 2)), now);
+
+        assertEquals(0L, stats.totals(now)[0]);
+    }
+
+    @Test
+    void testWindowSlidesAndIgnoresUnknownDefects() {
+        MachineWindow stats = seeded();
+
+        stats.apply(insert("E-1", 1, now.minus(50, ChronoUnit.MINUTES), 5), now);
+        stats.apply(insert("E-2", 2, now.minus(1, ChronoUnit.MINUTES), -1), now);
+        stats.apply(insert("E-3", 3, now.minus(2, ChronoUnit.HOURS), 100), now);
+
+        long[] totals = stats.totals(now);
+        assertEquals(2L, totals[0]);
+        assertEquals(5L, totals[1]);
+
+        long[] later = stats.totals(now.plus(15, ChronoUnit.MINUTES));
+        assertEquals(1L, later[0]);
+        assertEquals(0L, later[1]);
+    }
+
+    private MachineWindow seeded() {
+        MachineWindow stats = new MachineWindow("M-001", "L01", "F01", 60);
+        stats.seed(List.of(), now);
+        return stats;
+    }
+
+    private static BatchCommittedEvent.Change insert(String eventId, long changeSeq, Instant eventTime, int defects) {
+        return new BatchCommittedEvent.Change(eventId, changeSeq, null, values("M-001", eventTime, defects));
+    }
+
+    private static BatchCommittedEvent.Values values(String machineId, Instant eventTime, int defects) {
+        return new BatchCommittedEvent.Values(machineId, "L01", "F01", eventTime, 1000L, defects);
+    }
+}
@@ -0,0 +1,123 @@
+package com.factory.events.importer;
+
+import com.factory.events.dto.DurationStatsResponse;
+import com.factory.events.model.MachineEvent;
+import com.factory.events.repository.MachineEventRepository;
+import com.factory.events.service.DurationStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "events.import.chunk-size=2")
+@ActiveProfiles("test")
+class BulkImportServiceTest {
+
+    @Autowired
+    private BulkImportService importService;
+
+    @Autowired
+    private MachineEventRepository repository;
+
+    @Autowired
+    private DurationStatsService durationStatsService;
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        repository.deleteAll();
+        dir = Files.createTempDirectory("bulk-import");
+    }
+
+    @Test
+    void testImportsCsvAndNdjsonWithIngestRules() throws IOException {
+        String time = Instant.now().minus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS).toString();
+        Path csv = write("plant-a.csv",
+                "eventId,eventTime,machineId,durationMs,defectCount,lineId,factoryId",
+                "E-C1," + time + ",M-001,1000,2,L-001,F-01",
+                "E-C1," + time + ",M-001,1000,2,L-001,F-01",
+                "E-C2," + time + ",M-001,-5,0,L-001,F-01",
+                "E-C3,not-a-time,M-001,1000,0,L-001,F-01",
+                "E-C4," + time + ",\"M-002\",1500,1,,F-01");
+        Path ndjson = write("plant-b.ndjson",
+                "{\"eventId\":\"E-N1\",\"eventTime\":\"" + time + "\",\"machineId\":\"M-003\",\"durationMs\":900,\"defectCount\":0,\"factoryId\":\"F-02\"}",
+                "",
+                "{broken",
+                "{\"eventId\":\"E-N2\",\"eventTime\":\"" + time + "\",\"machineId\":\"M-003\",\"durationMs\":900,\"defectCount\":-1}");
+
+        ImportReport report = importService.importFiles(Arrays.asList(csv, ndjson));
+
+        assertEquals(8, report.getRecords());
+        assertEquals(4, report.getMerged());
+        assertEquals(3, report.getRejected());
+        assertEquals(4, repository.count());
+
+        MachineEvent imported = repository.findByEventId("E-C4").orElseThrow();
+        assertEquals("M-002", imported.getMachineId());
+        assertNull(imported.getLineId());
+        assertEquals(64, imported.getPayloadHash().length());
+    }
+
+    @Test
+    void testResumesFromCheckpointAndAppliesUpdates() throws IOException {
+        String time = Instant.now().minus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS).toString();
+        String header = "eventId,eventTime,machineId,durationMs,defectCount,lineId,factoryId";
+        Path csv = write("plant-c.csv", header,
+                "E-R1," + time + ",M-001,1000,2,L-001,F-01",
+                "E-R2," + time + ",M-001,1000,2,L-001,F-01");
+
+        importService.importFiles(Collections.singletonList(csv));
+
+        // Same file grows; the first two records are already merged and must be skipped
+        Files.write(csv, List.of(header,
+                "E-R1," + time + ",M-001,1000,2,L-001,F-01",
+                "E-R2," + time + ",M-001,1000,2,L-001,F-01",
+                "E-R1," + time + ",M-001,3000,7,L-001,F-01"));
+        ImportReport report = importService.importFiles(Collections.singletonList(csv));
+
+        assertEquals(2, report.getFiles().get(0).getResumedFrom());
+        assertEquals(1, report.getRecords());
+        assertEquals(1, report.getMerged());
+        assertEquals(3000L, repository.findByEventId("E-R1").orElseThrow().getDurationMs());
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    void testMergedChunksReachSeededDurationSketches() throws IOException, InterruptedException {
+        Instant eventTime = Instant.now().minus(30, ChronoUnit.MINUTES).truncatedTo(ChronoUnit.SECONDS);
+        Instant end = Instant.now().plus(1, ChronoUnit.MINUTES);
+        String header = "eventId,eventTime,machineId,durationMs,defectCount,lineId,factoryId";
+        importService.importFiles(Collections.singletonList(write("plant-d.csv", header,
+                "E-S1," + eventTime + ",M-IMP-SK,1000,0,L-IMP-SK,F-01")));
+        // The first query seeds the bucket; later imports must reach it as committed changes
+        assertEquals(1, durationStatsService.getDurationStats("M-IMP-SK", null,
+                eventTime.minus(1, ChronoUnit.HOURS), end, "0.5", 0).getCount());
+
+        Thread.sleep(10);
+        importService.importFiles(Collections.singletonList(write("plant-e.csv", header,
+                "E-S1," + eventTime + ",M-IMP-SK,60000,0,L-IMP-SK,F-01",
+                "E-S2," + eventTime + ",M-IMP-SK,60000,0,L-IMP-SK,F-01")));
+
+        DurationStatsResponse stats = durationStatsService.getDurationStats("M-IMP-SK", null,
+                eventTime.minus(1, ChronoUnit.HOURS), end, "0.01", 0);
+        assertEquals(2, stats.getCount());
+        assertEquals(60_000, stats.getPercentiles().get("p1"), 600);
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        return Files.write(dir.resolve(name), Arrays.asList(lines));
+    }
+}
@@ -0,0 +1,105 @@
+package com.factory.events.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderServiceTest {
+
+    private Path dumpDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dumpDir = Files.createTempDirectory("jfr-dumps");
+    }
+
+    @Test
+    void testSettingsEnableCustomEventsOnTopOfDefault() {
+        Map<String, String> settings = FlightRecorderService.settings();
+
+        assertEquals("true", settings.get("com.factory.events.IngestBatch#enabled"));
+        assertEquals("true", settings.get("com.factory.events.StatsQuery#enabled"));
+        // From the JDK default profile
+        assertEquals("true", settings.get("jdk.GarbageCollection#enabled"));
+    }
+
+    @Test
+    void testSettingsKeepCommandLineAndEnvironmentOutOfDumps() {
+        Map<String, String> settings = FlightRecorderService.settings();
+
+        assertEquals("false", settings.get("jdk.InitialEnvironmentVariable#enabled"));
+        assertEquals("false", settings.get("jdk.InitialSystemProperty#enabled"));
+        assertEquals("false", settings.get("jdk.JVMInformation#enabled"));
+    }
+
+    @Test
+    void testDumpContainsCustomEvents() throws Exception {
+        FlightRecorderService service = new FlightRecorderService(true, 5, 10, dumpDir.toString());
+        service.start();
+        try {
+            IngestBatchEvent batch = new IngestBatchEvent();
+            batch.begin();
+            batch.setBatchSize(100);
+            batch.setAccepted(90);
+            batch.setRejected(10);
+            batch.setPreprocessTime(1_000_000);
+            batch.commit();
+
+            StatsQueryEvent query = new StatsQueryEvent("stats");
+            query.begin();
+            query.setMachineId("M-001");
+            query.setResultSize(42);
+            query.commit();
+
+            Path file = service.dump();
+            assertTrue(file.startsWith(dumpDir));
+            List<RecordedEvent> recorded = RecordingFile.readAllEvents(file);
+            Files.delete(file);
+            assertTrue(recorded.stream().noneMatch(event -> event.getEventType().getName().equals("jdk.JVMInformation")
+                    || event.getEventType().getName().equals("jdk.InitialSystemProperty")));
+            List<RecordedEvent> events = recorded.stream()
+                    .filter(event -> event.getEventType().getName().startsWith("com.factory.events."))
+                    .collect(Collectors.toList());
+
+            RecordedEvent recordedBatch = find(events, "com.factory.events.IngestBatch");
+            assertEquals(100, recordedBatch.getInt("batchSize"));
+            assertEquals(90, recordedBatch.getInt("accepted"));
+            assertEquals(1_000_000, recordedBatch.getDuration("preprocessTime").toNanos());
+
+            RecordedEvent recordedQuery = find(events, "com.factory.events.StatsQuery");
+            assertEquals("stats", recordedQuery.getString("query"));
+            assertEquals("M-001", recordedQuery.getString("machineId"));
+            assertEquals(42, recordedQuery.getLong("resultSize"));
+            assertEquals(1L, service.snapshot().get("dumps"));
+        } finally {
+            service.stop();
+        }
+        assertFalse(service.isRecording());
+    }
+
+    @Test
+    void testDisabledDoesNotRecord() {
+        FlightRecorderService service = new FlightRecorderService(false, 5, 10, dumpDir.toString());
+        service.start();
+
+        assertFalse(service.isRecording());
+        assertThrows(IllegalStateException.class, service::dump);
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + name + " event in the recording"));
+    }
+}
@@ -0,0 +1,120 @@
+package com.factory.events.live;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// Scheduled pushes and heartbeats are pushed back an hour; the tests drive them by hand
+@SpringBootTest(properties = {
+        "events.live.push-interval-ms=3600000",
+        "events.live.heartbeat-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LiveStatsServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LiveStatsService liveStatsService;
+
+    @Test
+    void testUpdatesBetweenPushesAreCoalesced() throws Exception {
+        MvcResult stream = subscribe("M-LIVE-1");
+        // The machine seeds in the background, so the first push may find nothing to send yet
+        assertTrue(pushUntil(stream, 1));
+
+        for (int i = 0; i < 5; i++) {
+            liveStatsService.onUpdated("M-LIVE-1", "F-01");
+        }
+        liveStatsService.onUpdated("M-LIVE-OTHER", "F-01");
+
+        assertTrue(pushUntil(stream, 2));
+        Thread.sleep(200);
+        assertEquals(2, count(stream, "event:stats"));
+        assertFalse(content(stream).contains("M-LIVE-OTHER"));
+    }
+
+    @Test
+    void testHeartbeatKeepsIdleStreamAlive() throws Exception {
+        MvcResult stream = subscribe("M-LIVE-2");
+
+        liveStatsService.sendHeartbeats();
+
+        assertTrue(awaitCount(stream, ":keep-alive", 1, 5000));
+    }
+
+    @Test
+    void testTimedOutEmitterIsUnsubscribed() throws Exception {
+        long before = liveStatsService.snapshot().get("subscriptions");
+        MvcResult stream = subscribe("M-LIVE-3");
+        assertEquals(before + 1, liveStatsService.snapshot().get("subscriptions"));
+
+        MockAsyncContext asyncContext = (MockAsyncContext) stream.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        assertEquals(before, liveStatsService.snapshot().get("subscriptions"));
+        // Later updates for the machine no longer reach the closed subscription
+        liveStatsService.onUpdated("M-LIVE-3", null);
+        liveStatsService.pushUpdates();
+        Thread.sleep(200);
+        assertEquals(0, count(stream, "event:stats"));
+    }
+
+    private MvcResult subscribe(String machineId) throws Exception {
+        return mockMvc.perform(get("/api/stats/live").param("machineId", machineId)).andReturn();
+    }
+
+    /**
+     * Pushes until the stream holds {@code expected} stats events. A push is skipped while the
+     * previous flush of the subscription is still finishing, hence the retries.
+     */
+    private boolean pushUntil(MvcResult stream, int expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        do {
+            liveStatsService.pushUpdates();
+            if (awaitCount(stream, "event:stats", expected, 200)) {
+                return true;
+            }
+        } while (System.currentTimeMillis() < deadline);
+        return false;
+    }
+
+    private static boolean awaitCount(MvcResult stream, String marker, int expected, long timeoutMs)
+            throws Exception {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (count(stream, marker) < expected) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(20);
+        }
+        return true;
+    }
+
+    private static int count(MvcResult stream, String marker) throws Exception {
+        String content = content(stream);
+        int count = 0;
+        for (int i = content.indexOf(marker); i >= 0; i = content.indexOf(marker, i + marker.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    private static String content(MvcResult stream) throws Exception {
+        return stream.getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,96 @@
+package com.factory.events.ratelimit;
+
+import com.factory.events.dto.EventDTO;
+import com.factory.events.service.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestRateLimiterTest {
+
+    @Test
+    void testTenantComesFromHeaderThenFactoryId() {
+        IngestRateLimiter limiter = new IngestRateLimiter(new RateLimitProperties());
+        List<EventDTO> batch = Arrays.asList(event(null), event("F-01"), null, event("F-01"));
+
+        assertEquals("gateway-7", limiter.resolveTenant(" gateway-7 ", batch));
+        assertEquals("F-01", limiter.resolveTenant(null, batch));
+        assertEquals(IngestRateLimiter.DEFAULT_TENANT, limiter.resolveTenant("", List.of(event(" "))));
+    }
+
+    @Test
+    void testMixedFactoriesNeedTheHeader() {
+        IngestRateLimiter limiter = new IngestRateLimiter(new RateLimitProperties());
+        List<EventDTO> batch = List.of(event("F-01"), event("F-02"));
+
+        InvalidRequestException e = assertThrows(InvalidRequestException.class,
+                () -> limiter.resolveTenant(null, batch));
+        assertTrue(e.getMessage().contains("X-Tenant-Id"));
+        assertEquals("gateway-7", limiter.resolveTenant("gateway-7", batch));
+    }
+
+    @Test
+    void testOverQuotaIsThrottledPerTenant() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setDefaults(new RateLimitProperties.Quota(1, 10, 1));
+        properties.getTenants().put("F-BIG", new RateLimitProperties.Quota(0, 100, 3));
+        IngestRateLimiter limiter = new IngestRateLimiter(properties);
+
+        limiter.acquire("F-01", 10);
+        RateLimitedException e = assertThrows(RateLimitedException.class, () -> limiter.acquire("F-01", 5));
+        assertEquals("F-01", e.getTenant());
+        assertTrue(e.getRetryAfterSeconds() >= 4, "retry after " + e.getRetryAfterSeconds());
+
+        // Another tenant's bucket is untouched, and its own quota overrides the defaults
+        limiter.acquire("F-BIG", 100);
+        assertEquals(3, limiter.weightOf("F-BIG"));
+        assertEquals(1, limiter.weightOf("F-01"));
+
+        Map<String, Long> metrics = limiter.snapshot().get("F-01");
+        assertEquals(1, metrics.get("acceptedRequests"));
+        assertEquals(10, metrics.get("acceptedEvents"));
+        assertEquals(1, metrics.get("throttledRequests"));
+        assertEquals(5, metrics.get("throttledEvents"));
+    }
+
+    @Test
+    void testReleaseReturnsTokens() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setDefaults(new RateLimitProperties.Quota(1, 10, 1));
+        IngestRateLimiter limiter = new IngestRateLimiter(properties);
+
+        limiter.acquire("F-01", 10);
+        limiter.release("F-01", 10);
+        limiter.acquire("F-01", 10);
+
+        assertEquals(1, limiter.snapshot().get("F-01").get("acceptedRequests"));
+    }
+
+    @Test
+    void testTenantsBeyondMaxShareOneBucket() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxTenants(1);
+        properties.setDefaults(new RateLimitProperties.Quota(1, 10, 1));
+        IngestRateLimiter limiter = new IngestRateLimiter(properties);
+
+        limiter.acquire("F-01", 1);
+        limiter.acquire("F-02", 6);
+        assertThrows(RateLimitedException.class, () -> limiter.acquire("F-03", 6));
+
+        Map<String, Map<String, Long>> snapshot = limiter.snapshot();
+        assertEquals(Set.of("F-01", IngestRateLimiter.OVERFLOW_TENANT), snapshot.keySet());
+        assertEquals(6, snapshot.get(IngestRateLimiter.OVERFLOW_TENANT).get("acceptedEvents"));
+    }
+
+    private static EventDTO event(String factoryId) {
+        EventDTO dto = new EventDTO();
+        dto.setEventId("E-1");
+        dto.setFactoryId(factoryId);
+        return dto;
+    }
+}
@@ -0,0 +1,47 @@
+package com.factory.events.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void testAllowsBurstThenRefills() {
+        TokenBucket bucket = new TokenBucket(100, 200, 0);
+
+        assertEquals(0, bucket.tryAcquire(150, 0));
+        assertEquals(0, bucket.tryAcquire(50, 0));
+        long wait = bucket.tryAcquire(100, 0);
+        assertEquals(SECOND, wait);
+
+        assertEquals(0, bucket.tryAcquire(100, SECOND));
+        assertEquals(0, bucket.available(SECOND));
+        assertEquals(200, bucket.available(3 * SECOND));
+    }
+
+    @Test
+    void testOversizedRequestNeedsFullBucket() {
+        TokenBucket bucket = new TokenBucket(100, 200, 0);
+
+        assertEquals(0, bucket.tryAcquire(500, 0));
+        // 500 tokens of debt: nothing more until it is paid off and the bucket is full again
+        assertEquals(5 * SECOND, bucket.tryAcquire(500, 0));
+        assertTrue(bucket.tryAcquire(1, 2 * SECOND) > 0);
+        assertEquals(0, bucket.tryAcquire(500, 5 * SECOND));
+    }
+
+    @Test
+    void testRefundReturnsTokens() {
+        TokenBucket bucket = new TokenBucket(100, 200, 0);
+
+        assertEquals(0, bucket.tryAcquire(200, 0));
+        assertTrue(bucket.tryAcquire(100, 0) > 0);
+        bucket.refund(100);
+        assertEquals(0, bucket.tryAcquire(100, 0));
+    }
+}
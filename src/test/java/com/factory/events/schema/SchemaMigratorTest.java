@@ -0,0 +1,100 @@
+package com.factory.events.schema;
+
+import com.factory.events.config.DataSourceRoute;
+import com.factory.events.shard.ShardDataSources;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrated-0;DB_CLOSE_DELAY=-1",
+        "events.sharding.shards[1].url=jdbc:h2:mem:migrated-1;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class SchemaMigratorTest {
+
+    @Autowired
+    private SchemaMigrator schemaMigrator;
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    @Test
+    void testEveryShardIsAtLatestVersion() {
+        int latest = schemaMigrator.latestVersion();
+        assertTrue(latest >= 1);
+        for (int shard = 0; shard < 2; shard++) {
+            JdbcTemplate jdbc = shard(shard);
+            assertEquals(latest, jdbc.queryForObject("SELECT MAX(version) FROM schema_version", Integer.class));
+            assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM machine_events", Integer.class));
+        }
+    }
+
+    @Test
+    void testRerunSkipsCurrentShards() {
+        long applied = schemaMigrator.snapshot().get("applied");
+
+        schemaMigrator.migrate();
+
+        assertEquals(applied, schemaMigrator.snapshot().get("applied"));
+        assertEquals(2L, schemaMigrator.snapshot().get("upToDateShards"));
+    }
+
+    @Test
+    void testEditedMigrationFailsStartup() {
+        JdbcTemplate jdbc = shard(1);
+        String checksum = jdbc.queryForObject("SELECT checksum FROM schema_version WHERE version = 1", String.class);
+        jdbc.update("UPDATE schema_version SET checksum = 'edited' WHERE version = 1");
+        try {
+            IllegalStateException e = assertThrows(IllegalStateException.class, schemaMigrator::migrate);
+            assertTrue(e.getMessage().contains("shard 1"));
+        } finally {
+            jdbc.update("UPDATE schema_version SET checksum = ? WHERE version = 1", checksum);
+        }
+    }
+
+    @Test
+    void testAdoptsDatabaseCreatedByDdlAuto() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:ddl-auto;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        // As Hibernate created it before the change feed and the migrations existed
+        jdbc.execute("CREATE TABLE machine_events (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "event_id VARCHAR(255) NOT NULL UNIQUE, event_time TIMESTAMP(6) WITH TIME ZONE NOT NULL, "
+                + "received_time TIMESTAMP(6) WITH TIME ZONE NOT NULL, machine_id VARCHAR(255) NOT NULL, "
+                + "duration_ms BIGINT NOT NULL, defect_count INTEGER NOT NULL, line_id VARCHAR(255), "
+                + "factory_id VARCHAR(255), version BIGINT, payload_hash VARCHAR(255) NOT NULL)");
+        jdbc.execute("CREATE UNIQUE INDEX idx_event_id ON machine_events (event_id)");
+        jdbc.execute("CREATE INDEX idx_machine_time ON machine_events (machine_id, event_time)");
+        jdbc.update("INSERT INTO machine_events (event_id, event_time, received_time, machine_id, duration_ms, "
+                + "defect_count, payload_hash, version) VALUES ('E-OLD', NOW(), NOW(), 'M-001', 1000, 0, 'h', 0)");
+
+        new SchemaMigrator(new ShardDataSources(dataSource, dataSource)).migrate();
+
+        assertEquals(schemaMigrator.latestVersion(),
+                jdbc.queryForObject("SELECT MAX(version) FROM schema_version", Integer.class));
+        assertNull(jdbc.queryForObject("SELECT change_seq FROM machine_events WHERE event_id = 'E-OLD'", Long.class));
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM machine_events_staging", Integer.class));
+    }
+
+    @Test
+    void testLoadsMigrationsInVersionOrder() {
+        List<SchemaMigrator.Migration> migrations = SchemaMigrator.load(SchemaMigrator.LOCATION);
+
+        assertEquals(1, migrations.get(0).getVersion());
+        assertEquals("baseline", migrations.get(0).getDescription());
+        assertEquals(2, migrations.get(1).getVersion());
+        assertEquals(SchemaMigrator.checksum("SELECT 1;\n"), SchemaMigrator.checksum("SELECT 1;\r\n"));
+    }
+
+    private JdbcTemplate shard(int shard) {
+        return new JdbcTemplate(shardDataSources.get(shard, DataSourceRoute.PRIMARY));
+    }
+}
@@ -0,0 +1,133 @@
+package com.factory.events.service;
+
+import com.factory.events.dto.BatchIngestResponse;
+import com.factory.events.dto.EventDTO;
+import com.factory.events.dto.RejectionMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchIdempotencyStoreTest {
+
+    @Test
+    void testRetryReturnsOriginalResponseWithoutReprocessing() throws Exception {
+        BatchIdempotencyStore store = new BatchIdempotencyStore(600, 100);
+        AtomicInteger runs = new AtomicInteger();
+
+        BatchIngestResponse first = store.execute("F01", "batch-1", "fp", () -> ingest(runs)).get();
+        BatchIngestResponse retry = store.execute("F01", "batch-1", "fp", () -> ingest(runs)).get();
+
+        assertSame(first, retry);
+        assertEquals(1, runs.get());
+        assertEquals(1L, store.snapshot().get("replayed"));
+    }
+
+    @Test
+    void testConcurrentDuplicateJoinsInFlightBatch() throws Exception {
+        BatchIdempotencyStore store = new BatchIdempotencyStore(600, 100);
+        CompletableFuture<BatchIngestResponse> inFlight = new CompletableFuture<>();
+        AtomicInteger runs = new AtomicInteger();
+
+        CompletableFuture<BatchIngestResponse> original = store.execute("F01", "batch-2", "fp", () -> {
+            runs.incrementAndGet();
+            return inFlight;
+        });
+        CompletableFuture<BatchIngestResponse> duplicate = store.execute("F01", "batch-2", "fp", () -> ingest(runs));
+        assertFalse(duplicate.isDone());
+
+        BatchIngestResponse response = new BatchIngestResponse();
+        inFlight.complete(response);
+
+        assertSame(response, original.get());
+        assertSame(response, duplicate.get());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testFailedBatchIsNotRemembered() throws Exception {
+        BatchIdempotencyStore store = new BatchIdempotencyStore(600, 100);
+        AtomicInteger runs = new AtomicInteger();
+
+        CompletableFuture<BatchIngestResponse> failed = store.execute("F01", "batch-3", "fp",
+                () -> CompletableFuture.failedFuture(new IllegalStateException("database down")));
+        assertTrue(failed.isCompletedExceptionally());
+
+        store.execute("F01", "batch-3", "fp", () -> ingest(runs)).get();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testExpiredAndOverflowingEntriesAreEvicted() throws Exception {
+        BatchIdempotencyStore expiring = new BatchIdempotencyStore(0, 100);
+        AtomicInteger runs = new AtomicInteger();
+        expiring.execute("F01", "batch-4", "fp", () -> ingest(runs)).get();
+        Thread.sleep(5);
+        expiring.execute("F01", "batch-4", "fp", () -> ingest(runs)).get();
+        assertEquals(2, runs.get());
+
+        BatchIdempotencyStore bounded = new BatchIdempotencyStore(600, 2);
+        for (int i = 0; i < 5; i++) {
+            bounded.execute("F01", "batch-" + i, "fp", () -> ingest(runs)).get();
+        }
+        assertTrue(bounded.snapshot().get("entries") <= 2);
+    }
+
+    @Test
+    void testKeyReusedForDifferentRequestIsRefused() throws Exception {
+        BatchIdempotencyStore store = new BatchIdempotencyStore(600, 100);
+        AtomicInteger runs = new AtomicInteger();
+        EventDTO event = new EventDTO();
+        event.setEventId("E-1");
+        event.setMachineId("M-001");
+        String summary = BatchIdempotencyStore.fingerprint(List.of(event), RejectionMode.SUMMARY);
+        String full = BatchIdempotencyStore.fingerprint(List.of(event), RejectionMode.FULL);
+        assertNotEquals(summary, full);
+
+        store.execute("F01", "batch-5", summary, () -> ingest(runs)).get();
+        assertThrows(IdempotencyKeyMismatchException.class,
+                () -> store.execute("F01", "batch-5", full, () -> ingest(runs)));
+
+        event.setDefectCount(3);
+        String otherBody = BatchIdempotencyStore.fingerprint(List.of(event), RejectionMode.SUMMARY);
+        assertThrows(IdempotencyKeyMismatchException.class,
+                () -> store.execute("F01", "batch-5", otherBody, () -> ingest(runs)));
+        assertEquals(1, runs.get());
+        assertEquals(2L, store.snapshot().get("mismatched"));
+    }
+
+    @Test
+    void testKeysAreScopedToTenant() throws Exception {
+        BatchIdempotencyStore store = new BatchIdempotencyStore(600, 100);
+        AtomicInteger runs = new AtomicInteger();
+
+        store.execute("F01", "batch-6", "fp", () -> ingest(runs)).get();
+        store.execute("F02", "batch-6", "other", () -> ingest(runs)).get();
+
+        assertEquals(2, runs.get());
+        assertEquals(0L, store.snapshot().get("mismatched"));
+    }
+
+    @Test
+    void testReinsertedExpiredKeyIsQueuedOnce() throws Exception {
+        BatchIdempotencyStore store = new BatchIdempotencyStore(0, 100);
+        AtomicInteger runs = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            store.execute("F01", "batch-7", "fp", () -> ingest(runs)).get();
+            Thread.sleep(2);
+        }
+
+        assertEquals(5, runs.get());
+        assertEquals(1, store.queuedKeys());
+    }
+
+    private CompletableFuture<BatchIngestResponse> ingest(AtomicInteger runs) {
+        runs.incrementAndGet();
+        BatchIngestResponse response = new BatchIngestResponse();
+        response.setAccepted(1);
+        return CompletableFuture.completedFuture(response);
+    }
+}
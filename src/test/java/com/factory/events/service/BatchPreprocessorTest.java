@@ -0,0 +1,55 @@
+package com.factory.events.service;
+
+import com.factory.events.dto.EventDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchPreprocessorTest {
+
+    @Test
+    void testParallelPathMatchesSequentialPath() {
+        Instant now = Instant.now();
+        List<EventDTO> sequentialEvents = createEvents(5000, now);
+        List<EventDTO> parallelEvents = createEvents(5000, now);
+
+        BatchPreprocessor sequential = new BatchPreprocessor(Integer.MAX_VALUE, 64, 1);
+        BatchPreprocessor parallel = new BatchPreprocessor(1, 64, 4);
+        try {
+            BatchPreprocessor.Result expected = sequential.process(sequentialEvents, now);
+            BatchPreprocessor.Result actual = parallel.process(parallelEvents, now);
+
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.getRejection(i), actual.getRejection(i));
+                assertEquals(expected.getPayloadHash(i), actual.getPayloadHash(i));
+                assertEquals(sequentialEvents.get(i).getReceivedTime(), parallelEvents.get(i).getReceivedTime());
+            }
+        } finally {
+            sequential.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    private List<EventDTO> createEvents(int count, Instant now) {
+        List<EventDTO> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            EventDTO dto = new EventDTO();
+            // Every 7th id repeats; the preprocessor does not dedup, so repeats must just come out alike
+            dto.setEventId("E-" + (i % 7 == 0 ? 0 : i));
+            dto.setEventTime(i % 11 == 0 ? now.plus(1, ChronoUnit.HOURS) : now.minus(i, ChronoUnit.SECONDS));
+            dto.setMachineId("M-" + (i % 10));
+            dto.setDurationMs(i % 13 == 0 ? -1L : 1000L + i);
+            dto.setDefectCount(i % 5);
+            dto.setLineId("L-" + (i % 3));
+            dto.setFactoryId("F-01");
+            events.add(dto);
+        }
+        return events;
+    }
+}
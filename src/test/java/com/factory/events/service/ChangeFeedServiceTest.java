@@ -0,0 +1,128 @@
+package com.factory.events.service;
+
+import com.factory.events.dto.ChangeFeedEvent;
+import com.factory.events.dto.ChangeFeedResponse;
+import com.factory.events.dto.EventDTO;
+import com.factory.events.repository.MachineEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ChangeFeedServiceTest {
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private MachineEventRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void testPagesThroughAllChangesWithCursor() {
+        Instant eventTime = Instant.now().minus(1, ChronoUnit.HOURS);
+        List<EventDTO> events = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            events.add(createEventDTO("E-" + i, eventTime, "M-001", "F01"));
+        }
+        eventService.ingestBatch(events);
+        long start = startCursor();
+
+        ChangeFeedResponse first = changeFeedService.readChanges(start, 2, null, null);
+        assertEquals(2, first.getEvents().size());
+        assertTrue(first.isHasMore());
+
+        ChangeFeedResponse second = changeFeedService.readChanges(first.getNextCursor(), 2, null, null);
+        ChangeFeedResponse third = changeFeedService.readChanges(second.getNextCursor(), 2, null, null);
+        assertEquals(2, second.getEvents().size());
+        assertEquals(1, third.getEvents().size());
+        assertFalse(third.isHasMore());
+
+        List<String> seen = new ArrayList<>();
+        for (ChangeFeedResponse page : List.of(first, second, third)) {
+            page.getEvents().forEach(e -> seen.add(e.getEventId()));
+        }
+        assertEquals(List.of("E-0", "E-1", "E-2", "E-3", "E-4"), seen);
+
+        ChangeFeedResponse tail = changeFeedService.readChanges(third.getNextCursor(), 2, null, null);
+        assertTrue(tail.getEvents().isEmpty());
+        assertEquals(third.getNextCursor(), tail.getNextCursor());
+    }
+
+    @Test
+    void testUpdatedEventMovesToEndOfFeed() throws InterruptedException {
+        Instant eventTime = Instant.now().minus(1, ChronoUnit.HOURS);
+        eventService.ingestBatch(List.of(
+                createEventDTO("E-A", eventTime, "M-001", "F01"),
+                createEventDTO("E-B", eventTime, "M-001", "F01")));
+        long cursor = changeFeedService.readChanges(startCursor(), 100, null, null).getNextCursor();
+
+        Thread.sleep(10);
+        EventDTO update = createEventDTO("E-A", eventTime, "M-001", "F01");
+        update.setDefectCount(7);
+        eventService.ingestBatch(List.of(update));
+
+        ChangeFeedResponse changes = changeFeedService.readChanges(cursor, 100, null, null);
+        assertEquals(1, changes.getEvents().size());
+        ChangeFeedEvent changed = changes.getEvents().get(0);
+        assertEquals("E-A", changed.getEventId());
+        assertEquals(7, changed.getDefectCount());
+        assertTrue(changed.getChangeSeq() > cursor);
+    }
+
+    @Test
+    void testFiltersByMachineAndFactory() {
+        Instant eventTime = Instant.now().minus(1, ChronoUnit.HOURS);
+        eventService.ingestBatch(List.of(
+                createEventDTO("E-1", eventTime, "M-001", "F01"),
+                createEventDTO("E-2", eventTime, "M-002", "F01"),
+                createEventDTO("E-3", eventTime, "M-003", "F02")));
+        long start = startCursor();
+
+        ChangeFeedResponse byMachine = changeFeedService.readChanges(start, 100, "M-002", null);
+        assertEquals(List.of("E-2"), byMachine.getEvents().stream().map(ChangeFeedEvent::getEventId).toList());
+
+        ChangeFeedResponse byFactory = changeFeedService.readChanges(start, 100, null, "F01");
+        assertEquals(List.of("E-1", "E-2"), byFactory.getEvents().stream().map(ChangeFeedEvent::getEventId).toList());
+
+        assertThrows(InvalidRequestException.class,
+                () -> changeFeedService.readChanges(start, 100, "M-002", "F01"));
+    }
+
+    private long startCursor() {
+        // Sequence values keep growing across tests; start just below the oldest surviving row
+        return repository.findAll().stream()
+                .mapToLong(e -> e.getChangeSeq())
+                .min()
+                .orElse(1) - 1;
+    }
+
+    private EventDTO createEventDTO(String eventId, Instant eventTime, String machineId, String factoryId) {
+        EventDTO dto = new EventDTO();
+        dto.setEventId(eventId);
+        dto.setEventTime(eventTime);
+        dto.setMachineId(machineId);
+        dto.setDurationMs(1000L);
+        dto.setDefectCount(0);
+        dto.setLineId("L01");
+        dto.setFactoryId(factoryId);
+        return dto;
+    }
+}
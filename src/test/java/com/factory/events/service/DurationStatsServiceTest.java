@@ -0,0 +1,108 @@
+package com.factory.events.service;
+
+import com.factory.events.dto.DurationStatsResponse;
+import com.factory.events.dto.EventDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DurationStatsServiceTest {
+
+    @Autowired
+    private DurationStatsService durationStatsService;
+
+    @Autowired
+    private EventService eventService;
+
+    // Sketch buckets live for the whole context, so every test uses its own machine and line ids
+
+    @Test
+    void testPercentilesForMachineAndLine() {
+        Instant eventTime = Instant.now().minus(2, ChronoUnit.HOURS);
+        List<EventDTO> events = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            events.add(createEventDTO("E-DUR-" + i, eventTime.plusSeconds(i), "M-DUR-" + (i % 2), "L-DUR",
+                    i * 100L));
+        }
+        eventService.ingestBatch(events);
+
+        Instant end = Instant.now();
+        DurationStatsResponse line = durationStatsService.getDurationStats(null, "L-DUR",
+                end.minus(3, ChronoUnit.HOURS), end, "0.5,0.99,0.999", 5);
+        assertEquals(100, line.getCount());
+        assertEquals(5_000, line.getPercentiles().get("p50"), 50);
+        assertEquals(9_900, line.getPercentiles().get("p99"), 99);
+        assertTrue(line.getPercentiles().containsKey("p99.9"));
+        assertEquals(100, line.getHistogram().stream().mapToLong(bin -> bin.getCount()).sum());
+
+        DurationStatsResponse machine = durationStatsService.getDurationStats("M-DUR-0", null,
+                end.minus(3, ChronoUnit.HOURS), end, "0.5", 0);
+        assertEquals(50, machine.getCount());
+        assertTrue(machine.getHistogram().isEmpty());
+        assertFalse(machine.getStart().isAfter(end.minus(3, ChronoUnit.HOURS)));
+    }
+
+    @Test
+    void testUpdatedDurationReplacesPreviousValue() throws InterruptedException {
+        Instant eventTime = Instant.now().minus(30, ChronoUnit.MINUTES);
+        Instant end = Instant.now().plus(1, ChronoUnit.MINUTES);
+        eventService.ingestBatch(List.of(createEventDTO("E-UPD-1", eventTime, "M-UPD", "L-UPD", 1_000L)));
+        // First query seeds the bucket from the database; the update then reaches it as a commit
+        assertEquals(1, durationStatsService.getDurationStats("M-UPD", null,
+                eventTime.minus(1, ChronoUnit.HOURS), end, "0.5", 0).getCount());
+
+        Thread.sleep(10);
+        eventService.ingestBatch(List.of(createEventDTO("E-UPD-1", eventTime, "M-UPD", "L-UPD", 60_000L)));
+
+        DurationStatsResponse stats = durationStatsService.getDurationStats("M-UPD", null,
+                eventTime.minus(1, ChronoUnit.HOURS), end, "0.5", 0);
+        assertEquals(1, stats.getCount());
+        assertEquals(60_000, stats.getPercentiles().get("p50"), 600);
+    }
+
+    @Test
+    void testRejectsInvalidRequests() {
+        Instant end = Instant.now();
+        Instant start = end.minus(1, ChronoUnit.HOURS);
+
+        assertThrows(InvalidRequestException.class,
+                () -> durationStatsService.getDurationStats("M-1", "L-1", start, end, "0.5", 0));
+        assertThrows(InvalidRequestException.class,
+                () -> durationStatsService.getDurationStats(null, null, start, end, "0.5", 0));
+        assertThrows(InvalidRequestException.class,
+                () -> durationStatsService.getDurationStats("M-1", null, start, end, "1.5", 0));
+        assertThrows(InvalidRequestException.class,
+                () -> durationStatsService.getDurationStats("M-1", null, end.minus(30, ChronoUnit.DAYS), end, "0.5", 0));
+    }
+
+    @Test
+    void testPercentileKeys() {
+        assertEquals("p50", DurationStatsService.percentileKey(0.5));
+        assertEquals("p99.9", DurationStatsService.percentileKey(0.999));
+        assertEquals("p0", DurationStatsService.percentileKey(0.0));
+        assertEquals("p100", DurationStatsService.percentileKey(1.0));
+    }
+
+    private EventDTO createEventDTO(String eventId, Instant eventTime, String machineId, String lineId,
+                                    long durationMs) {
+        EventDTO dto = new EventDTO();
+        dto.setEventId(eventId);
+        dto.setEventTime(eventTime);
+        dto.setMachineId(machineId);
+        dto.setDurationMs(durationMs);
+        dto.setDefectCount(0);
+        dto.setLineId(lineId);
+        dto.setFactoryId("F01");
+        return dto;
+    }
+}
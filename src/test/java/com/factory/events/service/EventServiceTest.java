@@ -129,6 +129,33 @@ class EventServiceTest {
         assertEquals(0, repository.count());
     }
 
+    @Test
+    void testRejectionSummaryAggregatesByReason() {
+        Instant now = Instant.now();
+        List<EventDTO> events = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            events.add(createEventDTO("E-BAD-" + i, now, "M-001", -1L, 0));
+        }
+        events.add(createEventDTO("E-FUTURE", now.plus(1, ChronoUnit.HOURS), "M-001", 1000L, 0));
+        events.add(createEventDTO("E-GOOD", now, "M-001", 1000L, 0));
+
+        BatchIngestResponse response = eventService.ingestBatch(events, RejectionMode.SUMMARY);
+
+        assertEquals(1, response.getAccepted());
+        assertEquals(26, response.getRejected());
+        assertNull(response.getRejections());
+        assertEquals(2, response.getRejectionSummary().size());
+
+        BatchIngestResponse.RejectionSummary duration = response.getRejectionSummary().get(0);
+        assertEquals("INVALID_DURATION", duration.getReason());
+        assertEquals(25, duration.getCount());
+        assertEquals(BatchIngestResponse.DEFAULT_SAMPLE_SIZE, duration.getSampleEventIds().size());
+        assertEquals("E-BAD-0", duration.getSampleEventIds().get(0));
+
+        assertEquals("FUTURE_EVENT_TIME", response.getRejectionSummary().get(1).getReason());
+        assertEquals(1, repository.count());
+    }
+
     @Test
     void testDefectCountNegativeOneIgnoredInCalculations() {
         Instant start = Instant.now().truncatedTo(ChronoUnit.HOURS);
@@ -0,0 +1,137 @@
+package com.factory.events.service;
+
+import com.factory.events.dto.BatchIngestResponse;
+import com.factory.events.dto.EventDTO;
+import com.factory.events.model.MachineEvent;
+import com.factory.events.repository.MachineEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Ingests the same input once through the parallel preprocessing path and once through the
+ * sequential one and expects identical counts and stored rows.
+ */
+@SpringBootTest(properties = {
+        "events.ingest.parallel-threshold=200",
+        "events.ingest.parallel-chunk-size=16"
+})
+@ActiveProfiles("test")
+class ParallelIngestParityTest {
+
+    private static final int SEED_SIZE = 100;
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private MachineEventRepository repository;
+
+    @SpyBean
+    private BatchPreprocessor preprocessor;
+
+    private final BatchPreprocessor sequential = new BatchPreprocessor(Integer.MAX_VALUE, 64, 1);
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sequential.shutdown();
+    }
+
+    @Test
+    void testParallelIngestMatchesSequentialIngest() throws InterruptedException {
+        Instant eventTime = Instant.now().minus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+
+        // Above the lowered threshold, so the context's preprocessor fans out
+        BatchIngestResponse parallelResponse = seedAndIngest(eventTime);
+        Map<String, String> parallelRows = rows();
+
+        repository.deleteAll();
+        doAnswer(invocation -> sequential.process(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(preprocessor).process(any(), any());
+        BatchIngestResponse sequentialResponse = seedAndIngest(eventTime);
+        Map<String, String> sequentialRows = rows();
+
+        assertTrue(parallelResponse.getAccepted() > 0);
+        assertTrue(parallelResponse.getUpdated() > 0);
+        assertTrue(parallelResponse.getDeduped() > 0);
+        assertTrue(parallelResponse.getRejected() > 0);
+        assertEquals(sequentialResponse.getAccepted(), parallelResponse.getAccepted());
+        assertEquals(sequentialResponse.getUpdated(), parallelResponse.getUpdated());
+        assertEquals(sequentialResponse.getDeduped(), parallelResponse.getDeduped());
+        assertEquals(sequentialResponse.getRejected(), parallelResponse.getRejected());
+        assertEquals(summary(sequentialResponse), summary(parallelResponse));
+        assertEquals(sequentialRows, parallelRows);
+    }
+
+    private BatchIngestResponse seedAndIngest(Instant eventTime) throws InterruptedException {
+        List<EventDTO> seed = new ArrayList<>();
+        for (int i = 0; i < SEED_SIZE; i++) {
+            seed.add(createEventDTO("E-PAR-" + i, eventTime, 1000L, 1));
+        }
+        eventService.ingestBatch(seed);
+        Thread.sleep(10);
+
+        List<EventDTO> batch = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            // Even seed ids come back unchanged, odd ones with a new duration; repeats within the batch
+            // and invalid durations and future times are mixed in
+            int id = i % 7 == 0 ? 0 : i;
+            long durationMs = id < SEED_SIZE && id % 2 == 1 ? 2000L : 1000L;
+            if (i % 13 == 0) {
+                durationMs = -1L;
+            }
+            Instant time = i % 17 == 0 ? Instant.now().plus(1, ChronoUnit.HOURS) : eventTime;
+            batch.add(createEventDTO("E-PAR-" + id, time, durationMs, 1));
+        }
+        return eventService.ingestBatch(batch);
+    }
+
+    private Map<String, String> rows() {
+        Map<String, String> rows = new TreeMap<>();
+        for (MachineEvent event : repository.findAll()) {
+            rows.put(event.getEventId(), event.getDurationMs() + "/" + event.getDefectCount() + "/" + event.getEventTime());
+        }
+        return rows;
+    }
+
+    private static Map<String, Integer> summary(BatchIngestResponse response) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (BatchIngestResponse.RejectionSummary rejection : response.getRejectionSummary()) {
+            counts.put(rejection.getReason(), rejection.getCount());
+        }
+        return counts;
+    }
+
+    private EventDTO createEventDTO(String eventId, Instant eventTime, Long durationMs, Integer defectCount) {
+        EventDTO dto = new EventDTO();
+        dto.setEventId(eventId);
+        dto.setEventTime(eventTime);
+        dto.setMachineId("M-PAR");
+        dto.setDurationMs(durationMs);
+        dto.setDefectCount(defectCount);
+        dto.setLineId("L-001");
+        dto.setFactoryId("F-01");
+        return dto;
+    }
+}
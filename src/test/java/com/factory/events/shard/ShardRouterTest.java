@@ -0,0 +1,112 @@
+package com.factory.events.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardRouterTest {
+
+    @Test
+    void testUnshardedRunsEverythingOnShardZero() {
+        ShardRouter router = new ShardRouter(new ShardingProperties());
+
+        assertFalse(router.isSharded());
+        assertEquals(0, router.shardFor("F01", "M-001"));
+        assertEquals(List.of(0), router.shardsFor(null, null));
+        assertEquals(List.of(0), router.onShards(router.allShards(), shard -> ShardContext.current()));
+    }
+
+    @Test
+    void testForEachShardRunsWorkWithoutResult() {
+        ShardRouter router = new ShardRouter(properties(ShardStrategy.FACTORY, 3));
+        try {
+            Set<Integer> seen = ConcurrentHashMap.newKeySet();
+            router.forEachShard(router.allShards(), shard -> seen.add(ShardContext.current()));
+            assertEquals(Set.of(0, 1, 2), seen);
+
+            ShardRouter single = new ShardRouter(new ShardingProperties());
+            single.forEachShard(single.allShards(), seen::remove);
+            assertEquals(Set.of(1, 2), seen);
+        } finally {
+            router.shutdown();
+        }
+    }
+
+    @Test
+    void testFactoryStrategyNarrowsOnlyByFactory() {
+        ShardRouter router = new ShardRouter(properties(ShardStrategy.FACTORY, 3));
+
+        int shard = router.shardFor("F01", "M-001");
+        assertEquals(shard, router.shardFor("F01", "M-999"));
+        assertEquals(List.of(shard), router.shardsFor("F01", null));
+        assertEquals(List.of(0, 1, 2), router.shardsFor(null, "M-001"));
+        assertEquals(0, router.shardFor(null, "M-001"));
+    }
+
+    @Test
+    void testMachineHashStrategyNarrowsOnlyByMachine() {
+        ShardRouter router = new ShardRouter(properties(ShardStrategy.MACHINE_HASH, 3));
+
+        int shard = router.shardFor("F01", "M-001");
+        assertEquals(shard, router.shardFor("F02", "M-001"));
+        assertEquals(List.of(shard), router.shardsFor(null, "M-001"));
+        assertEquals(List.of(0, 1, 2), router.shardsFor("F01", null));
+    }
+
+    @Test
+    void testOnShardsSetsContextAndKeepsOrder() {
+        ShardRouter router = new ShardRouter(properties(ShardStrategy.FACTORY, 3));
+        try {
+            List<Integer> seen = router.onShards(List.of(2, 0, 1), shard -> {
+                assertEquals(shard, ShardContext.current());
+                return shard;
+            });
+
+            assertEquals(List.of(2, 0, 1), seen);
+            assertEquals(0, ShardContext.current());
+        } finally {
+            router.shutdown();
+        }
+    }
+
+    @Test
+    void testOnShardsPropagatesFailureAfterAllShardsFinish() {
+        ShardRouter router = new ShardRouter(properties(ShardStrategy.FACTORY, 3));
+        try {
+            IllegalStateException failure = assertThrows(IllegalStateException.class,
+                    () -> router.onShards(List.of(0, 1, 2), shard -> {
+                        if (shard == 1) {
+                            throw new IllegalStateException("shard 1 down");
+                        }
+                        return shard;
+                    }));
+            assertEquals("shard 1 down", failure.getMessage());
+        } finally {
+            router.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectsGapsInShardNumbering() {
+        ShardingProperties properties = new ShardingProperties();
+        properties.setShards(Map.of(2, new ShardingProperties.Shard()));
+
+        assertThrows(IllegalStateException.class, () -> new ShardRouter(properties));
+    }
+
+    private static ShardingProperties properties(ShardStrategy strategy, int shardCount) {
+        ShardingProperties properties = new ShardingProperties();
+        properties.setStrategy(strategy);
+        for (int shard = 1; shard < shardCount; shard++) {
+            ShardingProperties.Shard config = new ShardingProperties.Shard();
+            config.setUrl("jdbc:h2:mem:router-shard" + shard);
+            properties.getShards().put(shard, config);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,273 @@
+package com.factory.events.shard;
+
+import com.factory.events.config.DataSourceRoute;
+import com.factory.events.dto.BatchIngestResponse;
+import com.factory.events.dto.ChangeFeedEvent;
+import com.factory.events.dto.ChangeFeedResponse;
+import com.factory.events.dto.DurationStatsResponse;
+import com.factory.events.dto.EventDTO;
+import com.factory.events.dto.StatsResponse;
+import com.factory.events.dto.TopDefectLineResponse;
+import com.factory.events.importer.BulkImportService;
+import com.factory.events.repository.MachineEventRepository;
+import com.factory.events.service.ChangeFeedService;
+import com.factory.events.service.DurationStatsService;
+import com.factory.events.service.EventService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sharded-0;DB_CLOSE_DELAY=-1",
+        "events.sharding.strategy=FACTORY",
+        "events.sharding.shards[1].url=jdbc:h2:mem:sharded-1;DB_CLOSE_DELAY=-1",
+        "events.sharding.shards[2].url=jdbc:h2:mem:sharded-2;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class ShardedEventServiceTest {
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    @Autowired
+    private BulkImportService importService;
+
+    @Autowired
+    private DurationStatsService durationStatsService;
+
+    @SpyBean
+    private MachineEventRepository repository;
+
+    private final List<String> factories = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int shard = 0; shard < shardDataSources.size(); shard++) {
+            shard(shard).update("DELETE FROM machine_events");
+        }
+        // One factory per shard, so every test touches all three databases
+        factories.clear();
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            int i = 0;
+            while (shardRouter.shardFor("F-" + i, null) != shard) {
+                i++;
+            }
+            factories.add("F-" + i);
+        }
+    }
+
+    @Test
+    void testBatchIsSplitAcrossShards() {
+        Instant eventTime = Instant.now().minus(1, ChronoUnit.HOURS);
+        List<EventDTO> events = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            events.add(createEventDTO("E-" + i, eventTime, "M-" + (i % 4), "L-" + (i % 2), factories.get(i % 3), 1));
+        }
+
+        BatchIngestResponse response = eventService.ingestBatch(events);
+        BatchIngestResponse retry = eventService.ingestBatch(events);
+
+        assertEquals(30, response.getAccepted());
+        assertEquals(30, retry.getDeduped());
+        for (int shard = 0; shard < 3; shard++) {
+            assertEquals(10, count(shard, null));
+            assertEquals(10, count(shard, factories.get(shard)));
+        }
+    }
+
+    @Test
+    void testUpdateIntoAnotherFactoryMovesTheRow() throws InterruptedException {
+        Instant start = Instant.now().minus(2, ChronoUnit.HOURS);
+        Instant eventTime = start.plus(30, ChronoUnit.MINUTES);
+        eventService.ingestBatch(List.of(createEventDTO("E-MOVE", eventTime, "M-1", "L-1", factories.get(0), 2)));
+        Thread.sleep(10);
+
+        BatchIngestResponse response = eventService.ingestBatch(
+                List.of(createEventDTO("E-MOVE", eventTime, "M-1", "L-1", factories.get(1), 5)));
+
+        assertEquals(1, response.getUpdated());
+        assertEquals(0, count(0, null));
+        assertEquals(1, count(1, factories.get(1)));
+        StatsResponse stats = eventService.getStats("M-1", start, Instant.now());
+        assertEquals(1, stats.getEventsCount());
+        assertEquals(5, stats.getDefectsCount());
+
+        // Moving back lands on the original shard again, still as one row
+        Thread.sleep(10);
+        eventService.ingestBatch(List.of(createEventDTO("E-MOVE", eventTime, "M-1", "L-1", factories.get(0), 7)));
+        assertEquals(1, count(0, factories.get(0)));
+        assertEquals(0, count(1, null));
+    }
+
+    @Test
+    void testSameEventIdWithDifferentFactoriesInOneBatchKeepsOneRow() {
+        Instant eventTime = Instant.now().minus(1, ChronoUnit.HOURS);
+
+        BatchIngestResponse response = eventService.ingestBatch(List.of(
+                createEventDTO("E-TWICE", eventTime, "M-1", "L-1", factories.get(0), 1),
+                createEventDTO("E-TWICE", eventTime, "M-1", "L-1", factories.get(2), 3)));
+
+        assertEquals(1, response.getAccepted());
+        assertEquals(1, response.getDeduped());
+        assertEquals(1, count(0, factories.get(0)));
+        assertEquals(0, count(2, null));
+    }
+
+    @Test
+    void testStaleCopyLeftByAFailedMoveIsRemoved() throws InterruptedException {
+        Instant eventTime = Instant.now().minus(1, ChronoUnit.HOURS);
+        eventService.ingestBatch(List.of(createEventDTO("E-STALE", eventTime, "M-1", "L-1", factories.get(2), 1)));
+        // What a move that inserted on shard 2 but never deleted from shard 0 leaves behind
+        shard(0).update("INSERT INTO machine_events (event_id, event_time, received_time, machine_id, duration_ms, "
+                        + "defect_count, line_id, factory_id, payload_hash, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)",
+                "E-STALE", java.sql.Timestamp.from(eventTime), java.sql.Timestamp.from(eventTime.minusSeconds(60)),
+                "M-1", 1000L, 9, "L-1", factories.get(0), "stale");
+        Thread.sleep(10);
+
+        eventService.ingestBatch(List.of(createEventDTO("E-STALE", eventTime, "M-1", "L-1", factories.get(2), 4)));
+
+        assertEquals(0, count(0, null));
+        assertEquals(1, count(2, factories.get(2)));
+    }
+
+    @Test
+    void testImportIntoAnotherFactoryMovesTheRow() throws IOException, InterruptedException {
+        Instant eventTime = Instant.now().minus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+        Instant end = Instant.now().plus(1, ChronoUnit.MINUTES);
+        eventService.ingestBatch(List.of(createEventDTO("E-IMP", eventTime, "M-IMP", "L-1", factories.get(0), 2)));
+        // Seeds the machine's sketch bucket so the move has to reach it as an update
+        assertEquals(1, durationStatsService.getDurationStats("M-IMP", null,
+                eventTime.minus(1, ChronoUnit.HOURS), end, "0.5", 0).getCount());
+        Thread.sleep(10);
+        Path csv = Files.createTempFile("sharded-import", ".csv");
+        Files.write(csv, List.of("eventId,eventTime,machineId,durationMs,defectCount,lineId,factoryId",
+                "E-IMP," + eventTime + ",M-IMP,4000,6,L-1," + factories.get(1),
+                "E-IMP," + eventTime + ",M-IMP,4000,8,L-1," + factories.get(2)));
+
+        importService.importFiles(List.of(csv));
+
+        assertEquals(0, count(0, null));
+        assertEquals(1, count(1, factories.get(1)));
+        assertEquals(0, count(2, null));
+        DurationStatsResponse stats = durationStatsService.getDurationStats("M-IMP", null,
+                eventTime.minus(1, ChronoUnit.HOURS), end, "0.5", 0);
+        assertEquals(1, stats.getCount());
+        assertEquals(4_000, stats.getPercentiles().get("p50"), 40);
+    }
+
+    @Test
+    void testStatsGatherAcrossShardsUnlessFactoryGiven() {
+        Instant start = Instant.now().minus(2, ChronoUnit.HOURS);
+        Instant eventTime = start.plus(30, ChronoUnit.MINUTES);
+        eventService.ingestBatch(List.of(
+                createEventDTO("E-1", eventTime, "M-SHARED", "L-1", factories.get(0), 2),
+                createEventDTO("E-2", eventTime, "M-SHARED", "L-1", factories.get(1), 3),
+                createEventDTO("E-3", eventTime, "M-SHARED", "L-2", factories.get(2), 4)));
+
+        StatsResponse all = eventService.getStats("M-SHARED", start, Instant.now());
+        assertEquals(3, all.getEventsCount());
+        assertEquals(9, all.getDefectsCount());
+
+        StatsResponse oneFactory = eventService.getStats("M-SHARED", factories.get(1), start, Instant.now());
+        assertEquals(1, oneFactory.getEventsCount());
+        assertEquals(3, oneFactory.getDefectsCount());
+    }
+
+    @Test
+    void testTopDefectLinesReadOneShard() {
+        Instant from = Instant.now().minus(2, ChronoUnit.HOURS);
+        Instant eventTime = from.plus(30, ChronoUnit.MINUTES);
+        String factory = factories.get(2);
+        eventService.ingestBatch(List.of(
+                createEventDTO("E-1", eventTime, "M-1", "L-LOW", factory, 1),
+                createEventDTO("E-2", eventTime, "M-2", "L-HIGH", factory, 8),
+                createEventDTO("E-3", eventTime, "M-3", "L-HIGH", factories.get(0), 50)));
+        clearInvocations(repository);
+
+        List<TopDefectLineResponse> lines = eventService.getTopDefectLines(factory, from, Instant.now(), 10);
+
+        assertEquals(List.of("L-HIGH", "L-LOW"),
+                lines.stream().map(TopDefectLineResponse::getLineId).collect(Collectors.toList()));
+        assertEquals(8, lines.get(0).getTotalDefects());
+        verify(repository, times(1)).findTopDefectLines(eq(factory), any(), any());
+    }
+
+    @Test
+    void testChangeFeedMergesShardsInSequenceOrder() {
+        Instant eventTime = Instant.now().minus(1, ChronoUnit.HOURS);
+        List<EventDTO> events = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            events.add(createEventDTO("E-" + i, eventTime, "M-1", "L-1", factories.get(i % 3), 0));
+        }
+        eventService.ingestBatch(events);
+
+        List<ChangeFeedEvent> seen = new ArrayList<>();
+        long cursor = 0;
+        ChangeFeedResponse page;
+        do {
+            page = changeFeedService.readChanges(cursor, 4, null, null);
+            seen.addAll(page.getEvents());
+            cursor = page.getNextCursor();
+        } while (page.isHasMore());
+
+        assertEquals(9, seen.size());
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i).getChangeSeq() > seen.get(i - 1).getChangeSeq());
+        }
+        assertEquals(3, changeFeedService.readChanges(0, 100, null, factories.get(1)).getEvents().size());
+    }
+
+    private long count(int shard, String factoryId) {
+        Long count = factoryId == null
+                ? shard(shard).queryForObject("SELECT COUNT(*) FROM machine_events", Long.class)
+                : shard(shard).queryForObject("SELECT COUNT(*) FROM machine_events WHERE factory_id = ?",
+                        Long.class, factoryId);
+        return count != null ? count : 0;
+    }
+
+    private JdbcTemplate shard(int shard) {
+        return new JdbcTemplate(shardDataSources.get(shard, DataSourceRoute.PRIMARY));
+    }
+
+    private EventDTO createEventDTO(String eventId, Instant eventTime, String machineId, String lineId,
+                                    String factoryId, int defectCount) {
+        EventDTO dto = new EventDTO();
+        dto.setEventId(eventId);
+        dto.setEventTime(eventTime);
+        dto.setMachineId(machineId);
+        dto.setDurationMs(1000L);
+        dto.setDefectCount(defectCount);
+        dto.setLineId(lineId);
+        dto.setFactoryId(factoryId);
+        return dto;
+    }
+}
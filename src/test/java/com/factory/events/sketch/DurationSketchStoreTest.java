@@ -0,0 +1,73 @@
+package com.factory.events.sketch;
+
+import com.factory.events.dto.EventDTO;
+import com.factory.events.model.MachineEvent;
+import com.factory.events.repository.MachineEventRepository;
+import com.factory.events.service.BatchCommittedEvent;
+import com.factory.events.service.EventService;
+import com.factory.events.shard.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DurationSketchStoreTest {
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private MachineEventRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Test
+    void testSeedFinishingFirstDoesNotCountTriggeringChangeTwice() {
+        Instant eventTime = Instant.now().minus(30, ChronoUnit.MINUTES);
+        eventService.ingestBatch(List.of(createEventDTO("E-SKS-1", eventTime, "M-SKS", "L-SKS", 4_000L)));
+        MachineEvent row = repository.findByEventId("E-SKS-1").orElseThrow();
+
+        // Seeds on the calling thread, so the seed has read the committed row before the change that
+        // created the bucket is handed to it
+        DurationSketchStore inline = new DurationSketchStore(repository, transactionManager, shardRouter,
+                0.01, 60, 24, Runnable::run);
+        try {
+            inline.onBatchCommitted(new BatchCommittedEvent(List.of(new BatchCommittedEvent.Change(
+                    "E-SKS-1", row.getChangeSeq(), null, BatchCommittedEvent.Values.of(row)))));
+
+            Instant end = Instant.now().plus(1, ChronoUnit.MINUTES);
+            assertEquals(1, inline.query(DurationSketchStore.Scope.MACHINE, "M-SKS",
+                    eventTime.minus(1, ChronoUnit.HOURS), end).getSketch().getCount());
+            assertEquals(1, inline.query(DurationSketchStore.Scope.LINE, "L-SKS",
+                    eventTime.minus(1, ChronoUnit.HOURS), end).getSketch().getCount());
+        } finally {
+            inline.shutdown();
+        }
+    }
+
+    private EventDTO createEventDTO(String eventId, Instant eventTime, String machineId, String lineId,
+                                    long durationMs) {
+        EventDTO dto = new EventDTO();
+        dto.setEventId(eventId);
+        dto.setEventTime(eventTime);
+        dto.setMachineId(machineId);
+        dto.setDurationMs(durationMs);
+        dto.setDefectCount(0);
+        dto.setLineId(lineId);
+        dto.setFactoryId("F01");
+        return dto;
+    }
+}
@@ -0,0 +1,141 @@
+package com.factory.events.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurationSketchTest {
+
+    @Test
+    void testQuantilesStayWithinRelativeAccuracy() {
+        DurationSketch sketch = new DurationSketch(0.01);
+        SplittableRandom random = new SplittableRandom(7);
+        long[] values = new long[50_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1 + Math.round(Math.exp(7 + 1.2 * random.nextGaussian()));
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0.0, 0.1, 0.5, 0.9, 0.95, 0.99, 0.999, 1.0}) {
+            long exact = values[(int) (q * (values.length - 1))];
+            double estimate = sketch.quantile(q);
+            assertTrue(Math.abs(estimate - exact) <= 0.01 * exact,
+                    "q=" + q + " exact=" + exact + " estimate=" + estimate);
+        }
+        assertEquals(values.length, sketch.getCount());
+    }
+
+    @Test
+    void testMergeMatchesSingleSketch() {
+        DurationSketch whole = new DurationSketch(0.01);
+        DurationSketch first = new DurationSketch(0.01);
+        DurationSketch second = new DurationSketch(0.01);
+        for (long value = 0; value < 10_000; value += 3) {
+            whole.add(value);
+            // Disjoint ranges force the merge to grow the bucket array at both ends
+            (value < 5_000 ? second : first).add(value);
+        }
+
+        first.merge(second);
+
+        assertEquals(whole.getCount(), first.getCount());
+        for (double q : new double[]{0.01, 0.25, 0.5, 0.75, 0.99}) {
+            assertEquals(whole.quantile(q), first.quantile(q));
+        }
+    }
+
+    @Test
+    void testMergeRejectsDifferentAccuracy() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new DurationSketch(0.01).merge(new DurationSketch(0.02)));
+    }
+
+    @Test
+    void testRemoveUndoesAdd() {
+        DurationSketch sketch = new DurationSketch(0.01);
+        sketch.add(100);
+        sketch.add(5_000);
+        sketch.add(0);
+
+        sketch.remove(5_000);
+        sketch.remove(0);
+        // Never added: ignored rather than driving a bucket negative
+        sketch.remove(70_000);
+        sketch.remove(0);
+
+        assertEquals(1, sketch.getCount());
+        assertEquals(100, sketch.quantile(0.99), 1.0);
+    }
+
+    @Test
+    void testZeroDurationsAreExact() {
+        DurationSketch sketch = new DurationSketch(0.01);
+        for (int i = 0; i < 60; i++) {
+            sketch.add(0);
+        }
+        for (int i = 0; i < 40; i++) {
+            sketch.add(1_000);
+        }
+
+        assertEquals(0.0, sketch.quantile(0.5));
+        assertEquals(1_000, sketch.quantile(0.9), 10.0);
+    }
+
+    @Test
+    void testEmptySketchHasNoQuantiles() {
+        DurationSketch sketch = new DurationSketch(0.01);
+
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        assertTrue(sketch.histogram(10).isEmpty());
+    }
+
+    @Test
+    void testHistogramCoversAllValuesInOrder() {
+        DurationSketch sketch = new DurationSketch(0.01);
+        for (long value = 1; value <= 100_000; value += 7) {
+            sketch.add(value);
+        }
+
+        List<double[]> bins = sketch.histogram(20);
+
+        assertTrue(bins.size() <= 20);
+        long total = 0;
+        double previousUpper = 0;
+        for (double[] bin : bins) {
+            assertTrue(bin[0] >= previousUpper - 1e-9);
+            assertTrue(bin[1] > bin[0]);
+            previousUpper = bin[1];
+            total += (long) bin[2];
+        }
+        assertEquals(sketch.getCount(), total);
+    }
+
+    @Test
+    void testBucketSeedReconcilesBufferedChanges() {
+        SketchBucket bucket = new SketchBucket(0, 0.01);
+        // E-1 was seen by the seed at seq 10; E-2 was inserted after; E-3 had already left the bucket
+        bucket.apply("E-1", 10, 100, true);
+        bucket.apply("E-2", 11, 200, true);
+        bucket.apply("E-3", 12, 300, false);
+
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{"E-1", 10L, 100L});
+        rows.add(new Object[]{"E-4", 9L, 400L});
+        assertTrue(bucket.claimSeed());
+        assertFalse(bucket.claimSeed());
+        bucket.seed(rows);
+
+        assertTrue(bucket.ready().isDone());
+        DurationSketch merged = new DurationSketch(0.01);
+        bucket.mergeInto(merged);
+        assertEquals(3, merged.getCount());
+        assertEquals(100, merged.quantile(0.0), 1.0);
+        assertEquals(400, merged.quantile(1.0), 4.0);
+    }
+}